@@ -1,8 +1,10 @@
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Random;
 import java.util.Set;
 import java.util.function.IntFunction;
@@ -313,6 +315,97 @@ public class TestEfficiency extends TestCase {
 		}
 	}
 	
+	public void testSorted() {
+		// a board file lists tiles in row-major order
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			hb.add(new HexTile(terrains[i % terrains.length],new HexCoordinate(i % MAX_A, i / MAX_A)));
+		}
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			assertEquals(terrains[i % terrains.length],hb.terrainAt(new HexCoordinate(i % MAX_A, i / MAX_A)));
+		}
+		for (int i=MAX_LENGTH-1; i >= 0; i -= 2) {
+			assertTrue(hb.remove(new HexTile(terrains[i % terrains.length],new HexCoordinate(i % MAX_A, i / MAX_A))));
+		}
+		assertEquals(MAX_LENGTH/2,hb.size());
+		hb.clear();
+	}
+	
+	public void testRowSize() {
+		buildHuge();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			int b = i % (1 << (POWER-2));
+			assertEquals(b == 0 ? 7 : (b & 1) == 0 ? 8 : 0,hb.row(b).size());
+		}
+		hb.clear();
+	}
+	
+	public void testSelect() {
+		buildHuge();
+		int n = hb.size();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			int k = r.nextInt(n);
+			assertEquals(k,hb.rank(hb.select(k).getLocation()));
+		}
+		hb.clear();
+	}
+	
+	public void testNavigate() {
+		buildHuge();
+		NavigableMap<HexCoordinate,Terrain> m = hb.asMap();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			int b = r.nextInt(1 << (POWER-4)) * 2;
+			assertEquals(new HexCoordinate(0,b+2),m.ceilingKey(new HexCoordinate(15,b)));
+			assertEquals(new HexCoordinate(14,b),m.floorKey(new HexCoordinate(15,b+1)));
+			assertEquals(16,m.subMap(new HexCoordinate(0,b+2),new HexCoordinate(0,b+6)).size());
+		}
+		hb.clear();
+	}
+	
+	public void testWindow() {
+		buildHuge();
+		for (int i=0; i < MAX_LENGTH/10; ++i) {
+			int b = r.nextInt(1 << (POWER-4)) * 2 + 2;
+			assertEquals(9,hb.window(new HexCoordinate(2,b),new HexCoordinate(7,b+4)).size());
+		}
+		hb.clear();
+	}
+	
+	public void testSnapshots() {
+		// keep every version: each costs a path, not a copy of the board
+		buildHuge();
+		int n = hb.size();
+		List<HexBoard> history = new ArrayList<>();
+		for (int i=0; i < MAX_LENGTH/10; ++i) {
+			history.add(hb.snapshot());
+			int b = r.nextInt(1 << (POWER-2)) * 2;
+			hb.add(new HexTile(Terrain.WATER,new HexCoordinate(1,b)));
+		}
+		for (int i=0; i < history.size(); i += 997) {
+			HexBoard old = history.get(i);
+			assertTrue(old.size() >= n);
+			assertTrue(old.size() <= n + i);
+			assertEquals(Terrain.LAND,old.terrainAt(new HexCoordinate(2,2)));
+		}
+		assertEquals(n,history.get(0).size());
+		hb.clear();
+	}
+	
+	public void testBulkLoad() {
+		List<HexTile> tiles = new ArrayList<>();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			tiles.add(new HexTile(terrains[i % terrains.length],new HexCoordinate(i % MAX_A, i / MAX_A)));
+		}
+		for (int i=0; i < 20; ++i) {
+			hb = new HexBoard(tiles);
+			assertEquals(MAX_LENGTH,hb.size());
+		}
+		Collections.shuffle(tiles, r);
+		hb = new HexBoard(tiles);
+		assertEquals(MAX_LENGTH,hb.size());
+		assertEquals(tiles.get(0).getTerrain(),hb.terrainAt(tiles.get(0).getLocation()));
+		hb.clear();
+	}
+	
 	public void testRowIsEmpty() {
 		int max = 1 << (POWER+1);
 		int total = 0;
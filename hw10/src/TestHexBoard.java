@@ -1,9 +1,15 @@
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 
 import edu.uwm.cs351.HexBoard;
 import edu.uwm.cs351.HexCoordinate;
@@ -1672,4 +1678,417 @@ public class TestHexBoard extends TestCollection<HexTile> {
 		it2.remove();
 		assertException(ConcurrentModificationException.class, () -> it.remove());
 	}
+	
+	
+	//// testBNN: boards read in sorted order (tree must stay balanced)
+	
+	private HexTile tile(int i) {
+		return new HexTile(Terrain.values()[i % Terrain.values().length],h(i % 100, i / 100));
+	}
+	
+	public void testB00() {
+		for (int i=0; i < 10000; ++i) {
+			assertTrue(hb.add(tile(i)));
+		}
+		assertEquals(10000,hb.size());
+		for (int i=0; i < 10000; ++i) {
+			assertEquals(tile(i).getTerrain(),hb.terrainAt(tile(i).getLocation()));
+		}
+		int i = 0;
+		for (HexTile t : hb) {
+			assertEquals(tile(i),t);
+			++i;
+		}
+		assertEquals(10000,i);
+	}
+	
+	public void testB01() {
+		// reverse order
+		for (int i=9999; i >= 0; --i) {
+			hb.add(tile(i));
+		}
+		for (int i=0; i < 10000; i += 3) {
+			assertTrue(hb.remove(tile(i)));
+		}
+		for (int i=0; i < 10000; ++i) {
+			assertEquals(i % 3 != 0,hb.contains(tile(i)));
+		}
+		assertEquals(6666,hb.size());
+	}
+	
+	public void testB02() {
+		// removing with the iterator while rotations happen
+		for (int i=0; i < 1000; ++i) {
+			hb.add(tile(i));
+		}
+		it = hb.iterator();
+		int i = 0;
+		while (it.hasNext()) {
+			assertEquals(tile(i),it.next());
+			if ((i & 1) == 0) it.remove();
+			++i;
+		}
+		assertEquals(1000,i);
+		assertEquals(500,hb.size());
+		i = 1;
+		for (HexTile t : hb) {
+			assertEquals(tile(i),t);
+			i += 2;
+		}
+	}
+	
+	public void testB03() {
+		for (int i=0; i < 1000; ++i) {
+			hb.add(tile(i));
+		}
+		it = hb.row(4).iterator();
+		int count = 0;
+		while (it.hasNext()) {
+			assertEquals(tile(400+count),it.next());
+			it.remove();
+			++count;
+		}
+		assertEquals(100,count);
+		assertEquals(900,hb.size());
+		assertTrue(hb.row(4).isEmpty());
+		assertEquals(100,hb.row(5).size());
+	}
+	
+	
+	//// testONN: order statistics
+	
+	public void testO00() {
+		assertEquals(0,hb.rank(h(3,3)));
+		assertException(IndexOutOfBoundsException.class, () -> hb.select(0));
+		assertException(NoSuchElementException.class, () -> hb.randomTile(new Random()));
+		assertEquals(0,hb.row(0).size());
+	}
+	
+	public void testO01() {
+		makeBigTree();
+		for (int i=1; i <= 13; ++i) {
+			assertEquals(e[i],hb.select(i-1));
+			assertEquals(i-1,hb.rank(e[i].getLocation()));
+		}
+		assertException(IndexOutOfBoundsException.class, () -> hb.select(13));
+		assertException(IndexOutOfBoundsException.class, () -> hb.select(-1));
+		assertEquals(0,hb.rank(h(0,0)));
+		assertEquals(2,hb.rank(h(0,1)));
+		assertEquals(4,hb.rank(h(5,2)));
+		assertEquals(13,hb.rank(h(4,7)));
+	}
+	
+	public void testO02() {
+		makeBigTree();
+		int[] sizes = {2,1,1,3,2,1,2,1,0};
+		for (int r=0; r < sizes.length; ++r) {
+			assertEquals("row " + r,sizes[r],hb.row(r).size());
+			assertEquals(sizes[r] == 0,hb.row(r).isEmpty());
+		}
+		assertEquals(0,hb.row(Integer.MAX_VALUE).size());
+		assertEquals(0,hb.row(Integer.MIN_VALUE).size());
+	}
+	
+	public void testO03() {
+		// counts are kept up to date through adds and removes
+		for (int i=0; i < 1000; ++i) {
+			hb.add(tile(i));
+		}
+		for (int i=0; i < 1000; i += 3) {
+			hb.remove(tile(i));
+		}
+		hb.add(new HexTile(Terrain.CITY,h(5,5))); // not a structural change
+		int k = 0;
+		for (int i=0; i < 1000; ++i) {
+			if (i % 3 == 0) continue;
+			assertEquals(k,hb.rank(tile(i).getLocation()));
+			assertEquals(tile(i).getLocation(),hb.select(k).getLocation());
+			++k;
+		}
+		assertEquals(66,hb.row(3).size());
+		assertEquals(67,hb.row(4).size());
+	}
+	
+	public void testO04() {
+		makeBigTree();
+		Random r = new Random(351);
+		int[] seen = new int[14];
+		for (int i=0; i < 13000; ++i) {
+			HexTile t = hb.randomTile(r);
+			assertEquals(t,hb.select(hb.rank(t.getLocation())));
+			++seen[hb.rank(t.getLocation())+1];
+		}
+		for (int i=1; i <= 13; ++i) {
+			assertTrue(seen[i] > 800 && seen[i] < 1200);
+		}
+	}
+	
+	
+	//// testNNN: navigable map views and windows
+	
+	public void testN00() {
+		NavigableMap<HexCoordinate,Terrain> nm = hb.asMap();
+		makeBigTree();
+		assertEquals(e[1].getLocation(),nm.firstKey());
+		assertEquals(e[13].getLocation(),nm.lastKey());
+		assertEquals(e[5].getLocation(),nm.ceilingKey(h(0,3)));
+		assertEquals(e[5].getLocation(),nm.ceilingKey(h(5,3)));
+		assertEquals(e[6].getLocation(),nm.higherKey(h(5,3)));
+		assertEquals(e[4].getLocation(),nm.floorKey(h(0,3)));
+		assertEquals(e[4].getLocation(),nm.lowerKey(h(5,3)));
+		assertNull(nm.floorKey(h(0,0)));
+		assertNull(nm.ceilingKey(h(0,8)));
+		assertEquals(asEntry(e[7]),nm.floorEntry(h(9,3)));
+		assertException(UnsupportedOperationException.class, () -> nm.firstEntry().setValue(Terrain.CITY));
+	}
+	
+	public void testN01() {
+		NavigableMap<HexCoordinate,Terrain> nm = hb.asMap();
+		makeBigTree();
+		NavigableMap<HexCoordinate,Terrain> sub = nm.subMap(h(0,3), true, h(9,4), false);
+		assertEquals(4,sub.size());
+		assertEquals(e[5].getLocation(),sub.firstKey());
+		assertEquals(e[8].getLocation(),sub.lastKey());
+		assertNull(sub.get(e[9].getLocation()));
+		assertFalse(sub.containsKey(e[4].getLocation()));
+		assertEquals(e[8].getLocation(),sub.floorKey(h(0,7)));
+		assertEquals(e[5].getLocation(),sub.ceilingKey(h(0,0)));
+		assertException(IllegalArgumentException.class, () -> sub.put(h(0,0),Terrain.CITY));
+		assertException(IllegalArgumentException.class, () -> sub.headMap(h(0,5)));
+		assertException(IllegalArgumentException.class, () -> nm.subMap(h(0,5),h(0,4)));
+		sub.put(h(0,4),Terrain.CITY);
+		assertEquals(5,sub.size());
+		assertEquals(14,hb.size());
+		assertEquals(Terrain.CITY,sub.remove(h(0,4)));
+		assertEquals(4,nm.headMap(h(0,3)).size());
+		assertEquals(9,nm.tailMap(h(0,3)).size());
+		assertEquals(8,nm.tailMap(h(5,3),false).size());
+		sub.clear();
+		assertEquals(9,hb.size());
+		assertTrue(sub.isEmpty());
+		assertFalse(hb.contains(e[7]));
+		assertTrue(hb.contains(e[9]));
+	}
+	
+	public void testN02() {
+		NavigableMap<HexCoordinate,Terrain> nm = hb.asMap();
+		makeBigTree();
+		NavigableMap<HexCoordinate,Terrain> d = nm.descendingMap();
+		int i = 13;
+		for (Map.Entry<HexCoordinate,Terrain> en : d.entrySet()) {
+			assertEquals(asEntry(e[i]),en);
+			--i;
+		}
+		assertEquals(0,i);
+		assertEquals(e[13].getLocation(),d.firstKey());
+		assertEquals(e[4].getLocation(),d.ceilingKey(h(0,3)));
+		assertEquals(e[5].getLocation(),d.floorKey(h(0,3)));
+		NavigableMap<HexCoordinate,Terrain> dsub = d.subMap(h(9,4), true, h(5,3), false);
+		assertEquals(4,dsub.size());
+		assertEquals(e[9].getLocation(),dsub.firstKey());
+		assertEquals(e[6].getLocation(),dsub.lastKey());
+		Iterator<HexCoordinate> kit = dsub.keySet().iterator();
+		assertEquals(e[9].getLocation(),kit.next());
+		assertEquals(e[8].getLocation(),kit.next());
+		kit.remove();
+		assertEquals(e[7].getLocation(),kit.next());
+		kit.remove();
+		assertEquals(e[6].getLocation(),kit.next());
+		assertFalse(kit.hasNext());
+		assertEquals(11,hb.size());
+		assertFalse(hb.contains(e[7]));
+		assertFalse(hb.contains(e[8]));
+	}
+	
+	public void testN03() {
+		// compare against a TreeMap over random ranges
+		Random r = new Random(351);
+		NavigableMap<HexCoordinate,Terrain> nm = hb.asMap();
+		TreeMap<HexCoordinate,Terrain> expected = new TreeMap<>(nm.comparator());
+		for (int i=0; i < 300; ++i) {
+			HexCoordinate k = h(r.nextInt(20),r.nextInt(20));
+			Terrain t = Terrain.values()[r.nextInt(Terrain.values().length)];
+			nm.put(k,t);
+			expected.put(k,t);
+		}
+		for (int i=0; i < 200; ++i) {
+			HexCoordinate k1 = h(r.nextInt(22)-1,r.nextInt(22)-1);
+			HexCoordinate k2 = h(r.nextInt(22)-1,r.nextInt(22)-1);
+			if (nm.comparator().compare(k1,k2) > 0) { HexCoordinate t = k1; k1 = k2; k2 = t; }
+			boolean i1 = r.nextBoolean(), i2 = r.nextBoolean();
+			NavigableMap<HexCoordinate,Terrain> sub = nm.subMap(k1,i1,k2,i2);
+			NavigableMap<HexCoordinate,Terrain> exp = expected.subMap(k1,i1,k2,i2);
+			assertEquals(exp.size(),sub.size());
+			assertEquals(exp,sub);
+			assertEquals(new ArrayList<>(exp.descendingMap().entrySet()),new ArrayList<>(sub.descendingMap().entrySet()));
+			HexCoordinate k = h(r.nextInt(22)-1,r.nextInt(22)-1);
+			assertEquals(exp.ceilingKey(k),sub.ceilingKey(k));
+			assertEquals(exp.floorKey(k),sub.floorKey(k));
+			assertEquals(exp.higherKey(k),sub.higherKey(k));
+			assertEquals(exp.lowerKey(k),sub.lowerKey(k));
+			assertEquals(expected.headMap(k,i1),nm.headMap(k,i1));
+			assertEquals(exp.isEmpty() ? null : exp.firstKey(),sub.isEmpty() ? null : sub.firstKey());
+			assertEquals(exp.lastEntry(),sub.lastEntry());
+		}
+	}
+	
+	public void testW00() {
+		makeBigTree();
+		assertEquals(Arrays.asList(e[4],e[5],e[6],e[7],e[8]),hb.window(h(4,2),h(8,4)));
+		assertEquals(Arrays.asList(e[1],e[2],e[3]),hb.window(h(1,0),h(3,1)));
+		assertEquals(Arrays.asList(e[10],e[11],e[12]),hb.window(h(0,1),h(2,6)));
+		assertEquals(Arrays.asList(),hb.window(h(4,0),h(9,1)));
+		assertEquals(Arrays.asList(),hb.window(h(5,5),h(4,6)));
+		assertEquals(13,hb.window(h(0,0),h(9,7)).size());
+	}
+	
+	public void testW01() {
+		Random r = new Random(351);
+		for (int i=0; i < 2000; ++i) {
+			hb.add(new HexTile(Terrain.LAND,h(r.nextInt(40),r.nextInt(40))));
+		}
+		for (int i=0; i < 100; ++i) {
+			int a1 = r.nextInt(42)-1, a2 = a1 + r.nextInt(10);
+			int b1 = r.nextInt(42)-1, b2 = b1 + r.nextInt(10);
+			List<HexTile> expected = new ArrayList<>();
+			for (HexTile t : hb) {
+				HexCoordinate l = t.getLocation();
+				if (a1 <= l.a() && l.a() <= a2 && b1 <= l.b() && l.b() <= b2) expected.add(t);
+			}
+			assertEquals(expected,hb.window(h(a1,b1),h(a2,b2)));
+		}
+	}
+	
+	
+	//// testSNN: snapshots
+	
+	public void testS00() {
+		makeBigTree();
+		HexBoard snap = hb.snapshot();
+		assertEquals(13,snap.size());
+		hb.remove(e[5]);
+		hb.add(e[0]);
+		hb.add(new HexTile(Terrain.CITY,e[1].getLocation()));
+		assertEquals(13,snap.size());
+		assertTrue(snap.contains(e[5]));
+		assertFalse(snap.contains(e[0]));
+		assertEquals(e[1].getTerrain(),snap.terrainAt(e[1].getLocation()));
+		assertEquals(Terrain.CITY,hb.terrainAt(e[1].getLocation()));
+		int i = 1;
+		for (HexTile t : snap) {
+			assertEquals(e[i],t);
+			++i;
+		}
+		assertEquals(14,i);
+	}
+	
+	public void testS01() {
+		makeBigTree();
+		HexBoard copy = hb.clone();
+		copy.remove(e[10]);
+		copy.row(3).clear();
+		assertEquals(9,copy.size());
+		assertEquals(13,hb.size());
+		assertEquals(3,hb.row(3).size());
+		assertTrue(hb.contains(e[10]));
+		hb.clear();
+		assertEquals(9,copy.size());
+	}
+	
+	public void testS02() {
+		// changing terrain through an entry while a snapshot shares the nodes
+		makeBigTree();
+		HexBoard snap = hb.snapshot();
+		setit = set.iterator();
+		int i = 1;
+		while (setit.hasNext()) {
+			Map.Entry<HexCoordinate,Terrain> en = setit.next();
+			assertEquals(e[i].getLocation(),en.getKey());
+			assertEquals(e[i].getTerrain(),en.setValue(not(e[i].getTerrain())));
+			assertEquals(not(e[i].getTerrain()),en.getValue());
+			++i;
+		}
+		assertEquals(14,i);
+		for (i=1; i <= 13; ++i) {
+			assertTrue(snap.contains(e[i]));
+			assertEquals(not(e[i].getTerrain()),hb.terrainAt(e[i].getLocation()));
+		}
+	}
+	
+	public void testS03() {
+		// a history of snapshots, compared with full copies
+		Random r = new Random(351);
+		List<HexBoard> history = new ArrayList<>();
+		List<Map<HexCoordinate,Terrain>> expected = new ArrayList<>();
+		for (int i=0; i < 300; ++i) {
+			HexCoordinate k = h(r.nextInt(15),r.nextInt(15));
+			if (r.nextInt(3) == 0) map.remove(k);
+			else map.put(k,Terrain.values()[r.nextInt(Terrain.values().length)]);
+			if (r.nextBoolean()) {
+				HexBoard b = hb.snapshot();
+				history.add(b);
+				expected.add(new HashMap<>(map));
+				b.add(new HexTile(Terrain.CITY,h(99,99))); // snapshots can be changed too
+				b.remove(new HexTile(Terrain.CITY,h(99,99)));
+			}
+		}
+		for (int i=0; i < history.size(); ++i) {
+			assertEquals(expected.get(i),history.get(i).asMap());
+			assertEquals(expected.get(i).size(),history.get(i).size());
+		}
+	}
+	
+	
+	//// testUNN: loading many tiles at once
+	
+	public void testU00() {
+		List<HexTile> tiles = new ArrayList<>();
+		for (int i=0; i < 1000; ++i) {
+			tiles.add(tile(i));
+		}
+		hb = new HexBoard(tiles);
+		assertEquals(1000,hb.size());
+		assertEquals(tiles,new ArrayList<>(hb));
+		assertEquals(100,hb.row(3).size());
+		assertEquals(tile(500),hb.select(500));
+	}
+	
+	public void testU01() {
+		// out of order, with repeated locations: the last tile wins
+		List<HexTile> tiles = Arrays.asList(e[5],e[2],e[9],new HexTile(Terrain.CITY,e[2].getLocation()),e[1],e[9]);
+		hb = new HexBoard(tiles);
+		assertEquals(4,hb.size());
+		assertEquals(Arrays.asList(e[1],new HexTile(Terrain.CITY,e[2].getLocation()),e[5],e[9]),new ArrayList<>(hb));
+	}
+	
+	public void testU02() {
+		makeBigTree();
+		it = hb.iterator();
+		assertFalse(hb.addAll(Arrays.asList(e[1],e[2],e[3],e[4],e[5],e[6],e[7],e[8],e[9],e[10],e[11],e[12],e[13])));
+		it.next(); // no change, so not stale
+		List<HexTile> tiles = new ArrayList<>();
+		for (int i=0; i < 20; ++i) {
+			tiles.add(new HexTile(Terrain.CITY,h(i,3)));
+		}
+		assertTrue(hb.addAll(tiles));
+		assertException(ConcurrentModificationException.class, () -> it.next());
+		assertEquals(30,hb.size());
+		assertEquals(20,hb.row(3).size());
+		assertTrue(hb.contains(e[13]));
+		assertEquals(Terrain.CITY,hb.terrainAt(e[5].getLocation()));
+	}
+	
+	public void testU03() {
+		makeBigTree();
+		HexBoard snap = hb.snapshot();
+		List<HexTile> tiles = new ArrayList<>();
+		for (int i=0; i < 100; ++i) {
+			tiles.add(tile(i));
+		}
+		hb.addAll(tiles);
+		assertEquals(13,snap.size());
+		assertFalse(snap.contains(tile(0)));
+		assertException(NullPointerException.class, () -> new HexBoard(Arrays.asList(e[1],null)));
+		assertException(NullPointerException.class, () -> hb.addAll(Arrays.asList((HexTile)null)));
+	}
 }
@@ -2,12 +2,23 @@ package edu.uwm.cs351;
 
 import java.util.AbstractMap;
 import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
 import java.util.NoSuchElementException;
+import java.util.Random;
 import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
 import java.util.Stack;
 
 import edu.uwm.cs351.util.AbstractEntry;
@@ -16,6 +27,12 @@ import edu.uwm.cs351.util.AbstractEntry;
  * An implementation of the HexBoard ADT using a binary search tree 
  * implementation. A hex board is a collection of hex tiles except 
  * that there can never be two tiles at the same location. 
+ * The tree is kept height-balanced (AVL) so that boards read in
+ * row-major order still have logarithmic height, and every node records
+ * the size of its subtree so that tiles can be found by position.
+ * A clone shares the tree with the original: a node is only changed 
+ * by the board that created it, and any other board copies the path
+ * down to it instead, so cloning takes constant time.
  * 
  * @author Eddie Chapman (chapman4@uwm.edu)
  * 
@@ -35,38 +52,101 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		return h1.b() - h2.b();
 	}
 	
-	private static class Node extends AbstractEntry<HexCoordinate, Terrain> {
+	private static class Node {
 		HexCoordinate loc;
 		Terrain terrain;
 		Node left, right;
+		int height;
+		int count; // nodes in this subtree
+		final Object owner; // only this board may change the node
 		
-		public Node(HexCoordinate l, Terrain t) {
+		public Node(HexCoordinate l, Terrain t, Object o) {
 		    loc = l; 
 		    terrain = t; 
+		    height = 1;
+		    count = 1;
+		    owner = o;
 		}
-		
-        @Override  // required by Java
-        public HexCoordinate getKey() {
-            return loc;
-        }
-        
-        @Override  // required by Java
-        public Terrain getValue() {
-            return terrain;
-        }
-
-        @Override  // required for functionality
-        public Terrain setValue(Terrain v) {
-            if (v == null) throw new IllegalArgumentException("Terrain may not be set to null");
-            Terrain t = terrain;
-            terrain = v;
-            return t;
-        } 
 	}
 	
 	private Node root;
 	private int size;
 	private int version;
+	private Object owner = new Object(); // replaced whenever the tree becomes shared
+	private int copies; // nodes copied so far, so iterators know when to find their nodes again
+	
+	/**
+	 * Return a node with the same contents that this board may change:
+	 * the node itself if this board owns it, otherwise a copy.
+	 * 
+	 * @param r    node to change (not null)
+	 * @return     node owned by this board
+	 */
+	private Node writable(Node r) {
+		if (r.owner == owner) return r;
+		++copies;
+		Node n = new Node(r.loc, r.terrain, owner);
+		n.left = r.left;
+		n.right = r.right;
+		n.height = r.height;
+		n.count = r.count;
+		return n;
+	}
+	
+	private static int height(Node r) {
+		return r == null ? 0 : r.height;
+	}
+	
+	private static int count(Node r) {
+		return r == null ? 0 : r.count;
+	}
+	
+	private static void fix(Node r) {
+		r.height = 1 + Math.max(height(r.left), height(r.right));
+		r.count = 1 + count(r.left) + count(r.right);
+	}
+	
+	private Node rotateRight(Node r) {
+		r = writable(r);
+		Node l = writable(r.left);
+		r.left = l.right;
+		l.right = r;
+		fix(r);
+		fix(l);
+		return l;
+	}
+	
+	private Node rotateLeft(Node r) {
+		r = writable(r);
+		Node l = writable(r.right);
+		r.right = l.left;
+		l.left = r;
+		fix(r);
+		fix(l);
+		return l;
+	}
+	
+	/**
+	 * Restore the height, count and balance of a subtree after one of its 
+	 * children changed height by at most one.
+	 * 
+	 * @param r    root of subtree whose children are balanced (not null,
+	 *             owned by this board)
+	 * @return     new root of the (now balanced) subtree
+	 */
+	private Node rebalance(Node r) {
+		int bal = height(r.left) - height(r.right);
+		if (bal > 1) {
+			if (height(r.left.left) < height(r.left.right)) r.left = rotateLeft(r.left);
+			return rotateRight(r);
+		}
+		if (bal < -1) {
+			if (height(r.right.right) < height(r.right.left)) r.right = rotateRight(r.right);
+			return rotateLeft(r);
+		}
+		fix(r);
+		return r;
+	}
 	
 	private static boolean doReport = true; 
 	private static boolean report(String s) {
@@ -105,8 +185,68 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		return 1 + countNodes(p.left) + countNodes(p.right);
 	}
 	
+	/**
+	 * Return the height of this subtree if every node has the correct
+	 * height recorded and the heights of its children differ by at most one.
+	 * If a problem is found, it is reported and -1 is returned.
+	 * 
+	 * @param r    subtree to check (may be null)
+	 * @return     height of the subtree, or -1 if there is a problem
+	 */
+	private static int checkHeight(Node r) {
+		if (r == null) return 0;
+		int lh = checkHeight(r.left);
+		if (lh < 0) return -1;
+		int rh = checkHeight(r.right);
+		if (rh < 0) return -1;
+		if (Math.abs(lh - rh) > 1) {
+			report("unbalanced at " + r.loc + ": " + lh + " vs. " + rh);
+			return -1;
+		}
+		int h = 1 + Math.max(lh, rh);
+		if (r.height != h) {
+			report("height at " + r.loc + " is " + r.height + ", should be " + h);
+			return -1;
+		}
+		return h;
+	}
+	
+	/**
+	 * Return whether every node in this subtree records the number
+	 * of nodes in its subtree.  If a problem is found, it is reported.
+	 * 
+	 * @param r    subtree to check (may be null)
+	 * @return     whether the counts are all correct
+	 */
+	private static boolean checkCounts(Node r) {
+		if (r == null) return true;
+		if (!checkCounts(r.left) || !checkCounts(r.right)) return false;
+		int c = 1 + count(r.left) + count(r.right);
+		if (r.count != c) return report("count at " + r.loc + " is " + r.count + ", should be " + c);
+		return true;
+	}
+	
+	/**
+	 * Return whether every node owned by this board has a parent that it
+	 * owns too.  Otherwise a change to the node would show up in a clone
+	 * that shares the parent.  If a problem is found, it is reported.
+	 * 
+	 * @param r    subtree to check (may be null)
+	 * @param parentOwned  whether the parent of r is owned by this board
+	 * @return     whether there are no problems in the subtree
+	 */
+	private boolean checkOwners(Node r, boolean parentOwned) {
+		if (r == null) return true;
+		boolean mine = r.owner == owner;
+		if (mine && !parentOwned) return report("node at " + r.loc + " is changeable but its parent is shared");
+		return checkOwners(r.left, mine) && checkOwners(r.right, mine);
+	}
+	
 	private boolean wellFormed() {
 		if (!isInProperOrder(root, null, null)) return false;
+		if (checkHeight(root) < 0) return false;
+		if (!checkCounts(root)) return false;
+		if (!checkOwners(root, true)) return false;
 		int count = countNodes(root);
 		if (size != count) return report("size " + size + " wrong, should be " + count);
 		return true;
@@ -121,6 +261,19 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		assert wellFormed() : "in constructor";
 	}
 	
+	/**
+	 * Create a hex board with the given tiles.  If several tiles have the
+	 * same location, the last one is used, as if they were added in turn.
+	 * This takes linear time if the tiles are in order (by row, and then 
+	 * along the row), as they are in a board file.
+	 * 
+	 * @param tiles    tiles to put on the board, must not be null or hold null
+	 */
+	public HexBoard(Collection<? extends HexTile> tiles) {
+		this();
+		addAll(tiles);
+	}
+	
 	/** 
 	 * Return the terrain at the given coordinate or null if nothing 
 	 * at this coordinate.
@@ -139,6 +292,73 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		return null;
 	}
 
+	/**
+	 * Return the number of tiles on this board that come before the
+	 * given coordinate: those in earlier rows, or earlier in the same row.
+	 * The coordinate need not be on the board.
+	 * 
+	 * @param l    hex coordinate to find the rank of, must not be null
+	 * @return     number of tiles before this coordinate
+	 */
+	public int rank(HexCoordinate l) {
+		assert wellFormed() : "in rank";
+		return countBefore(l, false);
+	}
+	
+	/**
+	 * Return the number of tiles in rows before the given row.
+	 * 
+	 * @param row  row number
+	 * @return     number of tiles with a smaller row number
+	 */
+	private int countBefore(int row) {
+		int result = 0;
+		for (Node p = root; p != null; ) {
+			if (row <= p.loc.b()) p = p.left;
+			else {
+				result += count(p.left) + 1;
+				p = p.right;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Return the tile at the given position in iteration order
+	 * (by row, and then along the row).
+	 * 
+	 * @param k    position of the tile, starting at 0
+	 * @return     the tile with exactly k tiles before it
+	 * @exception IndexOutOfBoundsException if k is negative or not less than the size
+	 */
+	public HexTile select(int k) {
+		assert wellFormed() : "in select";
+		if (k < 0 || k >= size) throw new IndexOutOfBoundsException("no tile at " + k + " of " + size);
+		Node p = root;
+		for (;;) {
+			int c = count(p.left);
+			if (k == c) return new HexTile(p.terrain, p.loc);
+			if (k < c) p = p.left;
+			else {
+				k -= c + 1;
+				p = p.right;
+			}
+		}
+	}
+	
+	/**
+	 * Return a tile on this board chosen uniformly at random.
+	 * 
+	 * @param r    source of randomness, must not be null
+	 * @return     a random tile from this board
+	 * @exception NoSuchElementException if the board is empty
+	 */
+	public HexTile randomTile(Random r) {
+		assert wellFormed() : "in randomTile";
+		if (size == 0) throw new NoSuchElementException("board is empty");
+		return select(r.nextInt(size));
+	}
+
 	@Override // required by Java
 	public Iterator<HexTile> iterator() {
 		assert wellFormed() : "in iterator";
@@ -161,35 +381,142 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		return false;
 	}
 
+	private Node doAdd(Node r, HexCoordinate l, Terrain t) {
+		if (r == null) return new Node(l, t, owner);
+		r = writable(r);
+		if (compare(l, r.loc) < 0) r.left = doAdd(r.left, l, t);
+		else r.right = doAdd(r.right, l, t);
+		return rebalance(r);
+	}
+
+	/**
+	 * Change the terrain at a location on the board, copying the path
+	 * down to it if the nodes are shared.
+	 * 
+	 * @param r    subtree holding the location (not null)
+	 * @param l    location on the board
+	 * @param t    new terrain
+	 * @return     new root of the subtree
+	 */
+	private Node setTerrain(Node r, HexCoordinate l, Terrain t) {
+		r = writable(r);
+		int c = compare(l, r.loc);
+		if (c == 0) r.terrain = t;
+		else if (c < 0) r.left = setTerrain(r.left, l, t);
+		else r.right = setTerrain(r.right, l, t);
+		return r;
+	}
+
 	@Override // required for correctness
 	public boolean add(HexTile e) {
 		assert wellFormed() : "in add()";
-		Node lag = null;
 		Node p = root;
-		int c = 0;
 		while (p != null) {
-			c = compare(e.getLocation(), p.loc);
+			int c = compare(e.getLocation(), p.loc);
 			if (c == 0) break;
-			lag = p;
 			if (c < 0) p = p.left;
 			else p = p.right;
 		}
 		if (p != null) { // found it!
 			if (p.terrain == e.getTerrain()) return false;
-			p.terrain = e.getTerrain();
+			root = setTerrain(root, e.getLocation(), e.getTerrain());
 			// size doesn't increase...
 		} else {
-			p = new Node(e.getLocation(), e.getTerrain());
+			root = doAdd(root, e.getLocation(), e.getTerrain());
 			++size;
-			if (lag == null) root = p;
-			else if (c < 0) lag.left = p;
-			else lag.right = p;
 		}
 		++version;
 		assert wellFormed() : "after add()";
 		return true;
 	}
 
+	/**
+	 * Return the tiles in order of location, keeping only the last tile
+	 * at each location.  Tiles that are already in order are not sorted.
+	 * 
+	 * @param c    collection of tiles, must not be null or hold null
+	 * @return     new array of tiles in strictly increasing order of location
+	 */
+	private static HexTile[] sortedTiles(Collection<? extends HexTile> c) {
+		HexTile[] a = c.toArray(new HexTile[c.size()]);
+		boolean sorted = true;
+		for (int i=0; i < a.length; ++i) {
+			if (a[i] == null) throw new NullPointerException("Cannot add null tile");
+			if (i > 0 && compare(a[i-1].getLocation(), a[i].getLocation()) >= 0) sorted = false;
+		}
+		if (sorted) return a;
+		Arrays.sort(a, (t1, t2) -> compare(t1.getLocation(), t2.getLocation())); // stable
+		int n = 0;
+		for (int i=0; i < a.length; ++i) {
+			if (n > 0 && compare(a[n-1].getLocation(), a[i].getLocation()) == 0) a[n-1] = a[i];
+			else a[n++] = a[i];
+		}
+		return Arrays.copyOf(a, n);
+	}
+	
+	/**
+	 * Put the tiles of a subtree into an array in order.
+	 * 
+	 * @param r    subtree (may be null)
+	 * @param a    array to fill
+	 * @param n    index to start at
+	 * @return     index after the last tile put in the array
+	 */
+	private static int flatten(Node r, HexTile[] a, int n) {
+		if (r == null) return n;
+		n = flatten(r.left, a, n);
+		a[n++] = new HexTile(r.terrain, r.loc);
+		return flatten(r.right, a, n);
+	}
+	
+	/**
+	 * Build a perfectly balanced tree from part of an array of tiles.
+	 * 
+	 * @param a    tiles in strictly increasing order of location
+	 * @param lo   index of first tile to use
+	 * @param hi   index after the last tile to use
+	 * @return     root of the new subtree
+	 */
+	private Node build(HexTile[] a, int lo, int hi) {
+		if (lo >= hi) return null;
+		int mid = (lo + hi) >>> 1;
+		Node r = new Node(a[mid].getLocation(), a[mid].getTerrain(), owner);
+		r.left = build(a, lo, mid);
+		r.right = build(a, mid+1, hi);
+		fix(r);
+		return r;
+	}
+	
+	@Override // for efficiency
+	public boolean addAll(Collection<? extends HexTile> c) {
+		assert wellFormed() : "invariant broken before addAll()";
+		// a few tiles are quicker to add one at a time
+		if (c.size() < size) return super.addAll(c);
+		HexTile[] added = sortedTiles(c);
+		HexTile[] existing = new HexTile[size];
+		flatten(root, existing, 0);
+		HexTile[] merged = new HexTile[existing.length + added.length];
+		boolean changed = false;
+		int n = 0, i = 0, j = 0;
+		while (i < existing.length || j < added.length) {
+			int cmp;
+			if (i == existing.length) cmp = 1;
+			else if (j == added.length) cmp = -1;
+			else cmp = compare(existing[i].getLocation(), added[j].getLocation());
+			if (cmp < 0) merged[n++] = existing[i++];
+			else {
+				if (cmp > 0 || existing[i++].getTerrain() != added[j].getTerrain()) changed = true;
+				merged[n++] = added[j++];
+			}
+		}
+		if (!changed) return false;
+		root = build(merged, 0, n);
+		size = n;
+		++version;
+		assert wellFormed() : "invariant broken by addAll()";
+		return true;
+	}
+
 	@Override // more efficient
 	public void clear() {
 		assert wellFormed() : "invariant broken before clear()";
@@ -201,11 +528,53 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		assert wellFormed() : "invariant broken by clear()";
 	}
 
+	/**
+	 * Return a copy of this hex board.  The copy shares its nodes with
+	 * this board, so it takes constant time; afterwards each board copies
+	 * only the nodes on the path to a change, and neither board sees
+	 * changes to the other.
+	 * 
+	 * @return     a copy of this hex board
+	 */
+	@Override // required for functionality
+	public HexBoard clone() {
+		assert wellFormed() : "invariant broken at start of clone";
+		HexBoard answer;
+		try {
+			answer = (HexBoard) super.clone();
+		} catch (CloneNotSupportedException e) {
+			// This exception should not occur. But if it does, it would probably
+			// indicate a programming error that made super.clone unavailable.
+			// The most common error would be forgetting the "Implements Cloneable"
+			// clause at the start of this class.
+			throw new RuntimeException("This class does not implement Cloneable");
+		}
+		// the tree is shared now, so neither board may change its nodes in place
+		owner = new Object();
+		answer.owner = new Object();
+		assert wellFormed() : "invariant broken at end of clone";
+		assert answer.wellFormed() : "invariant broken in the clone";
+		return answer;
+	}
+	
+	/**
+	 * Return a snapshot of this hex board in constant time.
+	 * The snapshot can be read, iterated and changed like any board
+	 * and is not affected by later changes to this board.
+	 * 
+	 * @return     a copy of this hex board
+	 * @see #clone()
+	 */
+	public HexBoard snapshot() {
+		return clone();
+	}
+
 	private Node doRemove(Node r, HexTile ht) {
 		int c = compare(ht.getLocation(), r.loc);
 		if (c == 0) {
 			if (r.left == null) return r.right;
 			if (r.right == null) return r.left;
+			r = writable(r);
 			Node sub = r.left;
 			while (sub.right != null) {
 				sub = sub.right;
@@ -214,11 +583,13 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 			r.terrain = sub.terrain;
 			r.left = doRemove(r.left, new HexTile(r.terrain, r.loc));
 		} else if (c < 0) {
+			r = writable(r);
 			r.left = doRemove(r.left, ht);
 		} else {
+			r = writable(r);
 			r.right = doRemove(r.right, ht);
 		}
-		return r;
+		return rebalance(r);
 	}
 	
 	@Override // for efficiency and because the iterator uses this, for functionality
@@ -269,19 +640,14 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
         @Override  // required by Java
         public int size() {
             assert wellFormed() : "at the beginning of Row.size.";
-            int count = 0;
-            Iterator<HexTile> it = iterator();
-            while (it.hasNext()) {
-                it.next();
-                ++count;
-            }
-            return count;
+            if (row == Integer.MAX_VALUE) return size - countBefore(row);
+            return countBefore(row+1) - countBefore(row);
         }
 
-        @Override  // required to avoid more complicated implementation of size.
+        @Override  // for efficiency
         public boolean isEmpty() {
             assert wellFormed() : "at the beginning of Row.isEmpty.";
-            return !iterator().hasNext();
+            return size() == 0;
         }
 
         @Override  // for functionality
@@ -313,26 +679,147 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 	
 	/**
 	 * Return a view of this hex board as a map from hex coordinates to 
-	 * terrain. It is as efficient as the hex board itself.
+	 * terrain. It is as efficient as the hex board itself. The map is
+	 * ordered in the same way as the board (by row, and then along the 
+	 * row) and so sub-maps and navigation take logarithmic time.
 	 * 
 	 * @return     a view of this hex board as a map from hex coordinates to
 	 *             terrain.
 	 */
-	public Map<HexCoordinate,Terrain> asMap() {
+	public NavigableMap<HexCoordinate,Terrain> asMap() {
 	    assert wellFormed() : "At beginning of asMap()";
 		return new MyMap(); 
 	}
 	
+	private static final Comparator<HexCoordinate> ORDER = HexBoard::compare;
+	
+	/**
+	 * Return the number of tiles before the given coordinate, or up to and 
+	 * including it.
+	 * 
+	 * @param l    hex coordinate, must not be null
+	 * @param inclusive    whether to count a tile at l
+	 * @return     number of tiles before (or up to) l
+	 */
+	private int countBefore(HexCoordinate l, boolean inclusive) {
+		int result = 0;
+		for (Node p = root; p != null; ) {
+			int c = compare(l, p.loc);
+			if (c < 0 || (c == 0 && !inclusive)) p = p.left;
+			else {
+				result += count(p.left) + 1;
+				p = p.right;
+			}
+		}
+		return result;
+	}
+	
+	/**
+	 * Return the first node at or after (or strictly after) the given coordinate.
+	 * 
+	 * @param l    hex coordinate, or null for the first node of all
+	 * @param inclusive    whether a node at l may be returned
+	 * @return     first such node, or null if none
+	 */
+	private Node ceilingNode(HexCoordinate l, boolean inclusive) {
+		Node result = null;
+		for (Node p = root; p != null; ) {
+			int c = l == null ? -1 : compare(l, p.loc);
+			if (c == 0 && inclusive) return p;
+			if (c < 0) {
+				result = p;
+				p = p.left;
+			} else p = p.right;
+		}
+		return result;
+	}
+	
+	/**
+	 * Return the last node at or before (or strictly before) the given coordinate.
+	 * 
+	 * @param l    hex coordinate, or null for the last node of all
+	 * @param inclusive    whether a node at l may be returned
+	 * @return     last such node, or null if none
+	 */
+	private Node floorNode(HexCoordinate l, boolean inclusive) {
+		Node result = null;
+		for (Node p = root; p != null; ) {
+			int c = l == null ? 1 : compare(l, p.loc);
+			if (c == 0 && inclusive) return p;
+			if (c > 0) {
+				result = p;
+				p = p.right;
+			} else p = p.left;
+		}
+		return result;
+	}
+	
+	/**
+	 * Return the tiles in a rectangular window of the board: those whose
+	 * row and column both lie between those of the two corners (inclusive).
+	 * Subtrees that cannot hold a location in the window are skipped,
+	 * so the cost depends on the number of rows spanned and tiles found,
+	 * not on the size of the board.
+	 * 
+	 * @param from corner with the smallest a and b, must not be null
+	 * @param to   corner with the largest a and b, must not be null
+	 * @return     new list of the tiles in the window, in iteration order
+	 */
+	public List<HexTile> window(HexCoordinate from, HexCoordinate to) {
+		assert wellFormed() : "in window";
+		List<HexTile> result = new ArrayList<>();
+		if (from.a() <= to.a() && from.b() <= to.b()) {
+			collectWindow(root, null, null, from, to, result);
+		}
+		return result;
+	}
+	
+	private static void collectWindow(Node r, HexCoordinate lo, HexCoordinate hi,
+			HexCoordinate from, HexCoordinate to, List<HexTile> result) {
+		if (r == null) return;
+		HexCoordinate first = firstInWindow(lo, from, to);
+		if (first == null || (hi != null && compare(first, hi) >= 0)) return;
+		collectWindow(r.left, lo, r.loc, from, to, result);
+		int a = r.loc.a(), b = r.loc.b();
+		if (from.a() <= a && a <= to.a() && from.b() <= b && b <= to.b()) {
+			result.add(new HexTile(r.terrain, r.loc));
+		}
+		collectWindow(r.right, r.loc, hi, from, to, result);
+	}
+	
+	/**
+	 * Return the first location in the window that comes after lo.
+	 * 
+	 * @param lo   hex coordinate, or null to get the first of the window
+	 * @param from corner with the smallest a and b
+	 * @param to   corner with the largest a and b
+	 * @return     first location of the window after lo, or null if none
+	 */
+	private static HexCoordinate firstInWindow(HexCoordinate lo, HexCoordinate from, HexCoordinate to) {
+		if (lo == null || lo.b() < from.b()) return from;
+		if (lo.b() > to.b()) return null;
+		if (lo.a() < from.a()) return new HexCoordinate(from.a(), lo.b());
+		if (lo.a() < to.a()) return new HexCoordinate(lo.a()+1, lo.b());
+		if (lo.b() < to.b()) return new HexCoordinate(from.a(), lo.b()+1);
+		return null;
+	}
+	
 	private class EntrySet extends AbstractSet<Entry<HexCoordinate,Terrain>> {
+	    private final MyMap map;
+	    
+	    public EntrySet(MyMap m) {
+	        map = m;
+	    }
+	    
         @Override  // required by Java
         public Iterator<Entry<HexCoordinate, Terrain>> iterator() {
             assert wellFormed(): "At beginning of EntrySet.Iterator";
-            return new EntrySetIterator();
+            return new EntrySetIterator(map);
         }
 
         @Override  // required by Java
         public int size() {
-            return size;
+            return map.size();
         }
 
         @Override  // required for efficiency
@@ -344,7 +831,7 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
                 return false;
             HexCoordinate h = (HexCoordinate)e.getKey();
             Terrain t = (Terrain)e.getValue();
-            return terrainAt(h) == t;
+            return map.inRange(h) && terrainAt(h) == t;
         }
 
         @Override  // required for efficiency
@@ -356,21 +843,101 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
                 return false;
             HexCoordinate h = (HexCoordinate)e.getKey();
             Terrain t = (Terrain)e.getValue();
+            if (!map.inRange(h)) return false;
             return HexBoard.this.remove(new HexTile(t, h));
         }
+        
+        @Override  // for efficiency
+        public void clear() {
+            if (map.lo == null && map.hi == null) HexBoard.this.clear();
+            else super.clear();
+        }
 	}
 	
-	private class MyMap extends AbstractMap<HexCoordinate, Terrain> {
+	/**
+	 * A view of the hex board, or of a range of it, as a map.
+	 * The bounds are null if the range is not limited at that end.
+	 */
+	private class MyMap extends AbstractMap<HexCoordinate, Terrain> implements NavigableMap<HexCoordinate, Terrain> {
+	    private final HexCoordinate lo, hi;
+	    private final boolean loInclusive, hiInclusive;
+	    
+	    public MyMap() {
+	        this(null, false, null, false);
+	    }
+	    
+	    public MyMap(HexCoordinate lo, boolean loInclusive, HexCoordinate hi, boolean hiInclusive) {
+	        this.lo = lo;
+	        this.loInclusive = loInclusive;
+	        this.hi = hi;
+	        this.hiInclusive = hiInclusive;
+	    }
+	    
+	    private boolean tooLow(HexCoordinate h) {
+	        if (lo == null) return false;
+	        int c = compare(h, lo);
+	        return c < 0 || (c == 0 && !loInclusive);
+	    }
+	    
+	    private boolean tooHigh(HexCoordinate h) {
+	        if (hi == null) return false;
+	        int c = compare(h, hi);
+	        return c > 0 || (c == 0 && !hiInclusive);
+	    }
+	    
+	    private boolean inRange(HexCoordinate h) {
+	        return !tooLow(h) && !tooHigh(h);
+	    }
+	    
+	    /**
+	     * Return whether a bound for a sub-map lies outside this map's range.
+	     */
+	    private boolean outside(HexCoordinate h, boolean inclusive) {
+	        if (lo != null) {
+	            int c = compare(h, lo);
+	            if (c < 0 || (c == 0 && inclusive && !loInclusive)) return true;
+	        }
+	        if (hi != null) {
+	            int c = compare(h, hi);
+	            if (c > 0 || (c == 0 && inclusive && !hiInclusive)) return true;
+	        }
+	        return false;
+	    }
+	    
+	    private Entry<HexCoordinate,Terrain> exported(Node n) {
+	        if (n == null || !inRange(n.loc)) return null;
+	        return new AbstractMap.SimpleImmutableEntry<>(n.loc, n.terrain);
+	    }
+	    
+	    private HexCoordinate keyOf(Entry<HexCoordinate,Terrain> e) {
+	        return e == null ? null : e.getKey();
+	    }
+	    
+	    private HexCoordinate keyOrFail(Entry<HexCoordinate,Terrain> e) {
+	        if (e == null) throw new NoSuchElementException("map is empty");
+	        return e.getKey();
+	    }
+	    
         @Override  // required by Java
         public Set<Entry<HexCoordinate,Terrain>> entrySet() {
             assert wellFormed() : "At beginning of MyMap.entrySet";
-            return new HexBoard.EntrySet();
+            return new EntrySet(this);
+        }
+
+        @Override  // for efficiency
+        public int size() {
+            assert wellFormed() : "at the beginning of MyMap.size.";
+            if (lo == null && hi == null) return size;
+            int n = (hi == null ? size : countBefore(hi, hiInclusive)) - 
+                    (lo == null ? 0 : countBefore(lo, !loInclusive));
+            return Math.max(n, 0);
         }
 
         @Override  // required for functionality
         public Terrain put(HexCoordinate key, Terrain value) {
             assert wellFormed() : "At beginning of MyMap.put";
             if (key == null) throw new IllegalArgumentException("Cannot put null value in map.");
+            if (!inRange(key)) throw new IllegalArgumentException("key out of range: " + key);
             Terrain t = terrainAt(key);
             add(new HexTile(value, key)); 
             assert wellFormed();
@@ -382,7 +949,7 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
             assert wellFormed() : "at the beginning of MyMap.containsKey.";
             if (key instanceof HexCoordinate) {
                 HexCoordinate h = (HexCoordinate)key;
-                return terrainAt(h) != null;
+                return inRange(h) && terrainAt(h) != null;
             }
             return false;
         }
@@ -392,7 +959,7 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
             assert wellFormed() : "at the beginning of MyMap.get.";
             if (key instanceof HexCoordinate) {
                 HexCoordinate h = (HexCoordinate)key;
-                return terrainAt(h);
+                if (inRange(h)) return terrainAt(h);
             }
             return null;
         }
@@ -400,7 +967,7 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
         @Override  // required for efficiency
         public Terrain remove(Object key) {
             assert wellFormed() : "at the beginning of MyMap.remove.";
-            if (key instanceof HexCoordinate) {
+            if (key instanceof HexCoordinate && inRange((HexCoordinate)key)) {
                 HexCoordinate h = (HexCoordinate)key;
                 Terrain t = terrainAt(h);
                 if (t != null) {
@@ -412,57 +979,527 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
             assert wellFormed() : "at the end of MyMap.remove.";
             return null;
         } 
-	}
-	
-	private class MyIterator implements Iterator<HexTile> {
-	    private EntrySetIterator it;
-	    private Integer row;
-	    
-	    public MyIterator() {
-	        it = new EntrySetIterator();
-	        row = null;
-	        assert wellFormed() : "at end of MyIterator default constructor.";
-	    }
-	    
-	    public MyIterator(int r) {
-	        it = new EntrySetIterator(r);
-	        row = r;
-	        assert wellFormed() : "at end of MyIterator alternate constructor.";
-	    }
+        
+        @Override  // required by Java
+        public Comparator<? super HexCoordinate> comparator() {
+            return ORDER;
+        }
 
         @Override  // required by Java
-        public boolean hasNext() {
-            if (row == null) return it.hasNext();
-            else return it.hasNext(row);
+        public Entry<HexCoordinate, Terrain> firstEntry() {
+            assert wellFormed() : "at the beginning of MyMap.firstEntry.";
+            return exported(lo == null ? ceilingNode(null, false) : ceilingNode(lo, loInclusive));
         }
 
         @Override  // required by Java
-        public HexTile next() {
-            if ((row != null) && !it.hasNext(row)) throw new NoSuchElementException("no more");
-            Node p = it.next();
-            assert wellFormed() : "at end of MyIterator.next";
-            return new HexTile(p.terrain, p.loc);
+        public Entry<HexCoordinate, Terrain> lastEntry() {
+            assert wellFormed() : "at the beginning of MyMap.lastEntry.";
+            return exported(hi == null ? floorNode(null, false) : floorNode(hi, hiInclusive));
         }
 
-        @Override  // required for functionality
-        public void remove() {
-            assert wellFormed() : "at beginning of MyIterator.remove";
-            it.remove();
-            assert wellFormed() : "at end of MyIterator.remove";
-        } 
-	}
-	
-	private class EntrySetIterator implements Iterator<Entry<HexCoordinate,Terrain>> {
-		private Stack<Node> pending = new Stack<>();
-		private HexTile current; // if can be removed
-		private int myVersion = version;
-		
-		private boolean wellFormed() {
-			if (!HexBoard.this.wellFormed()) return false;
-			if (version == myVersion) {
-				@SuppressWarnings("unchecked")
-				Stack<Node> clone = (Stack<Node>) pending.clone();
-				Node p = null;
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> pollFirstEntry() {
+            Entry<HexCoordinate, Terrain> e = firstEntry();
+            if (e != null) HexBoard.this.remove(new HexTile(e.getValue(), e.getKey()));
+            return e;
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> pollLastEntry() {
+            Entry<HexCoordinate, Terrain> e = lastEntry();
+            if (e != null) HexBoard.this.remove(new HexTile(e.getValue(), e.getKey()));
+            return e;
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> lowerEntry(HexCoordinate key) {
+            assert wellFormed() : "at the beginning of MyMap.lowerEntry.";
+            if (tooHigh(key)) return lastEntry();
+            return exported(floorNode(key, false));
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> floorEntry(HexCoordinate key) {
+            assert wellFormed() : "at the beginning of MyMap.floorEntry.";
+            if (tooHigh(key)) return lastEntry();
+            return exported(floorNode(key, true));
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> ceilingEntry(HexCoordinate key) {
+            assert wellFormed() : "at the beginning of MyMap.ceilingEntry.";
+            if (tooLow(key)) return firstEntry();
+            return exported(ceilingNode(key, true));
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> higherEntry(HexCoordinate key) {
+            assert wellFormed() : "at the beginning of MyMap.higherEntry.";
+            if (tooLow(key)) return firstEntry();
+            return exported(ceilingNode(key, false));
+        }
+
+        @Override  // required by Java
+        public HexCoordinate lowerKey(HexCoordinate key) {
+            return keyOf(lowerEntry(key));
+        }
+
+        @Override  // required by Java
+        public HexCoordinate floorKey(HexCoordinate key) {
+            return keyOf(floorEntry(key));
+        }
+
+        @Override  // required by Java
+        public HexCoordinate ceilingKey(HexCoordinate key) {
+            return keyOf(ceilingEntry(key));
+        }
+
+        @Override  // required by Java
+        public HexCoordinate higherKey(HexCoordinate key) {
+            return keyOf(higherEntry(key));
+        }
+
+        @Override  // required by Java
+        public HexCoordinate firstKey() {
+            return keyOrFail(firstEntry());
+        }
+
+        @Override  // required by Java
+        public HexCoordinate lastKey() {
+            return keyOrFail(lastEntry());
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> subMap(HexCoordinate fromKey, boolean fromInclusive, 
+                HexCoordinate toKey, boolean toInclusive) {
+            if (compare(fromKey, toKey) > 0) throw new IllegalArgumentException("fromKey > toKey");
+            if (outside(fromKey, fromInclusive) || outside(toKey, toInclusive)) 
+                throw new IllegalArgumentException("key out of range");
+            return new MyMap(fromKey, fromInclusive, toKey, toInclusive);
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> headMap(HexCoordinate toKey, boolean inclusive) {
+            if (outside(toKey, inclusive)) throw new IllegalArgumentException("key out of range");
+            return new MyMap(lo, loInclusive, toKey, inclusive);
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> tailMap(HexCoordinate fromKey, boolean inclusive) {
+            if (outside(fromKey, inclusive)) throw new IllegalArgumentException("key out of range");
+            return new MyMap(fromKey, inclusive, hi, hiInclusive);
+        }
+
+        @Override  // required by Java
+        public SortedMap<HexCoordinate, Terrain> subMap(HexCoordinate fromKey, HexCoordinate toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override  // required by Java
+        public SortedMap<HexCoordinate, Terrain> headMap(HexCoordinate toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override  // required by Java
+        public SortedMap<HexCoordinate, Terrain> tailMap(HexCoordinate fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> descendingMap() {
+            return new DescendingMap(this);
+        }
+
+        @Override  // required by Java
+        public NavigableSet<HexCoordinate> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+
+        @Override  // required by Java
+        public NavigableSet<HexCoordinate> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override  // required by Java
+        public NavigableSet<HexCoordinate> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+	}
+	
+	/**
+	 * A view of a map in reverse order.  Everything is done by the
+	 * ascending map with the directions swapped.
+	 */
+	private class DescendingMap extends AbstractMap<HexCoordinate, Terrain> implements NavigableMap<HexCoordinate, Terrain> {
+	    private final MyMap m;
+	    
+	    public DescendingMap(MyMap m) {
+	        this.m = m;
+	    }
+
+        @Override  // required by Java
+        public Set<Entry<HexCoordinate, Terrain>> entrySet() {
+            return new EntrySet(m) {
+                @Override  // required for order
+                public Iterator<Entry<HexCoordinate, Terrain>> iterator() {
+                    assert wellFormed(): "At beginning of DescendingMap.EntrySet.Iterator";
+                    return new DescendingIterator(m);
+                }
+            };
+        }
+
+        @Override  // for efficiency
+        public int size() {
+            return m.size();
+        }
+
+        @Override  // required for functionality
+        public Terrain put(HexCoordinate key, Terrain value) {
+            return m.put(key, value);
+        }
+
+        @Override  // for efficiency
+        public boolean containsKey(Object key) {
+            return m.containsKey(key);
+        }
+
+        @Override  // for efficiency
+        public Terrain get(Object key) {
+            return m.get(key);
+        }
+
+        @Override  // for efficiency
+        public Terrain remove(Object key) {
+            return m.remove(key);
+        }
+
+        @Override  // for efficiency
+        public void clear() {
+            m.clear();
+        }
+
+        @Override  // required by Java
+        public Comparator<? super HexCoordinate> comparator() {
+            return Collections.reverseOrder(ORDER);
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> firstEntry() {
+            return m.lastEntry();
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> lastEntry() {
+            return m.firstEntry();
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> pollFirstEntry() {
+            return m.pollLastEntry();
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> pollLastEntry() {
+            return m.pollFirstEntry();
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> lowerEntry(HexCoordinate key) {
+            return m.higherEntry(key);
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> floorEntry(HexCoordinate key) {
+            return m.ceilingEntry(key);
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> ceilingEntry(HexCoordinate key) {
+            return m.floorEntry(key);
+        }
+
+        @Override  // required by Java
+        public Entry<HexCoordinate, Terrain> higherEntry(HexCoordinate key) {
+            return m.lowerEntry(key);
+        }
+
+        @Override  // required by Java
+        public HexCoordinate lowerKey(HexCoordinate key) {
+            return m.higherKey(key);
+        }
+
+        @Override  // required by Java
+        public HexCoordinate floorKey(HexCoordinate key) {
+            return m.ceilingKey(key);
+        }
+
+        @Override  // required by Java
+        public HexCoordinate ceilingKey(HexCoordinate key) {
+            return m.floorKey(key);
+        }
+
+        @Override  // required by Java
+        public HexCoordinate higherKey(HexCoordinate key) {
+            return m.lowerKey(key);
+        }
+
+        @Override  // required by Java
+        public HexCoordinate firstKey() {
+            return m.lastKey();
+        }
+
+        @Override  // required by Java
+        public HexCoordinate lastKey() {
+            return m.firstKey();
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> subMap(HexCoordinate fromKey, boolean fromInclusive, 
+                HexCoordinate toKey, boolean toInclusive) {
+            return m.subMap(toKey, toInclusive, fromKey, fromInclusive).descendingMap();
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> headMap(HexCoordinate toKey, boolean inclusive) {
+            return m.tailMap(toKey, inclusive).descendingMap();
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> tailMap(HexCoordinate fromKey, boolean inclusive) {
+            return m.headMap(fromKey, inclusive).descendingMap();
+        }
+
+        @Override  // required by Java
+        public SortedMap<HexCoordinate, Terrain> subMap(HexCoordinate fromKey, HexCoordinate toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override  // required by Java
+        public SortedMap<HexCoordinate, Terrain> headMap(HexCoordinate toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override  // required by Java
+        public SortedMap<HexCoordinate, Terrain> tailMap(HexCoordinate fromKey) {
+            return tailMap(fromKey, true);
+        }
+
+        @Override  // required by Java
+        public NavigableMap<HexCoordinate, Terrain> descendingMap() {
+            return m;
+        }
+
+        @Override  // required by Java
+        public NavigableSet<HexCoordinate> navigableKeySet() {
+            return new KeySet<>(this);
+        }
+
+        @Override  // required by Java
+        public NavigableSet<HexCoordinate> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override  // required by Java
+        public NavigableSet<HexCoordinate> descendingKeySet() {
+            return m.navigableKeySet();
+        }
+	}
+	
+	/**
+	 * The keys of a navigable map, as a navigable set.
+	 * Everything is done by the map.
+	 */
+	private static class KeySet<K> extends AbstractSet<K> implements NavigableSet<K> {
+	    private final NavigableMap<K,?> m;
+	    
+	    public KeySet(NavigableMap<K,?> m) {
+	        this.m = m;
+	    }
+	    
+	    private static <K> K keyOf(Entry<K,?> e) {
+	        return e == null ? null : e.getKey();
+	    }
+
+        @Override  // required by Java
+        public Iterator<K> iterator() {
+            Iterator<? extends Entry<K,?>> it = m.entrySet().iterator();
+            return new Iterator<K>() {
+                @Override  // required by Java
+                public boolean hasNext() {
+                    return it.hasNext();
+                }
+
+                @Override  // required by Java
+                public K next() {
+                    return it.next().getKey();
+                }
+
+                @Override  // required for functionality
+                public void remove() {
+                    it.remove();
+                }
+            };
+        }
+
+        @Override  // required by Java
+        public int size() {
+            return m.size();
+        }
+
+        @Override  // required for efficiency
+        public boolean contains(Object o) {
+            return m.containsKey(o);
+        }
+
+        @Override  // required for efficiency
+        public boolean remove(Object o) {
+            if (!m.containsKey(o)) return false;
+            m.remove(o);
+            return true;
+        }
+
+        @Override  // for efficiency
+        public void clear() {
+            m.clear();
+        }
+
+        @Override  // required by Java
+        public Comparator<? super K> comparator() {
+            return m.comparator();
+        }
+
+        @Override  // required by Java
+        public K first() {
+            return m.firstKey();
+        }
+
+        @Override  // required by Java
+        public K last() {
+            return m.lastKey();
+        }
+
+        @Override  // required by Java
+        public K lower(K e) {
+            return m.lowerKey(e);
+        }
+
+        @Override  // required by Java
+        public K floor(K e) {
+            return m.floorKey(e);
+        }
+
+        @Override  // required by Java
+        public K ceiling(K e) {
+            return m.ceilingKey(e);
+        }
+
+        @Override  // required by Java
+        public K higher(K e) {
+            return m.higherKey(e);
+        }
+
+        @Override  // required by Java
+        public K pollFirst() {
+            return keyOf(m.pollFirstEntry());
+        }
+
+        @Override  // required by Java
+        public K pollLast() {
+            return keyOf(m.pollLastEntry());
+        }
+
+        @Override  // required by Java
+        public NavigableSet<K> descendingSet() {
+            return new KeySet<>(m.descendingMap());
+        }
+
+        @Override  // required by Java
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override  // required by Java
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return new KeySet<>(m.subMap(fromElement, fromInclusive, toElement, toInclusive));
+        }
+
+        @Override  // required by Java
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet<>(m.headMap(toElement, inclusive));
+        }
+
+        @Override  // required by Java
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet<>(m.tailMap(fromElement, inclusive));
+        }
+
+        @Override  // required by Java
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override  // required by Java
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override  // required by Java
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+	}
+	
+	private class MyIterator implements Iterator<HexTile> {
+	    private EntrySetIterator it;
+	    private Integer row;
+	    
+	    public MyIterator() {
+	        it = new EntrySetIterator();
+	        row = null;
+	        assert wellFormed() : "at end of MyIterator default constructor.";
+	    }
+	    
+	    public MyIterator(int r) {
+	        it = new EntrySetIterator(r);
+	        row = r;
+	        assert wellFormed() : "at end of MyIterator alternate constructor.";
+	    }
+
+        @Override  // required by Java
+        public boolean hasNext() {
+            if (row == null) return it.hasNext();
+            else return it.hasNext(row);
+        }
+
+        @Override  // required by Java
+        public HexTile next() {
+            if ((row != null) && !it.hasNext(row)) throw new NoSuchElementException("no more");
+            Node p = it.nextNode();
+            assert wellFormed() : "at end of MyIterator.next";
+            return new HexTile(p.terrain, p.loc);
+        }
+
+        @Override  // required for functionality
+        public void remove() {
+            assert wellFormed() : "at beginning of MyIterator.remove";
+            it.remove();
+            assert wellFormed() : "at end of MyIterator.remove";
+        } 
+	}
+	
+	private class EntrySetIterator implements Iterator<Entry<HexCoordinate,Terrain>> {
+		private Stack<Node> pending = new Stack<>();
+		private HexTile current; // if can be removed
+		private int myVersion = version;
+		private int myCopies = copies; // the stack's nodes are still in the tree
+		private final MyMap range; // if not null, stop at the end of this range
+		
+		private boolean wellFormed() {
+			if (!HexBoard.this.wellFormed()) return false;
+			if (version == myVersion && copies == myCopies) {
+				@SuppressWarnings("unchecked")
+				Stack<Node> clone = (Stack<Node>) pending.clone();
+				Node p = null;
 				if (current != null) {
 					boolean found = false;
 					for (Node r=root; r != null; ) {
@@ -513,14 +1550,33 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 			
 		private void checkVersion() {
 			if (version != myVersion) throw new ConcurrentModificationException("stale");
+			if (copies != myCopies) {
+				resync(pending);
+				myCopies = copies;
+			}
 		}
 
 		private EntrySetIterator() {
+			range = null;
 			pushNodes(root);
 			assert wellFormed();
 		}
 		
+		private EntrySetIterator(MyMap m) {
+			range = m;
+			if (m.lo == null) pushNodes(root);
+			else for (Node p = root; p != null; ) {
+				if (m.tooLow(p.loc)) p = p.right;
+				else {
+					pending.push(p);
+					p = p.left;
+				}
+			}
+			assert wellFormed() : "at end of EntrySetIterator range constructor";
+		}
+		
 		private EntrySetIterator(int row) {
+		    range = null;
 		    for (Node p = root; p != null; ) {
 	            if (row > p.loc.b()) p = p.right;
 	            else {
@@ -534,7 +1590,8 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		@Override // required by Java
 		public boolean hasNext() {
 			checkVersion();
-			return !pending.isEmpty();
+			if (pending.isEmpty()) return false;
+			return range == null || !range.tooHigh(pending.peek().loc);
 		}
 		
 		public boolean hasNext(int row) {
@@ -546,7 +1603,11 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 		}
 
 		@Override // required by Java
-		public Node next() {
+		public Entry<HexCoordinate,Terrain> next() {
+			return new MyEntry(nextNode());
+		}
+		
+		public Node nextNode() {
 			if (!hasNext()) throw new NoSuchElementException("no more");
 			Node p = pending.pop();
 			pushNodes(p.right);
@@ -562,8 +1623,140 @@ public class HexBoard extends AbstractSet<HexTile> implements Cloneable {
 			if (current == null) throw new IllegalStateException("nothing to remove");
 			HexBoard.this.remove(current);
 			myVersion = version;
+			myCopies = copies;
+			// rebalancing may have moved the pending nodes, so find them again
+			pending.clear();
+			for (Node p = root; p != null; ) {
+				if (compare(current.getLocation(), p.loc) < 0) {
+					pending.push(p);
+					p = p.left;
+				} else p = p.right;
+			}
 			current = null;
 			assert wellFormed() : "invariant broken at end of remove()";
 		}
 	}
+	
+	/**
+	 * An iterator over a range of the board in reverse order.
+	 * The stack holds the nodes not yet returned whose left subtrees
+	 * have not been visited, the next one on top.
+	 */
+	private class DescendingIterator implements Iterator<Entry<HexCoordinate,Terrain>> {
+		private final MyMap range;
+		private Stack<Node> pending = new Stack<>();
+		private HexTile current; // if can be removed
+		private int myVersion = version;
+		private int myCopies = copies;
+		
+		private DescendingIterator(MyMap m) {
+			range = m;
+			pushBefore(m.hi, m.hiInclusive);
+			assert wellFormed() : "at end of DescendingIterator constructor";
+		}
+		
+		/**
+		 * Set up the stack to start at the last node before (or at) the
+		 * given location.
+		 */
+		private void pushBefore(HexCoordinate h, boolean inclusive) {
+			pending.clear();
+			for (Node p = root; p != null; ) {
+				int c = h == null ? 1 : compare(h, p.loc);
+				if (c > 0 || (c == 0 && inclusive)) {
+					pending.push(p);
+					p = p.right;
+				} else p = p.left;
+			}
+		}
+		
+		private void checkVersion() {
+			if (version != myVersion) throw new ConcurrentModificationException("stale");
+			if (copies != myCopies) {
+				resync(pending);
+				myCopies = copies;
+			}
+		}
+		
+		@Override // required by Java
+		public boolean hasNext() {
+			checkVersion();
+			return !pending.isEmpty() && !range.tooLow(pending.peek().loc);
+		}
+
+		@Override // required by Java
+		public Entry<HexCoordinate,Terrain> next() {
+			if (!hasNext()) throw new NoSuchElementException("no more");
+			Node p = pending.pop();
+			for (Node q = p.left; q != null; q = q.right) {
+				pending.push(q);
+			}
+			current = new HexTile(p.terrain,p.loc);
+			return new MyEntry(p);
+		}
+
+		@Override // required for functionality
+		public void remove() {
+			checkVersion();
+			if (current == null) throw new IllegalStateException("nothing to remove");
+			HexBoard.this.remove(current);
+			myVersion = version;
+			myCopies = copies;
+			pushBefore(current.getLocation(), false);
+			current = null;
+			assert wellFormed() : "invariant broken at end of DescendingIterator.remove()";
+		}
+	}
+	
+	/**
+	 * Replace the nodes on an iterator's stack with the nodes at the same
+	 * locations in the current tree.  This is needed when a change of 
+	 * terrain copied the path to a shared node: the shape of the tree 
+	 * stays the same but the nodes on the path are new.
+	 * 
+	 * @param pending   stack of nodes, all at locations on the board
+	 */
+	private void resync(Stack<Node> pending) {
+		for (int i=0; i < pending.size(); ++i) {
+			HexCoordinate l = pending.get(i).loc;
+			Node p = root;
+			for (int c; (c = compare(l, p.loc)) != 0; ) {
+				p = c < 0 ? p.left : p.right;
+			}
+			pending.set(i, p);
+		}
+	}
+	
+	/**
+	 * An entry for a location on this board.  The node it was made from 
+	 * might be shared with a clone, in which case a change copies it and 
+	 * the terrain has to be looked up on the board instead.
+	 */
+	private class MyEntry extends AbstractEntry<HexCoordinate, Terrain> {
+		private final Node node;
+		
+		public MyEntry(Node n) {
+			node = n;
+		}
+		
+        @Override  // required by Java
+        public HexCoordinate getKey() {
+            return node.loc;
+        }
+        
+        @Override  // required by Java
+        public Terrain getValue() {
+            if (node.owner == owner) return node.terrain;
+            return terrainAt(node.loc);
+        }
+
+        @Override  // required for functionality
+        public Terrain setValue(Terrain v) {
+            if (v == null) throw new IllegalArgumentException("Terrain may not be set to null");
+            Terrain t = getValue();
+            if (t == null) throw new IllegalStateException("location no longer on board: " + node.loc);
+            if (t != v) root = setTerrain(root, node.loc, v);
+            return t;
+        } 
+	}
 }
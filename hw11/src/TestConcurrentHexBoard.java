@@ -0,0 +1,220 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.uwm.cs.util.DefaultEntry;
+import edu.uwm.cs351.ConcurrentHexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestConcurrentHexBoard extends TestCollection<HexTile> {
+
+	private ConcurrentHexBoard hb;
+	private Map<HexCoordinate,Terrain> map;
+	private Set<Map.Entry<HexCoordinate,Terrain>> set;
+
+	protected HexCoordinate h(int a, int b) { return new HexCoordinate(a,b); }
+
+	protected <K,V> Map.Entry<K,V> e(K k, V v) { return new DefaultEntry<K,V>(k,v); }
+
+	@Override
+	protected void initCollections() {
+		c = hb = new ConcurrentHexBoard();
+		map = hb.asMap();
+		set = map.entrySet();
+		e = new HexTile[]{
+				new HexTile(Terrain.INACCESSIBLE,h(0,0)),
+				new HexTile(Terrain.LAND,h(1,0)),
+				new HexTile(Terrain.WATER,h(2,0)),
+				new HexTile(Terrain.FOREST,h(3,1)),
+				new HexTile(Terrain.MOUNTAIN,h(4,2)),
+				new HexTile(Terrain.DESERT,h(5,3)),
+				new HexTile(Terrain.CITY,h(6,3)),
+				new HexTile(Terrain.LAND,h(7,3)),
+				new HexTile(Terrain.WATER,h(8,4)),
+				new HexTile(Terrain.FOREST,h(9,4)),
+				new HexTile(Terrain.MOUNTAIN,h(0,5)),
+				new HexTile(Terrain.DESERT,h(1,6)),
+				new HexTile(Terrain.CITY,h(2,6)),
+				new HexTile(Terrain.LAND,h(3,7))};
+		permitNulls = false;
+		preserveOrder = false;
+		permitDuplicates = false;
+		failFast = false;
+	}
+
+	private void makeBig() {
+		for (int i=1; i <= 13; ++i) {
+			hb.add(e[i]);
+		}
+	}
+
+	private static HexTile tile(int i) {
+		return new HexTile(Terrain.values()[i % Terrain.values().length],new HexCoordinate(i % 1000, i / 1000));
+	}
+
+
+	/// single-threaded checks
+
+	public void testA() {
+		assertException(NullPointerException.class, () -> hb.add(null));
+		HexTile t = new HexTile(Terrain.LAND,h(0,0));
+		hb.add(e[0]);
+		assertTrue(hb.add(t));
+		assertFalse(hb.add(t));
+		assertEquals(1,hb.size());
+		assertFalse(hb.contains(e[0]));
+		assertNull(hb.terrainAt(null));
+	}
+
+	public void testB() {
+		for (int i=0; i < 1000; ++i) {
+			assertTrue(hb.add(tile(i)));
+		}
+		assertEquals(1000,hb.size());
+		for (int i=0; i < 1000; i += 2) {
+			assertTrue(hb.remove(tile(i)));
+		}
+		assertEquals(500,hb.size());
+		for (int i=0; i < 1000; ++i) {
+			assertEquals((i & 1) == 1,hb.contains(tile(i)));
+		}
+	}
+
+	public void testC() {
+		// iterators are weakly consistent
+		makeBig();
+		it = hb.iterator();
+		HexTile first = it.next();
+		hb.remove(first);
+		hb.add(e[0]);
+		int count = 1;
+		while (it.hasNext()) {
+			assertFalse(it.next().equals(first));
+			++count;
+		}
+		assertTrue(count == 13 || count == 14);
+	}
+
+	public void testD() {
+		// an iterator keeps going over the table it started with after the board grows
+		makeBig();
+		it = hb.iterator();
+		it.next();
+		for (int i=0; i < 1000; ++i) {
+			hb.add(tile(i + 100000));
+		}
+		int count = 1;
+		while (it.hasNext()) {
+			it.next();
+			++count;
+		}
+		assertTrue(count >= 13);
+	}
+
+	public void testM0() {
+		makeBig();
+		assertEquals(13,map.size());
+		assertEquals(e[3].getTerrain(),map.get(e[3].getLocation()));
+		assertTrue(map.containsKey(e[3].getLocation()));
+		assertNull(map.get(e[0].getLocation()));
+		assertEquals(e[3].getTerrain(),map.put(e[3].getLocation(),Terrain.CITY));
+		assertEquals(Terrain.CITY,map.remove(e[3].getLocation()));
+		assertNull(map.remove(e[3].getLocation()));
+		assertEquals(12,hb.size());
+		assertException(IllegalArgumentException.class,() -> map.put(null,Terrain.LAND));
+		assertException(IllegalArgumentException.class, () -> map.put(h(3,2),null));
+	}
+
+	public void testM1() {
+		makeBig();
+		assertTrue(set.contains(e(e[2].getLocation(),e[2].getTerrain())));
+		assertFalse(set.remove(e(e[2].getLocation(),Terrain.CITY)));
+		assertTrue(set.remove(e(e[2].getLocation(),e[2].getTerrain())));
+		Map.Entry<HexCoordinate,Terrain> en = set.iterator().next();
+		en.setValue(Terrain.INACCESSIBLE);
+		assertEquals(Terrain.INACCESSIBLE,hb.terrainAt(en.getKey()));
+		assertEquals(12,set.size());
+	}
+
+
+	/// multi-threaded checks
+
+	private static final int THREADS = 4;
+	private static final int PER_THREAD = 20000;
+
+	private void runAll(List<Runnable> tasks) throws InterruptedException {
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		List<Thread> threads = new ArrayList<>();
+		for (Runnable r : tasks) {
+			Thread t = new Thread(r);
+			t.setUncaughtExceptionHandler((th, ex) -> failure.compareAndSet(null, ex));
+			threads.add(t);
+		}
+		for (Thread t : threads) t.start();
+		for (Thread t : threads) t.join();
+		if (failure.get() != null) throw new AssertionError("thread failed", failure.get());
+	}
+
+	public void testT0() throws InterruptedException {
+		// writers on disjoint tiles while readers look and iterate
+		List<Runnable> tasks = new ArrayList<>();
+		for (int k=0; k < THREADS; ++k) {
+			final int base = k * PER_THREAD;
+			tasks.add(() -> {
+				for (int i=0; i < PER_THREAD; ++i) {
+					assertTrue(hb.add(tile(base + i)));
+				}
+				for (int i=0; i < PER_THREAD; i += 2) {
+					assertTrue(hb.remove(tile(base + i)));
+				}
+			});
+			tasks.add(() -> {
+				for (int i=0; i < PER_THREAD; ++i) {
+					Terrain t = hb.terrainAt(tile(base + i).getLocation());
+					assertTrue(t == null || t == tile(base + i).getTerrain());
+				}
+				for (HexTile t : hb) {
+					assertNotNull(t.getTerrain());
+				}
+			});
+		}
+		runAll(tasks);
+		assertEquals(THREADS * PER_THREAD / 2,hb.size());
+		for (int i=0; i < THREADS * PER_THREAD; ++i) {
+			assertEquals((i & 1) == 1,hb.contains(tile(i)));
+		}
+		int count = 0;
+		for (Iterator<HexTile> it2 = hb.iterator(); it2.hasNext(); it2.next()) ++count;
+		assertEquals(hb.size(),count);
+	}
+
+	public void testT1() throws InterruptedException {
+		// every thread fights over the same few tiles
+		List<Runnable> tasks = new ArrayList<>();
+		int[] added = new int[THREADS];
+		int[] removed = new int[THREADS];
+		for (int k=0; k < THREADS; ++k) {
+			final int me = k;
+			tasks.add(() -> {
+				for (int i=0; i < PER_THREAD; ++i) {
+					HexTile t = tile(i % 50);
+					if (((i / 50) & 1) == 0) {
+						if (hb.add(t)) ++added[me];
+					} else {
+						if (hb.remove(t)) ++removed[me];
+					}
+				}
+			});
+		}
+		runAll(tasks);
+		int net = 0;
+		for (int k=0; k < THREADS; ++k) net += added[k] - removed[k];
+		assertEquals(net,hb.size());
+	}
+}
@@ -1,3 +1,5 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -5,15 +7,19 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 import junit.framework.TestCase;
 import edu.uwm.cs.util.BitUtil;
 import edu.uwm.cs.util.DefaultEntry;
+import edu.uwm.cs351.ConcurrentHexBoard;
 import edu.uwm.cs351.HexBoard;
 import edu.uwm.cs351.HexCoordinate;
 import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.PackedHexBoard;
 import edu.uwm.cs351.Terrain;
 
 
@@ -289,4 +295,267 @@ public class TestEfficiency extends TestCase {
 		}
 	}
 
+	
+	/// the packed board should do everything the chained board does,
+	/// with much less memory and faster lookups
+	
+	public void testPBLong() {
+		testLong(new PackedHexBoard(),(i) -> makeHexTile(i, -1),false);
+	}
+	
+	public void testPBMiddle() {
+		testMiddle(new PackedHexBoard(),(i) -> makeHexTile(i, 2));
+	}
+	
+	public void testPBContains() {
+		testContains(new PackedHexBoard(),(i)->makeHexTile(i, -1));
+	}
+	
+	public void testPBRemove() {
+		testRemove(new PackedHexBoard(),(i)->makeHexTile(i, -1));
+	}
+	
+	public void testPBSparse() {
+		int big = 1 << POWER;
+		PackedHexBoard pb = new PackedHexBoard();
+		HexTile first = new HexTile(Terrain.CITY,new HexCoordinate(0,0));
+		HexTile last = new HexTile(Terrain.CITY,new HexCoordinate(big,big));
+		pb.add(first);
+		pb.add(last);
+		for (int i=0; i < big; ++i) {
+			Iterator<HexTile> it = pb.iterator();
+			it.next();
+			assertTrue(it.hasNext());
+			it.next();
+		}
+	}
+	
+	private static long usedMemory() {
+		Runtime rt = Runtime.getRuntime();
+		for (int i=0; i < 3; ++i) System.gc();
+		return rt.totalMemory() - rt.freeMemory();
+	}
+	
+	private <T extends Collection<HexTile>> double bytesPerTile(Supplier<T> maker) {
+		long before = usedMemory();
+		T col = maker.get();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			col.add(makeHexTile(i, -1));
+		}
+		long after = usedMemory();
+		assertEquals(MAX_LENGTH,col.size());
+		return (double)(after - before) / MAX_LENGTH;
+	}
+	
+	public void testPBMemory() {
+		hb = null;
+		double chained = bytesPerTile(() -> new HexBoard());
+		double packed = bytesPerTile(() -> new PackedHexBoard());
+		assertTrue("packed board uses " + packed + " bytes per tile", packed * 5 < chained);
+	}
+	
+	private static final int LOOKUPS = 10;
+	
+	private long timeLookups(Function<HexCoordinate,Terrain> terrainAt) {
+		long start = System.nanoTime();
+		for (int k=0; k < LOOKUPS; ++k) {
+			for (int i=0; i < MAX_LENGTH; ++i) {
+				HexTile t = makeHexTile(i, -1);
+				assertEquals(t.getTerrain(), terrainAt.apply(t.getLocation()));
+			}
+		}
+		return System.nanoTime() - start;
+	}
+	
+	public void testPBTerrainAt() {
+		PackedHexBoard pb = new PackedHexBoard();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			HexTile t = makeHexTile(i, -1);
+			hb.add(t);
+			pb.add(t);
+		}
+		timeLookups(hb::terrainAt); // warm up
+		timeLookups(pb::terrainAt);
+		long chained = timeLookups(hb::terrainAt);
+		long packed = timeLookups(pb::terrainAt);
+		assertTrue("packed board took " + packed / 1000000 + " ms", packed < chained);
+		hb.clear();
+	}
+
+	
+	/// incremental resizing should avoid long pauses in add
+	
+	private static final int TRIALS = 5;
+	
+	private static long collectionNanos() {
+		long result = 0;
+		for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+			result += gc.getCollectionTime();
+		}
+		return result * 1000000;
+	}
+	
+	/**
+	 * Return the longest time taken by one add, not counting time the
+	 * add was paused for a garbage collection.  Skipping such adds
+	 * altogether would skip the very adds that allocate a new array.
+	 */
+	private long longestAdd(HexBoard b) {
+		long longest = 0;
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			HexTile t = makeHexTile(i, -1);
+			long gc = collectionNanos();
+			long start = System.nanoTime();
+			b.add(t);
+			long time = System.nanoTime() - start - (collectionNanos() - gc);
+			if (time > longest) longest = time;
+		}
+		assertEquals(MAX_LENGTH,b.size());
+		return longest;
+	}
+	
+	/**
+	 * Return the smallest longest add over several trials.  A pause for
+	 * compilation or another process only lengthens one trial, but a
+	 * pause caused by the board itself happens in every trial.
+	 */
+	private long longestAdd(boolean incremental) {
+		long best = Long.MAX_VALUE;
+		for (int trial=0; trial < TRIALS; ++trial) {
+			HexBoard b = new HexBoard();
+			b.setIncrementalResize(incremental);
+			best = Math.min(best, longestAdd(b));
+		}
+		return best;
+	}
+	
+	public void testIncrementalResize() {
+		hb = null;
+		longestAdd(false); // warm up
+		longestAdd(true);
+		long whole = longestAdd(false);
+		long incremental = longestAdd(true);
+		assertTrue("incremental add took " + incremental / 1000 + " us", incremental * 4 < whole);
+		HexBoard ib = new HexBoard();
+		ib.setIncrementalResize(true);
+		longestAdd(ib);
+		for (int i=0; i < MAX_LENGTH; i += 7) {
+			HexTile t = makeHexTile(i, -1);
+			assertEquals(t.getTerrain(),ib.terrainAt(t.getLocation()));
+		}
+	}
+
+	
+	/// throughput of a board shared by several threads, for mixes of
+	/// reads and writes: one lock around a HexBoard, or a ConcurrentHexBoard
+	
+	private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+	private static final int OPERATIONS = MAX_LENGTH;
+	private static final int TILES = MAX_LENGTH / 10;
+	
+	/**
+	 * Operations on a shared board, each made safe by the board or by
+	 * the caller.
+	 */
+	private interface SharedBoard {
+		Terrain terrainAt(HexCoordinate h);
+		void add(HexTile t);
+		void remove(HexTile t);
+	}
+	
+	/**
+	 * Run the operations in several threads, and return the number of
+	 * operations per millisecond.
+	 * @param readPercent percentage of operations that only read
+	 */
+	private double throughput(SharedBoard b, int readPercent) throws InterruptedException {
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread[] threads = new Thread[THREADS];
+		for (int k=0; k < THREADS; ++k) {
+			final Random rand = new Random(k);
+			threads[k] = new Thread(() -> {
+				for (int i=0; i < OPERATIONS / THREADS; ++i) {
+					HexTile t = makeHexTile(rand.nextInt(TILES), -1);
+					int op = rand.nextInt(100);
+					if (op < readPercent) b.terrainAt(t.getLocation());
+					else if ((op & 1) == 0) b.add(t);
+					else b.remove(t);
+				}
+			});
+			threads[k].setUncaughtExceptionHandler((th, ex) -> failure.compareAndSet(null, ex));
+		}
+		long start = System.nanoTime();
+		for (Thread t : threads) t.start();
+		for (Thread t : threads) t.join();
+		long time = System.nanoTime() - start;
+		if (failure.get() != null) throw new AssertionError("thread failed", failure.get());
+		return OPERATIONS / (time / 1e6);
+	}
+	
+	public void testConcurrentThroughput() throws InterruptedException {
+		ConcurrentHexBoard cb = new ConcurrentHexBoard();
+		for (int i=0; i < TILES; i += 2) {
+			HexTile t = makeHexTile(i, -1);
+			hb.add(t);
+			cb.add(t);
+		}
+		SharedBoard locked = new SharedBoard() {
+			public synchronized Terrain terrainAt(HexCoordinate h) { return hb.terrainAt(h); }
+			public synchronized void add(HexTile t) { hb.add(t); }
+			public synchronized void remove(HexTile t) { hb.remove(t); }
+		};
+		SharedBoard striped = new SharedBoard() {
+			public Terrain terrainAt(HexCoordinate h) { return cb.terrainAt(h); }
+			public void add(HexTile t) { cb.add(t); }
+			public void remove(HexTile t) { cb.remove(t); }
+		};
+		for (int reads : new int[] {100, 90, 50, 10}) {
+			throughput(locked, reads);
+			throughput(striped, reads);
+		}
+		int count = 0;
+		for (HexTile t : cb) {
+			assertEquals(t.getTerrain(),cb.terrainAt(t.getLocation()));
+			++count;
+		}
+		assertEquals(cb.size(),count);
+		hb.clear();
+	}
+
+	
+	/// after most tiles are removed, iterating should not cost as much
+	/// as the largest the board has been
+	
+	public void testShrink() {
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			hb.add(makeHexTile(i, -1));
+		}
+		for (int i=SAMPLE; i < MAX_LENGTH; ++i) {
+			hb.remove(makeHexTile(i, -1));
+		}
+		assertEquals(SAMPLE,hb.size());
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			Iterator<HexTile> it = hb.iterator();
+			for (int j=0; j < SAMPLE; ++j) it.next();
+			assertFalse(it.hasNext());
+		}
+		hb.clear();
+	}
+	
+	public void testBulk() {
+		List<HexTile> tiles = new ArrayList<>();
+		for (int i=0; i < MAX_LENGTH; ++i) {
+			tiles.add(makeHexTile(i, -1));
+		}
+		for (int k=0; k < 10; ++k) {
+			assertTrue(hb.addAll(tiles));
+			assertTrue(hb.retainAll(tiles.subList(0, SAMPLE)));
+			assertEquals(SAMPLE,hb.size());
+			assertTrue(hb.addAll(tiles));
+			assertTrue(hb.removeAll(tiles.subList(SAMPLE, MAX_LENGTH)));
+			assertEquals(SAMPLE,hb.size());
+			hb.clear();
+		}
+	}
+
 }
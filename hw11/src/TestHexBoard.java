@@ -1,6 +1,9 @@
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.ConcurrentModificationException;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
@@ -1156,5 +1159,67 @@ public class TestHexBoard extends TestCollection<HexTile> {
 		Map.Entry<?,?> entry = setit.next();
 		assertException(IllegalArgumentException.class, () -> entry.setValue(null));
 	}
+
+	
+	/// testBXX: bulk operations
+	
+	private HexTile tile(int i) {
+		return new HexTile(Terrain.values()[i % Terrain.values().length],h(i % 100, i / 100));
+	}
 	
+	public void testB00() {
+		List<HexTile> tiles = new ArrayList<>();
+		for (int i=0; i < 1000; ++i) tiles.add(tile(i));
+		assertTrue(hb.addAll(tiles));
+		assertEquals(1000,hb.size());
+		assertFalse(hb.addAll(tiles));
+		assertFalse(hb.addAll(hb));
+		for (int i=0; i < 1000; ++i) assertTrue(hb.contains(tile(i)));
+	}
+	
+	public void testB01() {
+		hb.add(e[1]);
+		assertTrue(hb.addAll(Arrays.asList(e[2],e[3],new HexTile(Terrain.CITY,e[1].getLocation()))));
+		assertEquals(3,hb.size());
+		assertEquals(Terrain.CITY,hb.terrainAt(e[1].getLocation()));
+		assertException(NullPointerException.class, () -> hb.addAll(Arrays.asList(e[4],null)));
+		assertTrue(hb.contains(e[4]));
+	}
+	
+	public void testB02() {
+		for (int i=0; i < 1000; ++i) hb.add(tile(i));
+		List<HexTile> odd = new ArrayList<>();
+		for (int i=1; i < 1000; i += 2) odd.add(tile(i));
+		assertTrue(hb.removeAll(odd));
+		assertFalse(hb.removeAll(odd));
+		assertEquals(500,hb.size());
+		for (int i=0; i < 1000; ++i) assertEquals((i & 1) == 0,hb.contains(tile(i)));
+	}
+	
+	public void testB03() {
+		for (int i=0; i < 1000; ++i) hb.add(tile(i));
+		List<HexTile> some = new ArrayList<>();
+		for (int i=0; i < 1000; i += 10) some.add(tile(i));
+		some.add(new HexTile(Terrain.CITY,h(-1,-1)));
+		assertTrue(hb.retainAll(some));
+		assertFalse(hb.retainAll(some));
+		assertEquals(100,hb.size());
+		for (int i=0; i < 1000; ++i) assertEquals((i % 10) == 0,hb.contains(tile(i)));
+		assertTrue(hb.removeAll(hb));
+		assertTrue(hb.isEmpty());
+	}
+	
+	public void testB04() {
+		// removing most tiles shrinks the board without losing any
+		for (int i=0; i < 1000; ++i) hb.add(tile(i));
+		for (int i=0; i < 990; ++i) assertTrue(hb.remove(tile(i)));
+		assertEquals(10,hb.size());
+		for (int i=990; i < 1000; ++i) assertTrue(hb.contains(tile(i)));
+		int count = 0;
+		for (HexTile t : hb) {
+			assertTrue(t.getLocation().b() == 9 && t.getLocation().a() >= 90);
+			++count;
+		}
+		assertEquals(10,count);
+	}
 }
@@ -0,0 +1,169 @@
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.Terrain;
+
+
+/*
+ * Run the collection tests on a HexBoard that resizes incrementally,
+ * and check that lookups, removal and iterators work while chains are
+ * still in the old array.
+ */
+public class TestIncrementalResize extends TestCollection<HexTile> {
+
+	private HexBoard hb;
+	private Map<HexCoordinate,Terrain> map;
+
+	protected HexCoordinate h(int a, int b) { return new HexCoordinate(a,b); }
+
+	@Override
+	protected void initCollections() {
+		c = hb = new HexBoard();
+		hb.setIncrementalResize(true);
+		map = hb.asMap();
+		e = new HexTile[]{
+				new HexTile(Terrain.INACCESSIBLE,h(0,0)),
+				new HexTile(Terrain.LAND,h(1,0)),
+				new HexTile(Terrain.WATER,h(2,0)),
+				new HexTile(Terrain.FOREST,h(3,1)),
+				new HexTile(Terrain.MOUNTAIN,h(4,2)),
+				new HexTile(Terrain.DESERT,h(5,3)),
+				new HexTile(Terrain.CITY,h(6,3)),
+				new HexTile(Terrain.LAND,h(7,3)),
+				new HexTile(Terrain.WATER,h(8,4)),
+				new HexTile(Terrain.FOREST,h(9,4)),
+				new HexTile(Terrain.MOUNTAIN,h(0,5)),
+				new HexTile(Terrain.DESERT,h(1,6)),
+				new HexTile(Terrain.CITY,h(2,6)),
+				new HexTile(Terrain.LAND,h(3,7))};
+		permitNulls = false;
+		preserveOrder = false;
+		permitDuplicates = false;
+	}
+
+	private HexTile tile(int i) {
+		return new HexTile(Terrain.values()[i % Terrain.values().length],h(i % 100, i / 100));
+	}
+
+	/**
+	 * Add tiles until the board has just started moving 37 chains into
+	 * an array of 79.
+	 */
+	private void makeResizing() {
+		for (int i=0; i < 28; ++i) {
+			hb.add(tile(i));
+		}
+	}
+
+	public void testA() {
+		makeResizing();
+		assertEquals(28,hb.size());
+		for (int i=0; i < 28; ++i) {
+			assertEquals(tile(i).getTerrain(),hb.terrainAt(tile(i).getLocation()));
+			assertTrue(hb.contains(tile(i)));
+		}
+		assertNull(hb.terrainAt(tile(28).getLocation()));
+	}
+
+	public void testB() {
+		makeResizing();
+		for (int i=0; i < 28; i += 2) {
+			assertTrue(hb.remove(tile(i)));
+			assertFalse(hb.remove(tile(i)));
+		}
+		assertEquals(14,hb.size());
+		for (int i=0; i < 28; ++i) {
+			assertEquals((i & 1) == 1,hb.contains(tile(i)));
+		}
+	}
+
+	public void testC() {
+		// changing the terrain of a tile still in the old array
+		makeResizing();
+		for (int i=0; i < 28; ++i) {
+			HexTile t = new HexTile(Terrain.CITY,tile(i).getLocation());
+			assertEquals(tile(i).getTerrain() != Terrain.CITY,hb.add(t));
+		}
+		assertEquals(28,hb.size());
+		for (int i=0; i < 28; ++i) {
+			assertEquals(Terrain.CITY,hb.terrainAt(tile(i).getLocation()));
+		}
+	}
+
+	public void testD() {
+		// iterators see every tile exactly once in both arrays
+		makeResizing();
+		boolean[] seen = new boolean[28];
+		for (HexTile t : hb) {
+			int i = t.getLocation().a() + 100 * t.getLocation().b();
+			assertFalse(seen[i]);
+			seen[i] = true;
+		}
+		for (int i=0; i < 28; ++i) {
+			assertTrue(seen[i]);
+		}
+	}
+
+	public void testE() {
+		makeResizing();
+		it = hb.iterator();
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			if ((count++ & 1) == 0) it.remove();
+		}
+		assertEquals(28,count);
+		assertEquals(14,hb.size());
+		it = hb.iterator();
+		while (it.hasNext()) {
+			it.next();
+			it.remove();
+		}
+		assertTrue(hb.isEmpty());
+	}
+
+	public void testF() {
+		makeResizing();
+		it = hb.iterator();
+		it.next();
+		hb.add(tile(100));
+		assertException(ConcurrentModificationException.class, () -> it.next());
+		it = hb.iterator();
+		it.next();
+		hb.setIncrementalResize(false); // finishes the move
+		assertException(ConcurrentModificationException.class, () -> it.hasNext());
+		for (int i=0; i < 28; ++i) {
+			assertTrue(hb.contains(tile(i)));
+		}
+	}
+
+	public void testG() {
+		// compare with a reference through many resizes
+		Random r = new Random(351);
+		Map<HexCoordinate,Terrain> expected = new HashMap<>();
+		for (int i=0; i < 20000; ++i) {
+			HexTile t = tile(r.nextInt(5000));
+			if (r.nextInt(4) == 0) {
+				assertEquals(expected.remove(t.getLocation()),map.remove(t.getLocation()));
+			} else {
+				assertEquals(expected.put(t.getLocation(),t.getTerrain()),map.put(t.getLocation(),t.getTerrain()));
+			}
+		}
+		assertEquals(expected.size(),hb.size());
+		assertEquals(expected,map);
+		Iterator<HexTile> it2 = hb.iterator();
+		int count = 0;
+		while (it2.hasNext()) {
+			HexTile t = it2.next();
+			assertEquals(expected.get(t.getLocation()),t.getTerrain());
+			++count;
+		}
+		assertEquals(expected.size(),count);
+	}
+}
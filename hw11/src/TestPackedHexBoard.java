@@ -0,0 +1,275 @@
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import edu.uwm.cs.util.DefaultEntry;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.PackedHexBoard;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestPackedHexBoard extends TestCollection<HexTile> {
+
+	private PackedHexBoard hb;
+	private Map<HexCoordinate,Terrain> map;
+	private Set<Map.Entry<HexCoordinate,Terrain>> set;
+	private Iterator<Map.Entry<HexCoordinate,Terrain>> setit;
+
+	protected HexCoordinate h(int a, int b) { return new HexCoordinate(a,b); }
+
+	protected <K,V> Map.Entry<K,V> e(K k, V v) { return new DefaultEntry<K,V>(k,v); }
+
+	@Override
+	protected void initCollections() {
+		c = hb = new PackedHexBoard();
+		map = hb.asMap();
+		set = map.entrySet();
+		e = new HexTile[]{
+				new HexTile(Terrain.INACCESSIBLE,h(0,0)),
+				new HexTile(Terrain.LAND,h(1,0)),
+				new HexTile(Terrain.WATER,h(2,0)),
+				new HexTile(Terrain.FOREST,h(3,1)),
+				new HexTile(Terrain.MOUNTAIN,h(4,2)),
+				new HexTile(Terrain.DESERT,h(5,3)),
+				new HexTile(Terrain.CITY,h(6,3)),
+				new HexTile(Terrain.LAND,h(7,3)),
+				new HexTile(Terrain.WATER,h(8,4)),
+				new HexTile(Terrain.FOREST,h(9,4)),
+				new HexTile(Terrain.MOUNTAIN,h(0,5)),
+				new HexTile(Terrain.DESERT,h(1,6)),
+				new HexTile(Terrain.CITY,h(2,6)),
+				new HexTile(Terrain.LAND,h(3,7))};
+		permitNulls = false;
+		preserveOrder = false;
+		permitDuplicates = false;
+	}
+
+	private void makeBig() {
+		for (int i=1; i <= 13; ++i) {
+			hb.add(e[i]);
+		}
+	}
+
+
+	/// some spot checks:
+
+	public void testA() {
+		assertException(NullPointerException.class, () -> hb.add(null));
+	}
+
+	public void testB() {
+		HexTile t = new HexTile(Terrain.LAND,h(0,0));
+		hb.add(e[0]);
+		assertTrue(hb.add(t));
+		assertEquals(1,hb.size());
+		assertTrue(hb.contains(t));
+		assertFalse(hb.contains(e[0]));
+	}
+
+	public void testC() {
+		hb.add(e[3]);
+		hb.add(e[4]);
+		hb.add(e[5]);
+		assertEquals(Terrain.FOREST,hb.terrainAt(h(3,1)));
+		assertNull(hb.terrainAt(h(1,3)));
+		assertNull(hb.terrainAt(null));
+	}
+
+	public void testD() {
+		HexTile t = new HexTile(Terrain.CITY,h(5,3));
+		hb.add(e[5]);
+		assertFalse(hb.remove(t));
+		assertTrue(hb.contains(e[5]));
+		assertTrue(hb.remove(e[5]));
+		assertTrue(hb.isEmpty());
+	}
+
+	public void testE() {
+		// negative and very large coordinates are packed without loss
+		HexTile t1 = new HexTile(Terrain.CITY,h(-1,-1));
+		HexTile t2 = new HexTile(Terrain.WATER,h(Integer.MAX_VALUE,Integer.MIN_VALUE));
+		HexTile t3 = new HexTile(Terrain.DESERT,h(-1,0));
+		hb.add(t1);
+		hb.add(t2);
+		hb.add(t3);
+		assertEquals(3,hb.size());
+		assertEquals(Terrain.CITY,hb.terrainAt(h(-1,-1)));
+		assertEquals(Terrain.WATER,hb.terrainAt(h(Integer.MAX_VALUE,Integer.MIN_VALUE)));
+		assertEquals(Terrain.DESERT,hb.terrainAt(h(-1,0)));
+		assertNull(hb.terrainAt(h(0,-1)));
+		boolean[] seen = new boolean[3];
+		for (HexTile t : hb) {
+			if (t.equals(t1)) seen[0] = true;
+			if (t.equals(t2)) seen[1] = true;
+			if (t.equals(t3)) seen[2] = true;
+		}
+		assertTrue(seen[0] && seen[1] && seen[2]);
+	}
+
+
+	/// removing while iterating moves entries back
+
+	public void testF() {
+		for (int i=1; i <= 13; ++i) {
+			makeBig();
+			it = hb.iterator();
+			int count = 0;
+			while (it.hasNext()) {
+				HexTile t = it.next();
+				++count;
+				if (t.equals(e[i])) it.remove();
+			}
+			assertEquals(13,count);
+			assertFalse("Removed e[" + i + "]",hb.contains(e[i]));
+			assertEquals(12,hb.size());
+			hb.clear();
+		}
+	}
+
+	public void testG() {
+		makeBig();
+		it = hb.iterator();
+		int count = 0;
+		while (it.hasNext()) {
+			it.next();
+			it.remove();
+			++count;
+		}
+		assertEquals(13,count);
+		assertTrue(hb.isEmpty());
+		assertException(IllegalStateException.class, () -> it.remove());
+	}
+
+	public void testH() {
+		// many locations in a small area, removed at random while iterating
+		Random r = new Random(351);
+		Map<HexCoordinate,Terrain> expected = new HashMap<>();
+		for (int round=0; round < 50; ++round) {
+			for (int i=0; i < 200; ++i) {
+				HexCoordinate h = h(r.nextInt(30),r.nextInt(30));
+				Terrain t = Terrain.values()[r.nextInt(Terrain.values().length)];
+				map.put(h,t);
+				expected.put(h,t);
+			}
+			int before = hb.size();
+			it = hb.iterator();
+			int count = 0;
+			while (it.hasNext()) {
+				HexTile t = it.next();
+				++count;
+				assertEquals(expected.get(t.getLocation()),t.getTerrain());
+				if (r.nextInt(3) == 0) {
+					it.remove();
+					expected.remove(t.getLocation());
+				}
+			}
+			assertEquals(before,count);
+			assertEquals(expected.size(),hb.size());
+			assertEquals(expected,map);
+		}
+	}
+
+	public void testI() {
+		makeBig();
+		it = hb.iterator();
+		it.next();
+		hb.add(e[0]);
+		assertException(ConcurrentModificationException.class, () -> it.next());
+		it = hb.iterator();
+		it.next();
+		hb.add(e[0]); // no change
+		it.next();
+		map.put(e[0].getLocation(), Terrain.WATER);
+		assertException(ConcurrentModificationException.class, () -> it.hasNext());
+	}
+
+
+	/// the map view
+
+	public void testM0() {
+		assertEquals(0,map.size());
+		makeBig();
+		assertEquals(13,map.size());
+		for (int i=1; i <= 13; ++i) {
+			assertEquals(e[i].getTerrain(),map.get(e[i].getLocation()));
+			assertTrue(map.containsKey(e[i].getLocation()));
+		}
+		assertNull(map.get(e[0].getLocation()));
+		assertNull(map.get(e[1]));
+		assertFalse(map.containsKey(null));
+	}
+
+	public void testM1() {
+		assertNull(map.put(h(3,2),Terrain.WATER));
+		assertEquals(Terrain.WATER,map.put(h(3,2),Terrain.CITY));
+		assertEquals(1,hb.size());
+		assertTrue(hb.contains(new HexTile(Terrain.CITY,h(3,2))));
+		assertException(IllegalArgumentException.class,() -> map.put(null,Terrain.LAND));
+		assertException(IllegalArgumentException.class, () -> map.put(h(3,2),null));
+	}
+
+	public void testM2() {
+		makeBig();
+		assertNull(map.remove(e[0].getLocation()));
+		assertEquals(e[1].getTerrain(),map.remove(e[1].getLocation()));
+		assertNull(map.remove(e[1].getLocation()));
+		assertNull(map.remove(Terrain.CITY));
+		assertEquals(12,hb.size());
+	}
+
+	public void testM3() {
+		makeBig();
+		assertTrue(set.contains(e(e[2].getLocation(),e[2].getTerrain())));
+		assertFalse(set.contains(e(e[2].getLocation(),Terrain.CITY)));
+		assertFalse(set.contains(e[2]));
+		assertFalse(set.remove(e(e[2].getLocation(),Terrain.CITY)));
+		assertTrue(set.remove(e(e[2].getLocation(),e[2].getTerrain())));
+		assertEquals(12,set.size());
+	}
+
+	public void testM4() {
+		makeBig();
+		setit = set.iterator();
+		Map.Entry<HexCoordinate,Terrain> first = setit.next();
+		Terrain old = first.getValue();
+		assertEquals(old,first.setValue(Terrain.INACCESSIBLE));
+		assertEquals(Terrain.INACCESSIBLE,hb.terrainAt(first.getKey()));
+		assertEquals(Terrain.INACCESSIBLE,first.getValue());
+		setit.next(); // setValue is not a structural change
+		assertException(IllegalArgumentException.class, () -> first.setValue(null));
+	}
+
+	public void testM5() {
+		// entries stay attached to their location as others are removed
+		makeBig();
+		Map<HexCoordinate,Map.Entry<HexCoordinate,Terrain>> entries = new HashMap<>();
+		for (Map.Entry<HexCoordinate,Terrain> en : set) {
+			entries.put(en.getKey(),en);
+		}
+		for (int i=1; i < 13; ++i) {
+			hb.remove(e[i]);
+			Map.Entry<HexCoordinate,Terrain> en = entries.get(e[13].getLocation());
+			assertEquals(e[13].getTerrain(),en.getValue());
+		}
+		entries.get(e[13].getLocation()).setValue(Terrain.CITY);
+		assertEquals(Terrain.CITY,hb.terrainAt(e[13].getLocation()));
+		assertEquals(1,hb.size());
+	}
+
+	public void testM6() {
+		makeBig();
+		setit = set.iterator();
+		while (setit.hasNext()) {
+			Map.Entry<HexCoordinate,Terrain> en = setit.next();
+			if (en.getValue() == Terrain.LAND) setit.remove();
+		}
+		assertEquals(10,hb.size());
+		assertFalse(hb.contains(e[1]));
+		assertFalse(hb.contains(e[7]));
+		assertFalse(hb.contains(e[13]));
+	}
+}
@@ -0,0 +1,487 @@
+package edu.uwm.cs351;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+import edu.uwm.cs.util.AbstractEntry;
+
+/**
+ * A hash table HexBoard that can be shared by many threads without a
+ * lock around the whole board.
+ * <p>
+ * The chains are divided among a fixed number of <em>stripes</em>, each
+ * with its own lock: chain i belongs to stripe i mod the number of
+ * stripes. Since the table length is always a power of two at least the
+ * number of stripes, a location stays in the same stripe when the table
+ * grows. Adding and removing tiles lock only the stripe of the location,
+ * so threads changing different parts of the board do not wait for
+ * each other; growing the table locks every stripe.
+ * <p>
+ * Reading takes no lock at all. The table slots, the links of the
+ * chains and the terrain of each node are volatile, and a node is
+ * never relinked once it is in a chain (removal unlinks it from its
+ * predecessor, and growing copies the chains into new nodes), so a
+ * reader always follows a chain that was valid at some moment. Thus
+ * {@link #terrainAt(HexCoordinate)} and {@link #contains(Object)} see
+ * every change that finished before they started.
+ * <p>
+ * Iterators are weakly consistent rather than fail-fast: they never
+ * throw {@link java.util.ConcurrentModificationException}, they return
+ * every tile present when they were created exactly once, and they may
+ * or may not show changes made after that. Likewise {@link #size()} is
+ * exact only when no other thread is changing the board.
+ */
+public class ConcurrentHexBoard extends AbstractSet<HexTile> {
+
+	private static final int STRIPES = 16;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private static class Node {
+		final HexCoordinate key;
+		volatile Terrain terrain;
+		volatile Node next;
+
+		Node(HexCoordinate k, Terrain t, Node n) {
+			key = k;
+			terrain = t;
+			next = n;
+		}
+	}
+
+	// data structure
+	private volatile AtomicReferenceArray<Node> table;
+	private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+	private final AtomicIntegerArray counts = new AtomicIntegerArray(STRIPES); // tiles in each stripe
+
+	private static boolean doReport = true;
+	private static boolean report(String s) {
+		if (doReport) System.err.println("Invariant error: " + s);
+		else System.out.println("Detected invariant error: " + s);
+		return false;
+	}
+
+	private static int hash(HexCoordinate h) {
+		int x = h.hashCode() * 0x9E3779B9; // spread the bits (Fibonacci hashing)
+		return x ^ (x >>> 16);
+	}
+
+	private static int stripe(int hash) {
+		return hash & (STRIPES - 1);
+	}
+
+	/**
+	 * ConcurrentHexBoard invariant, which can only be checked while
+	 * every stripe is locked:
+	 * <ol>
+	 * <li>The table is not null and its length is a power of two, at
+	 *     least the number of stripes;</li>
+	 * <li>No node has a null terrain;</li>
+	 * <li>Every node is in the correct chain;</li>
+	 * <li>The chains contain no duplicates (which also prevents loops);</li>
+	 * <li>The count of each stripe is the number of nodes in its chains,
+	 *     and no stripe is too full.</li>
+	 * </ol>
+	 * @return true if the invariant holds
+	 */
+	private boolean wellFormed() {
+		AtomicReferenceArray<Node> t = table;
+		if (t == null) return report("table must not be null.");
+		int length = t.length();
+		if (length < STRIPES || Integer.bitCount(length) != 1) return report("table length must be a power of two: " + length);
+		int[] found = new int[STRIPES];
+		for (int i = 0; i < length; ++i) {
+			for (Node n = t.get(i); n != null; n = n.next) {
+				if (n.key == null || n.terrain == null) return report("Bad node found in table.");
+				if ((hash(n.key) & (length - 1)) != i) return report("Bucket and hash do not match.");
+				for (Node m = t.get(i); m != n; m = m.next) {
+					if (m.key.equals(n.key)) return report("Duplicate found in bucket.");
+				}
+				if (++found[stripe(i)] > counts.get(stripe(i))) return report("Count of stripe " + stripe(i) + " is too small.");
+			}
+		}
+		for (int s = 0; s < STRIPES; ++s) {
+			if (found[s] != counts.get(s)) return report("Count of stripe " + s + " is " + counts.get(s) + ", not " + found[s]);
+			if (tooFull(found[s], length)) return report("Stripe " + s + " is too full.");
+		}
+		return true;
+	}
+
+	private static boolean tooFull(int count, int length) {
+		return count * 4L > (length / STRIPES) * 3L;
+	}
+
+	/**
+	 * Create an empty hex board.
+	 */
+	public ConcurrentHexBoard() {
+		for (int s = 0; s < STRIPES; ++s) locks[s] = new ReentrantLock();
+		table = new AtomicReferenceArray<Node>(INITIAL_CAPACITY);
+		assert wellFormed() : "in constructor";
+	}
+
+	private void lockAll() {
+		for (ReentrantLock l : locks) l.lock();
+	}
+
+	private void unlockAll() {
+		for (int s = STRIPES - 1; s >= 0; --s) locks[s].unlock();
+	}
+
+	/**
+	 * Return the node for a location in the current table, or null if
+	 * there is none. No lock is needed.
+	 */
+	private Node findNode(HexCoordinate l, int hash) {
+		AtomicReferenceArray<Node> t = table;
+		for (Node n = t.get(hash & (t.length() - 1)); n != null; n = n.next) {
+			if (n.key.equals(l)) return n;
+		}
+		return null;
+	}
+
+	/**
+	 * Return the terrain at the given coordinate or null if nothing at
+	 * this coordinate. This method does not lock.
+	 *
+	 * @param l    hex coordinate to look for (null OK but pointless)
+	 * @return     terrain at that coordinate, or null if nothing
+	 */
+	public Terrain terrainAt(HexCoordinate l) {
+		if (l == null) return null;
+		Node n = findNode(l, hash(l));
+		return n == null ? null : n.terrain;
+	}
+
+	@Override // required by Java
+	public Iterator<HexTile> iterator() {
+		return new MyIterator();
+	}
+
+	@Override // required by Java
+	public int size() {
+		int result = 0;
+		for (int s = 0; s < STRIPES; ++s) result += counts.get(s);
+		return result;
+	}
+
+	@Override // required for efficiency
+	public boolean contains(Object o) {
+		if (o instanceof HexTile) {
+			HexTile h = (HexTile)o;
+			return terrainAt(h.getLocation()) == h.getTerrain();
+		}
+		return false;
+	}
+
+	/**
+	 * Set the terrain at a location, holding the lock of its stripe.
+	 * @param l    location, must not be null
+	 * @param t    new terrain, must not be null
+	 * @return     terrain that was there before, or null if none
+	 */
+	private Terrain put(HexCoordinate l, Terrain t) {
+		int h = hash(l);
+		int s = stripe(h);
+		locks[s].lock();
+		try {
+			AtomicReferenceArray<Node> tab = table; // cannot change while we hold a lock
+			int i = h & (tab.length() - 1);
+			for (Node n = tab.get(i); n != null; n = n.next) {
+				if (n.key.equals(l)) {
+					Terrain result = n.terrain;
+					n.terrain = t;
+					return result;
+				}
+			}
+			tab.set(i, new Node(l, t, tab.get(i)));
+			int c = counts.get(s) + 1;
+			counts.set(s, c);
+			if (!tooFull(c, tab.length())) return null;
+		} finally {
+			locks[s].unlock();
+		}
+		grow();
+		return null;
+	}
+
+	/**
+	 * Grow the table until no stripe is too full, unless another thread
+	 * already has. Every stripe is locked, and the chains are copied into
+	 * new nodes so that readers still walking the old table are not
+	 * disturbed.
+	 */
+	private void grow() {
+		lockAll();
+		try {
+			AtomicReferenceArray<Node> old = table;
+			int length = old.length();
+			for (int s = 0; s < STRIPES; ++s) {
+				while (tooFull(counts.get(s), length)) length *= 2;
+			}
+			if (length == old.length()) return;
+			AtomicReferenceArray<Node> t = new AtomicReferenceArray<Node>(length);
+			for (int i = 0; i < old.length(); ++i) {
+				for (Node n = old.get(i); n != null; n = n.next) {
+					int j = hash(n.key) & (length - 1);
+					t.set(j, new Node(n.key, n.terrain, t.get(j)));
+				}
+			}
+			table = t;
+			assert wellFormed() : "at end of grow";
+		} finally {
+			unlockAll();
+		}
+	}
+
+	@Override  // required for functionality
+	public boolean add(HexTile e) {
+		if (e == null) throw new NullPointerException("HexTile must not be null");
+		if (contains(e)) return false;
+		return put(e.getLocation(), e.getTerrain()) != e.getTerrain();
+	}
+
+	/**
+	 * Remove the tile at a location, holding the lock of its stripe.
+	 * @param l    location, must not be null
+	 * @param t    terrain that must be there, or null to remove any
+	 * @return     terrain removed, or null if nothing was removed
+	 */
+	private Terrain remove(HexCoordinate l, Terrain t) {
+		int h = hash(l);
+		int s = stripe(h);
+		locks[s].lock();
+		try {
+			AtomicReferenceArray<Node> tab = table;
+			int i = h & (tab.length() - 1);
+			Node lag = null;
+			for (Node n = tab.get(i); n != null; n = n.next) {
+				if (n.key.equals(l)) {
+					Terrain result = n.terrain;
+					if (t != null && result != t) return null;
+					if (lag == null) tab.set(i, n.next);
+					else lag.next = n.next;
+					counts.set(s, counts.get(s) - 1);
+					return result;
+				}
+				lag = n;
+			}
+			return null;
+		} finally {
+			locks[s].unlock();
+		}
+	}
+
+	@Override // required for functionality
+	public boolean remove(Object o) {
+		if (!(o instanceof HexTile)) return false;
+		HexTile t = (HexTile)o;
+		return remove(t.getLocation(), t.getTerrain()) != null;
+	}
+
+	@Override  // required for functionality
+	public void clear() {
+		lockAll();
+		try {
+			table = new AtomicReferenceArray<Node>(INITIAL_CAPACITY);
+			for (int s = 0; s < STRIPES; ++s) counts.set(s, 0);
+			assert wellFormed() : "at end of clear";
+		} finally {
+			unlockAll();
+		}
+	}
+
+	/**
+	 * Return a view of this hex board as a map from hex coordinates to
+	 * terrain. It is as efficient (and as safe to share) as the hex
+	 * board itself, and put and remove are atomic.
+	 *
+	 * @return     view of ConcurrentHexBoard as map ADT.
+	 */
+	public Map<HexCoordinate,Terrain> asMap() {
+		return new MyMap();
+	}
+
+	private class MyMap extends AbstractMap<HexCoordinate,Terrain> {
+		@Override // required by Java
+		public Set<Entry<HexCoordinate, Terrain>> entrySet() {
+			return new EntrySet();
+		}
+
+		@Override // needed for functionality
+		public Terrain put(HexCoordinate key, Terrain value) {
+			if (key == null || value == null) throw new IllegalArgumentException();
+			return ConcurrentHexBoard.this.put(key, value);
+		}
+
+		@Override // needed for efficiency
+		public Terrain get(Object key) {
+			if (!(key instanceof HexCoordinate)) return null;
+			return terrainAt((HexCoordinate)key);
+		}
+
+		@Override // needed for efficiency
+		public boolean containsKey(Object key) {
+			if (!(key instanceof HexCoordinate)) return false;
+			return terrainAt((HexCoordinate)key) != null;
+		}
+
+		@Override // needed for efficiency
+		public Terrain remove(Object key) {
+			if (!(key instanceof HexCoordinate)) return null;
+			return ConcurrentHexBoard.this.remove((HexCoordinate)key, null);
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Entry<HexCoordinate,Terrain>> {
+
+		@Override // required by Java
+		public Iterator<Entry<HexCoordinate, Terrain>> iterator() {
+			return new EntrySetIterator();
+		}
+
+		@Override // required by Java
+		public int size() {
+			return ConcurrentHexBoard.this.size();
+		}
+
+		@Override // required for efficiency
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry<?,?>)) return false;
+			Entry<?,?> entry = (Entry<?,?>)o;
+			if (!(entry.getKey() instanceof HexCoordinate)) return false;
+			HexCoordinate h = (HexCoordinate)entry.getKey();
+			if (!(entry.getValue() instanceof Terrain)) return false;
+			Terrain t = (Terrain)entry.getValue();
+			return terrainAt(h) == t;
+		}
+
+		@Override // required for efficiency
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry<?,?>)) return false;
+			Entry<?,?> entry = (Entry<?,?>)o;
+			if (!(entry.getKey() instanceof HexCoordinate)) return false;
+			HexCoordinate h = (HexCoordinate)entry.getKey();
+			if (!(entry.getValue() instanceof Terrain)) return false;
+			Terrain t = (Terrain)entry.getValue();
+			return ConcurrentHexBoard.this.remove(h, t) != null;
+		}
+	}
+
+	/**
+	 * An entry returned by an iterator: it remembers the terrain seen,
+	 * and setting it writes through to the board.
+	 */
+	private class MyEntry extends AbstractEntry<HexCoordinate,Terrain> {
+		private final HexCoordinate key;
+		private Terrain value;
+
+		MyEntry(HexCoordinate k, Terrain v) {
+			key = k;
+			value = v;
+		}
+
+		@Override
+		public HexCoordinate getKey() {
+			return key;
+		}
+
+		@Override
+		public Terrain getValue() {
+			return value;
+		}
+
+		@Override
+		public Terrain setValue(Terrain v) {
+			if (v == null) throw new IllegalArgumentException("can't have a null terrain!");
+			Terrain result = value;
+			put(key, v);
+			value = v;
+			return result;
+		}
+	}
+
+	private class MyIterator implements Iterator<HexTile> {
+		private EntrySetIterator it;
+
+		MyIterator() {
+			it = new EntrySetIterator();
+		}
+
+		@Override // Required by Java
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override // Required by Java
+		public HexTile next() {
+			Node n = it.advance();
+			return new HexTile(it.terrain, n.key);
+		}
+
+		@Override //Required for functionality
+		public void remove() {
+			it.remove();
+		}
+	}
+
+	/**
+	 * A weakly consistent iterator: it walks the table as it was when
+	 * the iterator was created, finding the next node ahead of time.
+	 */
+	private class EntrySetIterator implements Iterator<Entry<HexCoordinate,Terrain>> {
+		private final AtomicReferenceArray<Node> tab = table;
+		private int index = -1;    // chain of the next node
+		private Node pending;      // next node to return, or null if none
+		private Node current;      // last node returned, or null
+		Terrain terrain;           // terrain of the last node returned
+
+		EntrySetIterator() {
+			findNext(null);
+		}
+
+		private void findNext(Node n) {
+			pending = n == null ? null : n.next;
+			while (pending == null && ++index < tab.length()) {
+				pending = tab.get(index);
+			}
+		}
+
+		@Override // required by Java
+		public boolean hasNext() {
+			return pending != null;
+		}
+
+		/**
+		 * Move to the next node.
+		 * @return the node
+		 */
+		Node advance() {
+			if (pending == null) throw new NoSuchElementException("Exhausted");
+			current = pending;
+			terrain = current.terrain;
+			findNext(current);
+			return current;
+		}
+
+		@Override // required by Java
+		public Entry<HexCoordinate,Terrain> next() {
+			Node n = advance();
+			return new MyEntry(n.key, terrain);
+		}
+
+		@Override // required for functionality
+		public void remove() {
+			if (current == null) throw new IllegalStateException("Remove can only be called a single time following next()");
+			ConcurrentHexBoard.this.remove(current.key, terrain);
+			current = null;
+		}
+	}
+}
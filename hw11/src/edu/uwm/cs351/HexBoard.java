@@ -1,15 +1,21 @@
 package edu.uwm.cs351;
 
+import java.util.AbstractCollection;
 import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.AbstractSet;
+import java.util.Collection;
 import java.util.ConcurrentModificationException;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
 
 import java.util.Set;
 import java.util.Stack;
+import java.util.function.Predicate;
 
 import edu.uwm.cs.util.AbstractEntry;
 import edu.uwm.cs.util.Primes;
@@ -69,6 +75,20 @@ public class HexBoard extends AbstractSet<HexTile> {
 	private int size;
 	private int version;
 	
+	// incremental resizing: while oldArray is not null, the chains
+	// from index "migrated" on have not been moved to the new array yet
+	private boolean incremental;
+	private Node[] oldArray;
+	private int migrated;
+	
+	private static final int MIGRATE_PER_ADD = 4;
+	
+	// the array grows when it is 3/4 full, and shrinks (to be 3/8 full) 
+	// when it is less than 3/16 full, so that a few adds and removes 
+	// after a resize cannot cause another one
+	private static final double MAX_LOAD = 0.75;
+	private static final double MIN_LOAD = MAX_LOAD / 4;
+	
 	private static boolean doReport = true; 
 	private static boolean report(String s) {
 		if (doReport) System.err.println("Invariant error: " + s);
@@ -85,22 +105,86 @@ public class HexBoard extends AbstractSet<HexTile> {
 	}
 
 	private void ensureCapacity(int minimumCapacity) {
-	    if (minimumCapacity < (array.length * 0.75)) return;
+	    if (minimumCapacity < (array.length * MAX_LOAD)) return;
+	    finishMigration();
 	    int newCapacity = Primes.nextPrime(array.length * 2);
+	    while (minimumCapacity >= newCapacity * MAX_LOAD) newCapacity = Primes.nextPrime(newCapacity * 2);
 	    Node[] newArray = new Node[newCapacity];
+	    if (incremental) {
+	        oldArray = array;
+	        migrated = 0;
+	        array = newArray;
+	        return;
+	    }
 	    for (int i = 0; i < array.length; ++i) {
-            Node n = array[i];
-            while (n != null) {
-                int newIndex = hash(n.getKey(), newCapacity);
-                Node next = n.next;
-                n.next = newArray[newIndex];
-                newArray[newIndex] = n;
-                n = next;
-            }
+	        moveChain(array[i], newArray);
         }
 	    array = newArray;
 	}
 	
+	/**
+	 * Move the tiles into a smaller array if the array has become 
+	 * sparse. This is always done at once, even in incremental mode.
+	 */
+	private void shrinkIfSparse() {
+	    if (array.length == 7 || size >= array.length * MIN_LOAD) return;
+	    finishMigration();
+	    int newCapacity = Math.max(7, Primes.nextPrime((int)(size / (MAX_LOAD / 2))));
+	    Node[] newArray = new Node[newCapacity];
+	    for (int i = 0; i < array.length; ++i) {
+	        moveChain(array[i], newArray);
+	    }
+	    array = newArray;
+	}
+	
+	/**
+	 * Move every node of a chain into the proper chains of an array.
+	 */
+	private void moveChain(Node n, Node[] newArray) {
+        while (n != null) {
+            int newIndex = hash(n.getKey(), newArray.length);
+            Node next = n.next;
+            n.next = newArray[newIndex];
+            newArray[newIndex] = n;
+            n = next;
+        }
+	}
+	
+	/**
+	 * Move up to the given number of chains from the old array into the 
+	 * new one, forgetting the old array once it is empty. The old array 
+	 * is twice as small as the new one, so moving a few chains for every 
+	 * tile added finishes long before the new array is full.
+	 */
+	private void migrate(int chains) {
+	    if (oldArray == null) return;
+	    for (; chains > 0 && migrated < oldArray.length; --chains) {
+	        moveChain(oldArray[migrated], array);
+	        oldArray[migrated++] = null;
+	    }
+	    if (migrated == oldArray.length) oldArray = null;
+	}
+	
+	private void finishMigration() {
+	    if (oldArray != null) migrate(oldArray.length);
+	}
+	
+	/**
+	 * Return the node for a location, looking in the old array too if 
+	 * the board is being resized.
+	 */
+	private Node findNode(HexCoordinate l) {
+		for (Node n = array[hash(l)]; n != null; n = n.next) {
+		    if (n.getKey().equals(l)) return n;
+		}
+		if (oldArray != null) {
+		    for (Node n = oldArray[hash(l, oldArray.length)]; n != null; n = n.next) {
+		        if (n.getKey().equals(l)) return n;
+		    }
+		}
+		return null;
+	}
+	
 	/**
 	 * HexBoard invariant:
 	 * <ol>
@@ -110,6 +194,10 @@ public class HexBoard extends AbstractSet<HexTile> {
 	 * <li>The array is neither too full nor too empty;</li>
 	 * <li>Every entry is in the correct chain;</li>
 	 * <li>The chains contain no duplicates (which also prevents loops)</li>
+	 * <li>While resizing incrementally, the old array also has a prime 
+	 * length, the chains before "migrated" are empty, every other 
+	 * entry is in the correct chain of the old array, and no location 
+	 * is in both arrays.</li>
 	 * </ol>
 	 * @return
 	 */
@@ -129,9 +217,31 @@ public class HexBoard extends AbstractSet<HexTile> {
 		        ++count;
 		    }
 		}
+		if (oldArray != null) {
+		    if (!Primes.isPrime(oldArray.length)) return report("old array length must be prime.");
+		    if (migrated < 0 || migrated > oldArray.length) return report("migrated index out of range: " + migrated);
+		    for (int i = 0; i < oldArray.length; ++i) {
+		        Stack<HexCoordinate> bucket = new Stack<HexCoordinate>();
+		        Node n = oldArray[i];
+		        if (n != null && i < migrated) return report("Chain " + i + " of the old array was not moved.");
+		        while (n != null) {
+		            if (n.tile == null) return report("Bad node found in old array.");
+		            if (hash(n.getKey(), oldArray.length) != i) return report("Bucket and hash do not match in old array.");
+		            if (bucket.contains(n.getKey())) return report("Duplicate found in bucket of old array.");
+		            for (Node m = array[hash(n.getKey())]; m != null; m = m.next) {
+		                if (m.getKey().equals(n.getKey())) return report("Duplicate found in both arrays.");
+		            }
+		            bucket.push(n.getKey());
+		            n = n.next;
+		            ++count;
+		            if (count > size) return report("Size incorrectly represents the number of entries.");
+		        }
+		    }
+		}
 		if (count != size) return report("Size incorrectly represents the number of entries.");
         if ((size == 0) && (array.length != 7)) return report("The array is too empty.");
-        if (size >= (array.length * 0.75)) return report("The array is too full.");
+        if ((size == 0) && (oldArray != null)) return report("An empty board is being resized.");
+        if (size >= (array.length * MAX_LOAD)) return report("The array is too full.");
         return true;
 	}
 	
@@ -156,12 +266,28 @@ public class HexBoard extends AbstractSet<HexTile> {
 	 */
 	public Terrain terrainAt(HexCoordinate l) {
 		assert wellFormed() : "in terrainAt";
-		Node n = array[hash(l)];
-		while (n != null) {
-		    if (n.getKey().equals(l)) return n.getValue();
-		    n = n.next;
-		}
-		return null;
+		Node n = findNode(l);
+		return n == null ? null : n.getValue();
+	}
+	
+	/**
+	 * Choose how the table grows when it becomes too full. Normally every 
+	 * chain is moved to a larger array at once, which makes one add 
+	 * take time proportional to the size of the board. In incremental 
+	 * mode, the old array is kept alongside the new one, and each add 
+	 * moves a few more chains, so that no add takes long. Lookups look 
+	 * in both arrays until the move is finished.
+	 * 
+	 * @param b    whether to resize incrementally
+	 */
+	public void setIncrementalResize(boolean b) {
+	    assert wellFormed() : "at start of setIncrementalResize";
+	    incremental = b;
+	    if (!b && oldArray != null) {
+	        finishMigration();
+	        ++version;
+	    }
+	    assert wellFormed() : "at end of setIncrementalResize";
 	}
 
 	@Override // required by Java
@@ -191,17 +317,15 @@ public class HexBoard extends AbstractSet<HexTile> {
         assert wellFormed() : "at start of add";
         if (e == null) throw new NullPointerException("HexTile must not be null");
         if (contains(e)) return false;
-        if (terrainAt(e.getLocation()) == null) {
+        Node n = findNode(e.getLocation());
+        if (n == null) {
             ensureCapacity(size + 1);
             array[hash(e.getLocation())] = new Node(e, array[hash(e.getLocation())]);
             ++size;
         } else {
-            Node n = array[hash(e.getLocation())];
-            while (n != null) {
-                if (n.getKey().equals(e.getLocation())) n.setValue(e.getTerrain());
-                n = n.next;
-            }
+            n.setValue(e.getTerrain());
         }
+        migrate(MIGRATE_PER_ADD);
         ++version;
         assert wellFormed() : "at end of add";
         return true;
@@ -211,18 +335,41 @@ public class HexBoard extends AbstractSet<HexTile> {
     @Override // required for functionality
     public boolean remove(Object o) {
         assert wellFormed() : "in remove()";
+        if (!removeTile(o)) return false;
+        shrinkIfSparse();
+        assert wellFormed() : "at end of remove";
+        return true;
+    }
+    
+    /**
+     * Remove a tile without shrinking the array, so that an iterator 
+     * removing it does not lose its place.
+     * @return whether the tile was found
+     */
+    private boolean removeTile(Object o) {
         if (!(o instanceof HexTile)) return false;
         HexTile t = (HexTile)o;
-        int i = hash(t.getLocation());
+        if (!removeFrom(array, t) && (oldArray == null || !removeFrom(oldArray, t))) return false;
+        --size;
+        ++version;
+        if (size == 0) {
+            array = new Node[7];
+            oldArray = null;
+        }
+        return true;
+    }
+    
+    /**
+     * Unlink the node for a tile from its chain in the given array.
+     * @return whether the tile was found
+     */
+    private boolean removeFrom(Node[] a, HexTile t) {
+        int i = hash(t.getLocation(), a.length);
         Node lag = null;
-        for (Node n = array[i]; n != null; ) {
+        for (Node n = a[i]; n != null; ) {
             if (n.tile.equals(t)) {
                 if (lag != null) lag.next = n.next;
-                else array[i] = n.next;
-                --size;
-                ++version;
-                if (size == 0) array = new Node[7];
-                assert wellFormed() : "at end of remove";
+                else a[i] = n.next;
                 return true;
             }
             lag = n;
@@ -231,11 +378,84 @@ public class HexBoard extends AbstractSet<HexTile> {
         return false;
     }
 
+    @Override // required for efficiency
+    public boolean addAll(Collection<? extends HexTile> c) {
+        assert wellFormed() : "at start of addAll";
+        if (c == this) return false;
+        boolean changed = false;
+        int remaining = c.size();
+        for (HexTile t : c) {
+            --remaining;
+            if (add(t) && !changed) {
+                changed = true;
+                // so the rest don't grow the array, but without counting 
+                // on every one being new: the input may repeat the board
+                ensureCapacity(Math.max(size, remaining));
+            }
+        }
+        assert wellFormed() : "at end of addAll";
+        return changed;
+    }
+    
+    @Override // required for efficiency
+    public boolean removeAll(Collection<?> c) {
+        assert wellFormed() : "at start of removeAll";
+        boolean changed = false;
+        if (c.size() < size) {
+            for (Object o : c) {
+                if (removeTile(o)) changed = true;
+            }
+            shrinkIfSparse();
+        } else {
+            changed = removeNodes(n -> c.contains(n.tile));
+        }
+        assert wellFormed() : "at end of removeAll";
+        return changed;
+    }
+    
+    @Override // required for efficiency
+    public boolean retainAll(Collection<?> c) {
+        assert wellFormed() : "at start of retainAll";
+        boolean changed = removeNodes(n -> !c.contains(n.tile));
+        assert wellFormed() : "at end of retainAll";
+        return changed;
+    }
+    
+    @Override // required for efficiency
+    public boolean removeIf(Predicate<? super HexTile> filter) {
+        assert wellFormed() : "at start of removeIf";
+        if (filter == null) throw new NullPointerException("filter is null");
+        boolean changed = removeNodes(n -> filter.test(n.tile));
+        assert wellFormed() : "at end of removeIf";
+        return changed;
+    }
+    
+    /**
+     * Remove the nodes that pass a test without shrinking the array, 
+     * and then shrink it once if it has become sparse. Bulk removals, 
+     * including those through the map views, come here so that they 
+     * do not leave behind a mostly empty array.
+     * @return whether any node was removed
+     */
+    private boolean removeNodes(Predicate<Node> p) {
+        boolean changed = false;
+        for (EntrySetIterator it = new EntrySetIterator(); it.hasNext(); ) {
+            it.next();
+            if (p.test(it.current)) {
+                it.remove();
+                changed = true;
+            }
+        }
+        shrinkIfSparse();
+        return changed;
+    }
+
     @Override  // required for functionality
     public void clear() {
         assert wellFormed() : "at start of clear";
         if (isEmpty()) return;
         array = new Node[7];
+        oldArray = null;
         size = 0;
         ++version;
         assert wellFormed() : "at end of clear";
@@ -284,7 +504,88 @@ public class HexBoard extends AbstractSet<HexTile> {
 			Terrain t = terrainAt(h);
 			if (t != null) HexBoard.this.remove(new HexTile(t,h));
 			return t;
-		}		
+		}
+		
+		@Override // needed for efficiency
+		public Set<HexCoordinate> keySet() {
+			return new KeySet();
+		}
+		
+		@Override // needed for efficiency
+		public Collection<Terrain> values() {
+			return new Values();
+		}
+	}
+	
+	private class KeySet extends AbstractSet<HexCoordinate> {
+		@Override // required by Java
+		public Iterator<HexCoordinate> iterator() {
+			Iterator<Entry<HexCoordinate,Terrain>> it = new EntrySetIterator();
+			return new Iterator<HexCoordinate>() {
+				public boolean hasNext() { return it.hasNext(); }
+				public HexCoordinate next() { return it.next().getKey(); }
+				public void remove() { it.remove(); }
+			};
+		}
+
+		@Override // required by Java
+		public int size() {
+			return HexBoard.this.size();
+		}
+
+		@Override // required for efficiency
+		public boolean contains(Object o) {
+			return o instanceof HexCoordinate && terrainAt((HexCoordinate)o) != null;
+		}
+
+		@Override // required for efficiency
+		public boolean remove(Object o) {
+			return asMap().remove(o) != null;
+		}
+
+		@Override // required for efficiency
+		public boolean removeIf(Predicate<? super HexCoordinate> filter) {
+			if (filter == null) throw new NullPointerException("filter is null");
+			return removeNodes(n -> filter.test(n.getKey()));
+		}
+
+		@Override // required for efficiency
+		public boolean retainAll(Collection<?> c) {
+			return removeNodes(n -> !c.contains(n.getKey()));
+		}
+	}
+	
+	private class Values extends AbstractCollection<Terrain> {
+		@Override // required by Java
+		public Iterator<Terrain> iterator() {
+			Iterator<Entry<HexCoordinate,Terrain>> it = new EntrySetIterator();
+			return new Iterator<Terrain>() {
+				public boolean hasNext() { return it.hasNext(); }
+				public Terrain next() { return it.next().getValue(); }
+				public void remove() { it.remove(); }
+			};
+		}
+
+		@Override // required by Java
+		public int size() {
+			return HexBoard.this.size();
+		}
+
+		@Override // required for efficiency
+		public boolean removeIf(Predicate<? super Terrain> filter) {
+			if (filter == null) throw new NullPointerException("filter is null");
+			return removeNodes(n -> filter.test(n.getValue()));
+		}
+
+		@Override // required for efficiency
+		public boolean removeAll(Collection<?> c) {
+			return removeNodes(n -> c.contains(n.getValue()));
+		}
+
+		@Override // required for efficiency
+		public boolean retainAll(Collection<?> c) {
+			return removeNodes(n -> !c.contains(n.getValue()));
+		}
 	}
 	
 	private class EntrySet extends AbstractSet<Entry<HexCoordinate,Terrain>> {
@@ -319,7 +620,18 @@ public class HexBoard extends AbstractSet<HexTile> {
 			if (!(entry.getValue() instanceof Terrain)) return false;
 			Terrain t = (Terrain)entry.getValue();
 			return HexBoard.this.remove(new HexTile(t,h));
-		}		
+		}
+
+		@Override // required for efficiency
+		public boolean removeIf(Predicate<? super Entry<HexCoordinate,Terrain>> filter) {
+			if (filter == null) throw new NullPointerException("filter is null");
+			return removeNodes(n -> filter.test(n));
+		}
+
+		@Override // required for efficiency
+		public boolean retainAll(Collection<?> c) {
+			return removeNodes(n -> !c.contains(n));
+		}
 	}
 		
 	private class MyIterator implements Iterator<HexTile> {
@@ -346,50 +658,84 @@ public class HexBoard extends AbstractSet<HexTile> {
 		}
 	}
 	
+	/**
+	 * The iterator finds the next node as soon as it returns one, so 
+	 * that hasNext() does not scan the array again; each run of empty 
+	 * chains is passed over only once.
+	 */
 	private class EntrySetIterator implements Iterator<Entry<HexCoordinate,Terrain>> {
 		private int index;
 		private Node current;
+		private int nextIndex;  // chain of the next node
+		private Node pending;   // next node to return, or null if none
 		private boolean canRemove;
 		private int myVersion;
 	    
 		private boolean wellFormed() {
 			if (!HexBoard.this.wellFormed()) return false;
-			// OPTIONAL: define an invariant on the iterator
-			// (Only check if the iterator is not stale!)
+			if (version != myVersion) return true;
+			if (pending != null) {
+			    if (nextIndex < 0 || nextIndex >= chains()) return report("next chain out of range: " + nextIndex);
+			    Node n = chain(nextIndex);
+			    while (n != null && n != pending) n = n.next;
+			    if (n == null) return report("next node is not in its chain");
+			}
+			if (canRemove && current == null) return report("nothing to remove");
 			return true;
 		}
 		
 		private void checkVersion() {
             if (version != myVersion) throw new ConcurrentModificationException("stale");
         }
+		
+		/**
+		 * Return the chain at an index that runs through the new array 
+		 * and then through the old array, if the board is being resized.
+		 */
+		private Node chain(int i) {
+		    if (i < array.length) return array[i];
+		    return oldArray[i - array.length];
+		}
+		
+		private int chains() {
+		    return array.length + (oldArray == null ? 0 : oldArray.length);
+		}
+
+		/**
+		 * Find the node after the current one. Removing the current 
+		 * node leaves its link alone, so the node found stays next.
+		 */
+		private void findNext() {
+		    pending = current == null ? null : current.next;
+		    nextIndex = index;
+		    int n = chains();
+		    while (pending == null && ++nextIndex < n) {
+		        pending = chain(nextIndex);
+		    }
+		}
 
 		private EntrySetIterator() {
 			index = -1;
 			current = null;
 			canRemove = false;
 			myVersion = version;
+			findNext();
 			assert wellFormed();
 		}
 		
 		@Override // required by Java
 		public boolean hasNext() {
 		    checkVersion(); 
-		    if ((current != null) && (current.next != null)) return true;
-	        for (int i = index + 1; i < array.length; ++i) {
-	            if (array[i] != null) return true;
-	        }
-			return false;
+			return pending != null;
 		}
 
 		@Override // required by Java
 		public Entry<HexCoordinate,Terrain> next() {
 		    checkVersion();
-		    if (!hasNext()) throw new NoSuchElementException("Exhausted");
-			if (current != null) current = current.next;
-			while (current == null) {
-			    ++index;
-			    current = array[index];
-			}
+		    if (pending == null) throw new NoSuchElementException("Exhausted");
+		    current = pending;
+		    index = nextIndex;
+		    findNext();
 			canRemove = true;
 			return current;
 		}
@@ -398,9 +744,10 @@ public class HexBoard extends AbstractSet<HexTile> {
 		public void remove() {
 		    checkVersion();
 			if (!canRemove) throw new IllegalStateException("Remove can only be called a single time following next()");
-			HexBoard.this.remove(current.tile);
+			removeTile(current.tile);
 			++myVersion;
 			canRemove = false;
+			assert wellFormed() : "at end of iterator remove";
 		}
 	}
 	
@@ -672,5 +1019,154 @@ public class HexBoard extends AbstractSet<HexTile> {
 			n1.next = n7x;
 			assertWellFormed(false);
 		}
+
+		
+		public void testP() {
+			Node n1 = n(h1,Terrain.CITY,null);
+			Node n2 = n(h2,Terrain.WATER,null);
+			self.oldArray = new Node[7];
+			self.array = new Node[17];
+			self.oldArray[3] = n1;
+			self.array[3] = n2;
+			self.size = 2;
+			assertWellFormed(true);
+			self.migrated = 4;
+			assertWellFormed(false);
+			self.migrated = 3;
+			assertWellFormed(true);
+			self.migrated = 8;
+			assertWellFormed(false);
+			self.migrated = 0;
+			self.oldArray = new Node[8];
+			self.oldArray[3] = n1;
+			assertWellFormed(false);
+		}
+		
+		public void testQ() {
+			Node n1 = n(h1,Terrain.CITY,null);
+			Node n2 = n(h2,Terrain.WATER,null);
+			self.oldArray = new Node[7];
+			self.array = new Node[17];
+			self.oldArray[3] = n1;
+			self.array[3] = n(h1,Terrain.WATER,null);
+			self.size = 2;
+			assertWellFormed(false);
+			self.array[3] = null;
+			self.oldArray[3] = n2;
+			self.size = 1;
+			assertWellFormed(false);
+			self.oldArray[3] = null;
+			self.oldArray[6] = n2;
+			assertWellFormed(true);
+			self.size = 0;
+			assertWellFormed(false);
+			self.oldArray[6] = null;
+			self.array = new Node[7];
+			assertWellFormed(false);
+		}
+
+		
+		private HexTile tile(int i) {
+			return ht(Terrain.values()[i % Terrain.values().length],h(i % 100, i / 100));
+		}
+		
+		public void testR() {
+			self = new HexBoard();
+			for (int i=0; i < 1000; ++i) self.add(tile(i));
+			int big = self.array.length;
+			for (int i=0; i < 900; ++i) self.remove(tile(i));
+			assertTrue(self.array.length < big);
+			assertTrue(self.size >= self.array.length * MIN_LOAD);
+			assertWellFormed(true);
+			// a few more adds and removes do not resize again
+			int length = self.array.length;
+			self.remove(tile(900));
+			self.add(tile(900));
+			self.add(tile(0));
+			self.remove(tile(0));
+			assertEquals(length,self.array.length);
+		}
+		
+		public void testS() {
+			self = new HexBoard();
+			for (int i=0; i < 1000; ++i) self.add(tile(i));
+			int big = self.array.length;
+			Iterator<HexTile> it = self.iterator();
+			for (int i=0; i < 900; ++i) {
+				it.next();
+				it.remove();
+			}
+			assertEquals(big,self.array.length); // iterators don't shrink
+			assertTrue(it.hasNext());
+			HexTile t = it.next();
+			self.remove(t);
+			assertTrue(self.array.length < big);
+			assertWellFormed(true);
+		}
+		
+		public void testT() {
+			self = new HexBoard();
+			for (int i=0; i < 1000; ++i) self.add(tile(i));
+			int big = self.array.length;
+			List<HexTile> some = new ArrayList<>();
+			for (int i=0; i < 1000; i += 10) some.add(tile(i));
+			self.retainAll(some);
+			assertTrue(self.array.length < big);
+			assertWellFormed(true);
+			self.removeAll(some);
+			assertEquals(7,self.array.length);
+		}
+		
+		public void testU() {
+			self = new HexBoard();
+			HexBoard other = new HexBoard();
+			List<HexTile> again = new ArrayList<>();
+			again.add(tile(1000));
+			for (int i=0; i < 1000; ++i) {
+				self.add(tile(i));
+				other.add(tile(i));
+				again.add(tile(i));
+			}
+			other.add(tile(1000));
+			assertTrue(self.addAll(again));
+			assertEquals(1001,self.size);
+			assertEquals(other.array.length,self.array.length);
+			assertWellFormed(true);
+		}
+		
+		private HexBoard big() {
+			HexBoard result = new HexBoard();
+			for (int i=0; i < 1000; ++i) result.add(tile(i));
+			return result;
+		}
+		
+		public void testV() {
+			self = big();
+			int big = self.array.length;
+			assertTrue(self.removeIf(t -> t.getLocation().b() > 0));
+			assertEquals(100,self.size);
+			assertTrue(self.array.length < big);
+			assertWellFormed(true);
+			
+			self = big();
+			assertTrue(self.asMap().entrySet().removeIf(e -> e.getKey().b() > 0));
+			assertEquals(100,self.size);
+			assertTrue(self.array.length < big);
+			assertWellFormed(true);
+			
+			self = big();
+			Set<HexCoordinate> keep = new HashSet<>();
+			for (int i=0; i < 100; ++i) keep.add(h(i,0));
+			assertTrue(self.asMap().keySet().retainAll(keep));
+			assertEquals(100,self.size);
+			assertTrue(self.array.length < big);
+			assertWellFormed(true);
+			
+			self = big();
+			assertTrue(self.asMap().values().removeIf(t -> t != Terrain.values()[0]));
+			assertTrue(self.array.length < big);
+			assertWellFormed(true);
+			assertFalse(self.removeIf(t -> false));
+		}
 	}
 }
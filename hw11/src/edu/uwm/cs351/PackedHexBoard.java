@@ -0,0 +1,666 @@
+package edu.uwm.cs351;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import edu.uwm.cs.util.AbstractEntry;
+import junit.framework.TestCase;
+
+/**
+ * An implementation of the HexBoard ADT that stores tiles directly in
+ * arrays, with no objects for each tile.
+ * <p>
+ * {@link HexBoard} keeps a chain node for each tile, which refers to a
+ * HexTile, which refers to a HexCoordinate: three objects to allocate
+ * and follow for every tile. This board instead packs each location
+ * into a long (the first coordinate in the high 32 bits, the second in
+ * the low 32 bits) and keeps it in an array of keys, with the ordinal
+ * of its Terrain (plus one, so that zero means an empty slot) in a
+ * parallel array of bytes. Collisions are resolved by linear probing;
+ * removal shifts later entries of the cluster back, so no "deleted"
+ * markers are needed. The table grows by half when it fills rather
+ * than doubling, which would leave it as little as three-eighths full,
+ * so its length is not a power of two and the hash is scaled to the
+ * length with a multiply instead of a mask.
+ * <p>
+ * HexTiles and map entries are made only when they are asked for by
+ * the views; they refer back to the board's arrays rather than holding
+ * copies of the tiles.
+ */
+public class PackedHexBoard extends AbstractSet<HexTile> {
+
+	private static final int INITIAL_CAPACITY = 8;
+	private static final Terrain[] TERRAINS = Terrain.values();
+
+	// data structure
+	private long[] keys;
+	private byte[] terrains; // ordinal + 1, or 0 if the slot is empty
+	private int size;
+	private int version;
+
+	private static boolean doReport = true;
+	private static boolean report(String s) {
+		if (doReport) System.err.println("Invariant error: " + s);
+		else System.out.println("Detected invariant error: " + s);
+		return false;
+	}
+
+	private static long pack(HexCoordinate h) {
+		return ((long)h.a() << 32) | (h.b() & 0xFFFFFFFFL);
+	}
+
+	private static HexCoordinate unpack(long x) {
+		return new HexCoordinate((int)(x >> 32), (int)x);
+	}
+
+	private static int hash(long x, int length) {
+		x *= 0x9E3779B97F4A7C15L; // spread the bits (Fibonacci hashing)
+		return (int)(((x >>> 32) * length) >>> 32);
+	}
+
+	private int hash(long x) {
+		return hash(x, keys.length);
+	}
+
+	private static int next(int i, int length) {
+		return i + 1 == length ? 0 : i + 1;
+	}
+
+	/**
+	 * Return how many slots past slot i slot j is, wrapping around.
+	 */
+	private static int distance(int i, int j, int length) {
+		return j >= i ? j - i : j - i + length;
+	}
+
+	/**
+	 * Return the slot holding the location, or the empty slot where it
+	 * would go.
+	 */
+	private int find(long x) {
+		int i = hash(x);
+		while (terrains[i] != 0 && keys[i] != x) {
+			i = next(i, keys.length);
+		}
+		return i;
+	}
+
+	private static boolean tooFull(int size, int length) {
+		return size * 4L > length * 3L;
+	}
+
+	private void ensureCapacity(int minimumCapacity) {
+		if (!tooFull(minimumCapacity, keys.length)) return;
+		int newCapacity = keys.length + keys.length / 2;
+		while (tooFull(minimumCapacity, newCapacity)) newCapacity += newCapacity / 2;
+		long[] oldKeys = keys;
+		byte[] oldTerrains = terrains;
+		keys = new long[newCapacity];
+		terrains = new byte[newCapacity];
+		for (int i = 0; i < oldKeys.length; ++i) {
+			if (oldTerrains[i] == 0) continue;
+			int j = find(oldKeys[i]);
+			keys[j] = oldKeys[i];
+			terrains[j] = oldTerrains[i];
+		}
+	}
+
+	/**
+	 * PackedHexBoard invariant:
+	 * <ol>
+	 * <li>The arrays are not null and have the same length, which is
+	 *     at least {@value #INITIAL_CAPACITY};</li>
+	 * <li>Every terrain byte is zero or one more than an ordinal of
+	 *     Terrain;</li>
+	 * <li>The number of entries is correctly summed in the “size” field;</li>
+	 * <li>The table is neither too full nor too empty;</li>
+	 * <li>Every entry can be reached from its hash position without
+	 *     passing an empty slot;</li>
+	 * <li>No location is in the table twice.</li>
+	 * </ol>
+	 * @return true if the invariant holds
+	 */
+	private boolean wellFormed() {
+		if (keys == null || terrains == null) return report("arrays must not be null.");
+		if (keys.length != terrains.length) return report("arrays must be the same length.");
+		if (keys.length < INITIAL_CAPACITY) return report("array length too small: " + keys.length);
+		int count = 0;
+		for (int i = 0; i < keys.length; ++i) {
+			if (terrains[i] == 0) continue;
+			if (terrains[i] < 0 || terrains[i] > TERRAINS.length) return report("Bad terrain " + terrains[i] + " found in table.");
+			++count;
+			for (int j = hash(keys[i]); j != i; j = next(j, keys.length)) {
+				if (terrains[j] == 0) return report("Entry not reachable from its hash position.");
+				if (keys[j] == keys[i]) return report("Duplicate found in table.");
+			}
+		}
+		if (count != size) return report("Size incorrectly represents the number of entries.");
+		if ((size == 0) && (keys.length != INITIAL_CAPACITY)) return report("The table is too empty.");
+		if (tooFull(size, keys.length)) return report("The table is too full.");
+		return true;
+	}
+
+	private PackedHexBoard(boolean ignored) {} // used by TestInternals
+
+	/**
+	 * Create an empty hex board.
+	 */
+	public PackedHexBoard() {
+		keys = new long[INITIAL_CAPACITY];
+		terrains = new byte[INITIAL_CAPACITY];
+		size = 0;
+		version = 0;
+		assert wellFormed() : "in constructor";
+	}
+
+	/**
+	 * Return the terrain at the given coordinate or null if nothing at
+	 * this coordinate.
+	 *
+	 * @param l    hex coordinate to look for (null OK but pointless)
+	 * @return     terrain at that coordinate, or null if nothing
+	 */
+	public Terrain terrainAt(HexCoordinate l) {
+		assert wellFormed() : "in terrainAt";
+		if (l == null) return null;
+		int t = terrains[find(pack(l))];
+		return t == 0 ? null : TERRAINS[t-1];
+	}
+
+	@Override // required by Java
+	public Iterator<HexTile> iterator() {
+		assert wellFormed() : "in iterator";
+		return new MyIterator();
+	}
+
+	@Override // required by Java
+	public int size() {
+		assert wellFormed() : "in size";
+		return size;
+	}
+
+	@Override // required for efficiency
+	public boolean contains(Object o) {
+		assert wellFormed() : "in contains()";
+		if (o instanceof HexTile) {
+			HexTile h = (HexTile)o;
+			return terrainAt(h.getLocation()) == h.getTerrain();
+		}
+		return false;
+	}
+
+	/**
+	 * Put a terrain at a location, replacing any terrain there.
+	 * @return the slot the location is in
+	 */
+	private int put(long x, Terrain t) {
+		int i = find(x);
+		if (terrains[i] == 0) {
+			ensureCapacity(size + 1);
+			i = find(x);
+			keys[i] = x;
+			++size;
+		}
+		terrains[i] = (byte)(t.ordinal() + 1);
+		++version;
+		return i;
+	}
+
+	@Override  // required for functionality
+	public boolean add(HexTile e) {
+		assert wellFormed() : "at start of add";
+		if (e == null) throw new NullPointerException("HexTile must not be null");
+		if (contains(e)) return false;
+		put(pack(e.getLocation()), e.getTerrain());
+		assert wellFormed() : "at end of add";
+		return true;
+	}
+
+	/**
+	 * Empty a slot, moving later entries of its cluster back so that
+	 * every entry can still be found by probing.
+	 * @return true if an entry was moved into the emptied slot
+	 */
+	private boolean removeAt(int hole) {
+		int length = keys.length;
+		boolean filled = false;
+		--size;
+		++version;
+		if (size == 0) {
+			keys = new long[INITIAL_CAPACITY];
+			terrains = new byte[INITIAL_CAPACITY];
+			return false;
+		}
+		int i = hole;
+		for (;;) {
+			i = next(i, length);
+			if (terrains[i] == 0) break;
+			int home = hash(keys[i]);
+			// can the entry at i move back to the hole?  Only if its home
+			// is not (cyclically) between the hole and it.
+			if (distance(home, i, length) >= distance(hole, i, length)) {
+				keys[hole] = keys[i];
+				terrains[hole] = terrains[i];
+				filled = true;
+				hole = i;
+			}
+		}
+		terrains[hole] = 0;
+		return filled;
+	}
+
+	@Override // required for functionality
+	public boolean remove(Object o) {
+		assert wellFormed() : "in remove()";
+		if (!(o instanceof HexTile)) return false;
+		HexTile t = (HexTile)o;
+		int i = find(pack(t.getLocation()));
+		if (terrains[i] != t.getTerrain().ordinal() + 1) return false;
+		removeAt(i);
+		assert wellFormed() : "at end of remove";
+		return true;
+	}
+
+	@Override  // required for functionality
+	public void clear() {
+		assert wellFormed() : "at start of clear";
+		if (isEmpty()) return;
+		keys = new long[INITIAL_CAPACITY];
+		terrains = new byte[INITIAL_CAPACITY];
+		size = 0;
+		++version;
+		assert wellFormed() : "at end of clear";
+	}
+
+	/**
+	 * Return a view of this hex board as a map from hex coordinates to
+	 * terrain. It is as efficient as the hex board itself.
+	 *
+	 * @return     view of PackedHexBoard as map ADT.
+	 */
+	public Map<HexCoordinate,Terrain> asMap() {
+		return new MyMap();
+	}
+
+	private class MyMap extends AbstractMap<HexCoordinate,Terrain> {
+		@Override // required by Java
+		public Set<Entry<HexCoordinate, Terrain>> entrySet() {
+			return new EntrySet();
+		}
+
+		@Override // needed for functionality
+		public Terrain put(HexCoordinate key, Terrain value) {
+			if (key == null || value == null) throw new IllegalArgumentException();
+			assert wellFormed() : "at start of put";
+			Terrain t = terrainAt(key);
+			if (t != value) PackedHexBoard.this.put(pack(key), value);
+			assert wellFormed() : "at end of put";
+			return t;
+		}
+
+		@Override // needed for efficiency
+		public Terrain get(Object key) {
+			if (!(key instanceof HexCoordinate)) return null;
+			return terrainAt((HexCoordinate)key);
+		}
+
+		@Override // needed for efficiency
+		public boolean containsKey(Object key) {
+			if (!(key instanceof HexCoordinate)) return false;
+			return terrainAt((HexCoordinate)key) != null;
+		}
+
+		@Override // needed for efficiency
+		public Terrain remove(Object key) {
+			if (!(key instanceof HexCoordinate)) return null;
+			HexCoordinate h = (HexCoordinate)key;
+			Terrain t = terrainAt(h);
+			if (t != null) PackedHexBoard.this.remove(new HexTile(t,h));
+			return t;
+		}
+	}
+
+	private class EntrySet extends AbstractSet<Entry<HexCoordinate,Terrain>> {
+
+		@Override // required by Java
+		public Iterator<Entry<HexCoordinate, Terrain>> iterator() {
+			return new EntrySetIterator();
+		}
+
+		@Override // required by Java
+		public int size() {
+			return PackedHexBoard.this.size();
+		}
+
+		@Override // required for efficiency
+		public boolean contains(Object o) {
+			if (!(o instanceof Entry<?,?>)) return false;
+			Entry<?,?> entry = (Entry<?,?>)o;
+			if (!(entry.getKey() instanceof HexCoordinate)) return false;
+			HexCoordinate h = (HexCoordinate)entry.getKey();
+			if (!(entry.getValue() instanceof Terrain)) return false;
+			Terrain t = (Terrain)entry.getValue();
+			return terrainAt(h) == t;
+		}
+
+		@Override // required for efficiency
+		public boolean remove(Object o) {
+			if (!(o instanceof Entry<?,?>)) return false;
+			Entry<?,?> entry = (Entry<?,?>)o;
+			if (!(entry.getKey() instanceof HexCoordinate)) return false;
+			HexCoordinate h = (HexCoordinate)entry.getKey();
+			if (!(entry.getValue() instanceof Terrain)) return false;
+			Terrain t = (Terrain)entry.getValue();
+			return PackedHexBoard.this.remove(new HexTile(t,h));
+		}
+	}
+
+	/**
+	 * An entry that refers to a location in the table rather than
+	 * holding a tile. Since removing other entries can move the
+	 * location to another slot, the slot is checked before it is used.
+	 */
+	private class SlotEntry extends AbstractEntry<HexCoordinate,Terrain> {
+		private final long key;
+		private int slot;
+
+		SlotEntry(int i) {
+			key = keys[i];
+			slot = i;
+		}
+
+		private int slot() {
+			if (slot >= keys.length || terrains[slot] == 0 || keys[slot] != key) slot = find(key);
+			return slot;
+		}
+
+		@Override
+		public HexCoordinate getKey() {
+			return unpack(key);
+		}
+
+		@Override
+		public Terrain getValue() {
+			int t = terrains[slot()];
+			return t == 0 ? null : TERRAINS[t-1];
+		}
+
+		@Override
+		public Terrain setValue(Terrain v) {
+			if (v == null) throw new IllegalArgumentException("can't have a null terrain!");
+			int i = slot();
+			if (terrains[i] == 0) throw new IllegalStateException("entry has been removed");
+			Terrain result = TERRAINS[terrains[i]-1];
+			terrains[i] = (byte)(v.ordinal() + 1);
+			return result;
+		}
+	}
+
+	private class MyIterator implements Iterator<HexTile> {
+		private EntrySetIterator it;
+
+		MyIterator() {
+			it = new EntrySetIterator();
+		}
+
+		@Override // Required by Java
+		public boolean hasNext() {
+			return it.hasNext();
+		}
+
+		@Override // Required by Java
+		public HexTile next() {
+			int i = it.advance();
+			return new HexTile(TERRAINS[terrains[i]-1], unpack(keys[i]));
+		}
+
+		@Override //Required for functionality
+		public void remove() {
+			it.remove();
+		}
+	}
+
+	/**
+	 * Iterate over the slots of the table in probe order, starting just
+	 * after an empty slot. Then removing an entry can only move an entry
+	 * not yet visited back into the emptied slot, and never one already
+	 * visited, so the iterator just looks at that slot again.
+	 */
+	private class EntrySetIterator implements Iterator<Entry<HexCoordinate,Terrain>> {
+		private int start;     // an empty slot
+		private int offset;    // slots after start visited so far
+		private boolean canRemove;
+		private int myVersion;
+
+		private boolean wellFormed() {
+			if (!PackedHexBoard.this.wellFormed()) return false;
+			if (version != myVersion) return true;
+			if (terrains[start] != 0) return report("iterator must start after an empty slot");
+			if (offset < 0 || offset >= keys.length) return report("iterator offset out of range: " + offset);
+			if (canRemove && offset == 0) return report("nothing to remove");
+			return true;
+		}
+
+		private void checkVersion() {
+			if (version != myVersion) throw new ConcurrentModificationException("stale");
+		}
+
+		private int slot(int off) {
+			int i = start + off;
+			return i >= keys.length ? i - keys.length : i;
+		}
+
+		private EntrySetIterator() {
+			start = 0;
+			while (terrains[start] != 0) ++start;
+			offset = 0;
+			canRemove = false;
+			myVersion = version;
+			assert wellFormed();
+		}
+
+		@Override // required by Java
+		public boolean hasNext() {
+			checkVersion();
+			for (int off = offset + 1; off < keys.length; ++off) {
+				if (terrains[slot(off)] != 0) return true;
+			}
+			return false;
+		}
+
+		/**
+		 * Move to the next entry.
+		 * @return the slot of the next entry
+		 */
+		int advance() {
+			checkVersion();
+			do {
+				if (++offset >= keys.length) {
+					offset = keys.length - 1;
+					throw new NoSuchElementException("Exhausted");
+				}
+			} while (terrains[slot(offset)] == 0);
+			canRemove = true;
+			assert wellFormed();
+			return slot(offset);
+		}
+
+		@Override // required by Java
+		public Entry<HexCoordinate,Terrain> next() {
+			return new SlotEntry(advance());
+		}
+
+		@Override // required for functionality
+		public void remove() {
+			checkVersion();
+			if (!canRemove) throw new IllegalStateException("Remove can only be called a single time following next()");
+			assert PackedHexBoard.this.wellFormed() : "at start of iterator remove";
+			int oldLength = keys.length;
+			boolean refilled = removeAt(slot(offset));
+			if (keys.length != oldLength) { // board is now empty
+				start = 0;
+				offset = keys.length - 1;
+			} else if (refilled) --offset;
+			myVersion = version;
+			canRemove = false;
+			assert wellFormed() : "at end of iterator remove";
+		}
+	}
+
+	public static class TestInternals extends TestCase {
+		private PackedHexBoard self;
+
+		private void assertWellFormed(boolean val) {
+			doReport = val;
+			assertEquals(val,self.wellFormed());
+		}
+
+		private long x(int a, int b) {
+			return pack(new HexCoordinate(a,b));
+		}
+
+		private byte t(Terrain t) {
+			return (byte)(t.ordinal() + 1);
+		}
+
+		/**
+		 * Find a location with the given hash position in a table of
+		 * the given length.
+		 */
+		private long withHash(int h, int length, int after) {
+			for (int a = after+1; ; ++a) {
+				long x = x(a,0);
+				if (hash(x,length) == h) return x;
+			}
+		}
+
+		@Override
+		protected void setUp() {
+			self = new PackedHexBoard(false);
+			self.size = 0;
+			self.keys = new long[8];
+			self.terrains = new byte[8];
+			self.version = 0;
+			assertWellFormed(true);
+		}
+
+		public void testA() {
+			self.keys = null;
+			assertWellFormed(false);
+			self.keys = new long[8];
+			self.terrains = null;
+			assertWellFormed(false);
+		}
+
+		public void testB() {
+			self.keys = new long[16];
+			assertWellFormed(false);
+			self.terrains = new byte[16];
+			assertWellFormed(false); // too empty
+			self.keys = new long[12];
+			self.terrains = new byte[12];
+			assertWellFormed(false); // too empty
+			self.keys = new long[4];
+			self.terrains = new byte[4];
+			assertWellFormed(false);
+		}
+
+		public void testC() {
+			long x1 = withHash(3,8,0);
+			self.keys[3] = x1;
+			self.terrains[3] = t(Terrain.CITY);
+			assertWellFormed(false);
+			self.size = 1;
+			assertWellFormed(true);
+			self.terrains[3] = 0;
+			assertWellFormed(false);
+			self.terrains[3] = (byte)(Terrain.values().length + 1);
+			assertWellFormed(false);
+			self.terrains[3] = -1;
+			assertWellFormed(false);
+			self.terrains[3] = t(Terrain.DESERT);
+			assertWellFormed(true);
+		}
+
+		public void testD() {
+			long x1 = withHash(3,8,0);
+			self.keys[4] = x1;
+			self.terrains[4] = t(Terrain.CITY);
+			self.size = 1;
+			assertWellFormed(false); // gap at 3
+			self.keys[3] = withHash(3,8,(int)(x1 >> 32));
+			self.terrains[3] = t(Terrain.LAND);
+			self.size = 2;
+			assertWellFormed(true);
+			self.keys[3] = x1;
+			assertWellFormed(false); // duplicate
+		}
+
+		public void testE() {
+			long x1 = withHash(7,8,0);
+			long x2 = withHash(7,8,(int)(x1 >> 32));
+			self.keys[7] = x1;
+			self.terrains[7] = t(Terrain.WATER);
+			self.keys[0] = x2;
+			self.terrains[0] = t(Terrain.FOREST);
+			self.size = 2;
+			assertWellFormed(true); // wraps around
+			self.terrains[7] = 0;
+			self.size = 1;
+			assertWellFormed(false);
+		}
+
+		public void testF() {
+			int a = 0;
+			for (int i=0; i < 6; ++i) {
+				long x = withHash(i,8,a);
+				a = (int)(x >> 32);
+				self.keys[i] = x;
+				self.terrains[i] = t(Terrain.LAND);
+			}
+			self.size = 6;
+			assertWellFormed(true);
+			long x = withHash(6,8,a);
+			self.keys[6] = x;
+			self.terrains[6] = t(Terrain.LAND);
+			self.size = 7;
+			assertWellFormed(false); // too full
+		}
+
+		public void testG() {
+			long x1 = withHash(5,8,0);
+			long x2 = withHash(5,8,(int)(x1 >> 32));
+			long x3 = withHash(6,8,(int)(x2 >> 32));
+			self.keys[5] = x1;
+			self.keys[6] = x2;
+			self.keys[7] = x3;
+			self.terrains[5] = self.terrains[6] = self.terrains[7] = t(Terrain.CITY);
+			self.size = 3;
+			assertWellFormed(true);
+			assertTrue(self.removeAt(5)); // x2 moves back, then x3
+			assertWellFormed(true);
+			assertEquals(x2, self.keys[5]);
+			assertEquals(x3, self.keys[6]);
+			assertEquals(0, self.terrains[7]);
+		}
+
+		public void testH() {
+			long x1 = withHash(5,8,0);
+			long x2 = withHash(6,8,(int)(x1 >> 32));
+			self.keys[5] = x1;
+			self.keys[6] = x2;
+			self.terrains[5] = self.terrains[6] = t(Terrain.CITY);
+			self.size = 2;
+			assertFalse(self.removeAt(5)); // x2 is already at home
+			assertWellFormed(true);
+			assertEquals(x2, self.keys[6]);
+			assertEquals(0, self.terrains[5]);
+		}
+	}
+}
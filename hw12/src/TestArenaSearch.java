@@ -0,0 +1,127 @@
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.ArenaSearch;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+import edu.uwm.cs351.util.FIFOWorklist;
+import edu.uwm.cs351.util.PriorityWorklist;
+
+
+public class TestArenaSearch extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private ArenaSearch breadth, cheapest;
+	private Random r;
+	
+	private static final int WIDTH = 15;
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		c.setCost(Terrain.FOREST,2);
+		c.setCost(Terrain.CITY,3);
+		c.setCost(Terrain.MOUNTAIN,4);
+		c.setCost(Terrain.WATER,5);
+		breadth = new ArenaSearch();
+		cheapest = new ArenaSearch(c);
+		r = new Random(351);
+	}
+	
+	private void fill() {
+		for (int j=0; j < WIDTH; ++j) {
+			for (int i=0; i < WIDTH; ++i) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(3) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				b.add(new HexTile(t,h(i+j/2,j)));
+			}
+		}
+	}
+	
+	private HexCoordinate random() {
+		int j = r.nextInt(WIDTH);
+		return h(r.nextInt(WIDTH)+j/2,j);
+	}
+	
+	private void assertFromTo(HexCoordinate from, HexCoordinate to, HexPath path) {
+		HexCoordinate[] cs = path.toArray();
+		assertEquals(from,cs[0]);
+		assertEquals(to,cs[cs.length-1]);
+	}
+	
+	public void test0() {
+		assertNull(breadth.find(h(0,0),h(0,0),b));
+		assertNull(cheapest.find(h(0,0),h(1,1),b));
+		assertEquals(0,cheapest.getExpanded());
+	}
+	
+	public void test1() {
+		b.add(new HexTile(Terrain.CITY,h(1,1)));
+		b.add(new HexTile(Terrain.FOREST,h(2,1)));
+		b.add(new HexTile(Terrain.LAND,h(3,1)));
+		b.add(new HexTile(Terrain.INACCESSIBLE,h(4,1)));
+		HexPath p = cheapest.find(h(1,1),h(3,1),b);
+		assertEquals("<1,1,0> -> <2,1,1> -> <3,1,2>",p.toString());
+		assertEquals(3+4+1,c.getCost(p));
+		assertEquals(3,cheapest.getExpanded());
+		assertEquals(0,breadth.find(h(2,1),h(2,1),b).size());
+		assertNull(breadth.find(h(1,1),h(4,1),b));
+		assertNull(cheapest.find(h(4,1),h(1,1),b));
+	}
+	
+	public void testBreadth() {
+		fill();
+		Search fifo = new Search(new FIFOWorklist<HexPath>());
+		for (int i=0; i < 50; ++i) {
+			HexCoordinate from = random(), to = random();
+			HexPath expected = fifo.find(from, to, b);
+			HexPath p = breadth.find(from, to, b);
+			if (expected == null) assertNull(p);
+			else {
+				assertFromTo(from,to,p);
+				assertEquals(expected.size(),p.size());
+			}
+		}
+	}
+	
+	public void testCheapest() {
+		fill();
+		Search priority = new Search(new PriorityWorklist<HexPath>(c), c);
+		for (int i=0; i < 50; ++i) {
+			HexCoordinate from = random(), to = random();
+			HexPath expected = priority.find(from, to, b);
+			HexPath p = cheapest.find(from, to, b);
+			if (expected == null) assertNull(p);
+			else {
+				assertFromTo(from,to,p);
+				assertEquals(c.getCost(expected),c.getCost(p));
+				HexPath plain = null;
+				for (HexCoordinate h : p.toArray()) plain = new HexPath(plain,h);
+				assertEquals(c.getCost(expected),c.getCost(plain));
+			}
+		}
+	}
+	
+	public void testReuse() {
+		fill();
+		HexCoordinate from = h(0,0), to = h(WIDTH-1+(WIDTH-1)/2,WIDTH-1);
+		HexPath p1 = cheapest.find(from, to, b);
+		long bytes = cheapest.getArenaBytes();
+		assertTrue(cheapest.getNodes() >= cheapest.getExpanded());
+		HexPath p2 = cheapest.find(from, to, b);
+		assertEquals(bytes,cheapest.getArenaBytes());
+		assertEquals(c.getCost(p1),c.getCost(p2));
+	}
+}
@@ -0,0 +1,117 @@
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.TestCase;
+import edu.uwm.cs.util.DefaultEntry;
+import edu.uwm.cs351.BatchSearch;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestBatchSearch extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private Random r;
+	private List<DefaultEntry<HexCoordinate,HexCoordinate>> queries;
+	
+	private static final int WIDTH = 40;
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		c.setCost(Terrain.FOREST,2);
+		c.setCost(Terrain.WATER,5);
+		r = new Random(351);
+		for (int i=0; i < WIDTH; ++i) {
+			for (int j=0; j < WIDTH; ++j) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(3) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				b.add(new HexTile(t,h(i,j)));
+			}
+		}
+		queries = new ArrayList<DefaultEntry<HexCoordinate,HexCoordinate>>();
+	}
+	
+	private void addQuery(HexCoordinate from, HexCoordinate to) {
+		queries.add(new DefaultEntry<HexCoordinate,HexCoordinate>(from,to));
+	}
+	
+	private void assertSameAsSearch(List<HexPath> results) {
+		Search search = new Search(c);
+		assertEquals(queries.size(),results.size());
+		for (int i=0; i < queries.size(); ++i) {
+			HexPath expected = search.find(queries.get(i).getKey(), queries.get(i).getValue(), b);
+			HexPath p = results.get(i);
+			if (expected == null) assertNull(p);
+			else {
+				assertEquals(expected.toArray()[0],p.toArray()[0]);
+				assertEquals(expected.last(),p.last());
+				assertEquals(c.getCost(expected),c.getCost(p));
+			}
+		}
+	}
+	
+	public void test0() {
+		assertTrue(BatchSearch.findAll(queries, b, c).isEmpty());
+	}
+	
+	public void test1() {
+		addQuery(h(0,0),h(0,0));
+		addQuery(h(0,0),h(WIDTH,WIDTH));
+		addQuery(h(0,0),h(WIDTH-1,WIDTH-1));
+		assertSameAsSearch(BatchSearch.findAll(queries, b, c));
+	}
+	
+	public void test2() {
+		for (int i=0; i < 300; ++i) {
+			addQuery(h(r.nextInt(WIDTH),r.nextInt(WIDTH)),h(r.nextInt(WIDTH),r.nextInt(WIDTH)));
+		}
+		assertSameAsSearch(BatchSearch.findAll(queries, b, c));
+	}
+	
+	public void test3() {
+		for (int i=0; i < 100; ++i) {
+			addQuery(h(r.nextInt(WIDTH),r.nextInt(WIDTH)),h(r.nextInt(WIDTH),r.nextInt(WIDTH)));
+		}
+		ForkJoinPool pool = new ForkJoinPool(3);
+		try {
+			assertSameAsSearch(BatchSearch.findAll(queries, b, c, pool));
+		} finally {
+			pool.shutdown();
+		}
+	}
+	
+	public void test4() {
+		// the pool's threads must not keep searchers (and so the board) 
+		// once the batch is over
+		for (int i=0; i < 100; ++i) {
+			addQuery(h(r.nextInt(WIDTH),r.nextInt(WIDTH)),h(r.nextInt(WIDTH),r.nextInt(WIDTH)));
+		}
+		ForkJoinPool pool = new ForkJoinPool(2);
+		try {
+			BatchSearch.findAll(queries, b, c, pool);
+			WeakReference<HexBoard> board = new WeakReference<HexBoard>(b);
+			b = null;
+			c = null;
+			for (int i=0; i < 10 && board.get() != null; ++i) System.gc();
+			assertTrue("board still reachable after the batch", board.get() == null);
+		} finally {
+			pool.shutdown();
+		}
+	}
+}
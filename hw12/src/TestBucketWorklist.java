@@ -0,0 +1,149 @@
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.util.BucketWorklist;
+
+
+public class TestBucketWorklist extends AbstractTestWorklist<String> {
+
+	private BucketWorklist<int[]> worklist; // {id, priority}
+	
+	@Override
+	protected void initWorklist() {
+		w = new BucketWorklist<String>(String::length, 4);
+		v1 = "Hello";
+		v2 = "goodbye";
+		v3 = "null";
+		v4 = "";
+		v5 = "Foo";
+		worklist = new BucketWorklist<int[]>((p) -> p[1], 10);
+	}
+	
+	private void add(int id, int priority) {
+		worklist.add(new int[] {id, priority});
+	}
+	
+	private void assertNext(int id, int priority) {
+		assertTrue(worklist.hasNext());
+		int[] p = worklist.next();
+		assertEquals(id,p[0]);
+		assertEquals(priority,p[1]);
+	}
+	
+	public void testPriority() {
+		add(1,10);
+		add(2,12);
+		add(3,19);
+		add(4,11);
+		assertEquals(4,worklist.size());
+		assertEquals(0,worklist.getOverflow());
+		
+		assertNext(1,10);
+		assertNext(4,11);
+		add(5,15);
+		assertNext(2,12);
+		assertNext(5,15);
+		assertNext(3,19);
+		assertFalse(worklist.hasNext());
+	}
+	
+	public void testPriority2() {
+		w.add("Hello");
+		w.add("bye");
+		
+		assertEquals("bye",w.next()); // test that priority is actually used!
+		assertEquals("Hello",w.next());
+	}
+	
+	public void testWrap() {
+		add(1,5);
+		for (int i=2; i < 30; ++i) {
+			assertNext(i-1,i+3);
+			add(i,i+4);
+		}
+		assertNext(29,33);
+		assertEquals(0,worklist.getOverflow());
+		assertFalse(worklist.hasNext());
+	}
+	
+	public void testOverflowAbove() {
+		add(1,0);
+		add(2,100);
+		add(3,9);
+		assertEquals(1,worklist.getOverflow());
+		assertNext(1,0);
+		assertNext(3,9);
+		assertNext(2,100);
+		add(4,105);
+		add(5,101);
+		assertEquals(0,worklist.getOverflow());
+		assertNext(5,101);
+		assertNext(4,105);
+	}
+	
+	public void testOverflowBelow() {
+		add(1,50);
+		add(2,52);
+		assertNext(1,50);
+		add(3,40);
+		add(4,51);
+		assertEquals(1,worklist.getOverflow());
+		assertNext(3,40);
+		assertNext(4,51);
+		assertNext(2,52);
+		assertFalse(worklist.hasNext());
+	}
+	
+	public void testEmptyRestarts() {
+		add(1,50);
+		assertNext(1,50);
+		add(2,3);
+		assertEquals(0,worklist.getOverflow());
+		assertNext(2,3);
+	}
+	
+	public void testBadRange() {
+		try {
+			new BucketWorklist<String>(String::length, 0);
+			assertFalse("constructor should have thrown an exception",true);
+		} catch (RuntimeException ex) {
+			assertTrue("constructor threw wrong exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+	}
+	
+	public void testRandom() {
+		Random r = new Random(351);
+		PriorityQueue<Integer> mirror = new PriorityQueue<Integer>();
+		int id = 0;
+		for (int i=0; i < 1000; ++i) {
+			if (r.nextInt(3) > 0 || mirror.isEmpty()) {
+				int p = (mirror.isEmpty() ? 0 : mirror.peek()) + r.nextInt(15) - 2;
+				add(++id,p);
+				mirror.add(p);
+			} else {
+				assertTrue(worklist.hasNext());
+				assertEquals(mirror.remove().intValue(),worklist.next()[1]);
+			}
+			assertEquals(mirror.size(),worklist.size());
+		}
+		while (!mirror.isEmpty()) {
+			assertEquals(mirror.remove().intValue(),worklist.next()[1]);
+		}
+		assertFalse(worklist.hasNext());
+	}
+	
+	public void testPaths() {
+		BucketWorklist<HexPath> wl = new BucketWorklist<HexPath>(HexPath::size, 2);
+		HexPath p0 = new HexPath(new HexCoordinate(0,0));
+		HexPath p1 = new HexPath(p0,new HexCoordinate(1,0));
+		HexPath p2 = new HexPath(p1,new HexCoordinate(1,1));
+		wl.add(p2);
+		wl.add(p0);
+		wl.add(p1);
+		assertSame(p0,wl.next());
+		assertSame(p1,wl.next());
+		assertSame(p2,wl.next());
+	}
+}
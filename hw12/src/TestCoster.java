@@ -107,4 +107,49 @@ public class TestCoster extends TestCase {
 		assertEquals(8,coster.getCost(p5));
 		assertEquals(10,coster.getCost(p6));
 	}
+	
+	/**
+	 * Build the same path twice, once with costs carried along,
+	 * and check each prefix costs the same either way.
+	 */
+	private void assertCostedAgrees(HexCoordinate... cs) {
+		HexPath plain = new HexPath(cs[0]);
+		HexPath costed = coster.start(cs[0]);
+		assertEquals(coster.getCost(plain),coster.getCost(costed));
+		for (int i=1; i < cs.length; ++i) {
+			plain = new HexPath(plain,cs[i]);
+			costed = costed.extend(cs[i]);
+			assertEquals(plain.toString(),costed.toString());
+			assertEquals("cost of " + plain,coster.getCost(plain),coster.getCost(costed));
+		}
+	}
+	
+	public void testC6() {
+		assertCostedAgrees(c(1,1),c(2,1),c(3,1));
+		assertCostedAgrees(c(0,0),c(1,0));
+		assertCostedAgrees(c(1,0),c(0,0),c(1,1),c(2,1),c(3,2),c(3,1));
+		assertCostedAgrees(c(3,0),c(3,1),c(4,1));
+		assertCostedAgrees(c(4,1),c(3,1),c(3,0));
+	}
+	
+	public void testC7() {
+		HexPath p0 = coster.start(c(1,0));
+		HexPath p1 = p0.extend(c(2,0));
+		HexPath p2 = p1.extend(c(3,0));
+		assertEquals(1+2*4+16,coster.getCost(p2));
+		
+		coster.setCost(Terrain.WATER, 2);
+		assertEquals(1+2*2+16,coster.getCost(p2));
+		HexPath p3 = p2.extend(c(3,1));
+		assertEquals(1+2*2+2*16+1024,coster.getCost(p3));
+	}
+	
+	public void testC8() {
+		HexPathCoster other = new HexPathCoster(board);
+		HexPath p0 = coster.start(c(1,1));
+		HexPath p1 = p0.extend(c(2,1));
+		assertEquals(64+256,coster.getCost(p1));
+		assertEquals(2,other.getCost(p1));
+		assertEquals(2+2,other.getCost(other.extend(p1,c(2,2))));
+	}
 }
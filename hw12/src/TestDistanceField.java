@@ -0,0 +1,103 @@
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.DistanceField;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexDirection;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestDistanceField extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private Random r;
+	
+	private static final int WIDTH = 20;
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		c.setCost(Terrain.FOREST,2);
+		c.setCost(Terrain.CITY,3);
+		c.setCost(Terrain.MOUNTAIN,4);
+		c.setCost(Terrain.WATER,5);
+		r = new Random(351);
+	}
+	
+	private void fill() {
+		for (int i=0; i < WIDTH; ++i) {
+			for (int j=0; j < WIDTH; ++j) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(3) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				b.add(new HexTile(t,h(i+j/2,j)));
+			}
+		}
+	}
+	
+	public void test0() {
+		DistanceField f = new DistanceField(b,c,h(1,1));
+		assertEquals(h(1,1),f.getGoal());
+		assertEquals(-1,f.getCost(h(1,1)));
+		assertNull(f.getPath(h(1,1)));
+		assertNull(f.getDirection(h(1,1)));
+	}
+	
+	public void test1() {
+		b.add(new HexTile(Terrain.CITY,h(1,1)));
+		b.add(new HexTile(Terrain.FOREST,h(2,1)));
+		b.add(new HexTile(Terrain.LAND,h(3,1)));
+		DistanceField f = new DistanceField(b,c,h(1,1));
+		assertEquals(0,f.getCost(h(1,1)));
+		assertNull(f.getDirection(h(1,1)));
+		assertEquals(0,f.getPath(h(1,1)).size());
+		assertEquals(5,f.getCost(h(2,1)));
+		assertEquals(HexDirection.WEST,f.getDirection(h(2,1)));
+		assertEquals(3+4+1,f.getCost(h(3,1)));
+		assertEquals("<3,1,2> -> <2,1,1> -> <1,1,0>",f.getPath(h(3,1)).toString());
+		assertEquals(-1,f.getCost(h(4,1)));
+		assertEquals(-1,f.getCost(h(-5,1)));
+		assertNull(f.getPath(h(1,2)));
+	}
+	
+	public void test2() {
+		b.add(new HexTile(Terrain.INACCESSIBLE,h(1,1)));
+		b.add(new HexTile(Terrain.LAND,h(2,1)));
+		DistanceField f = new DistanceField(b,c,h(1,1));
+		assertEquals(-1,f.getCost(h(1,1)));
+		assertEquals(-1,f.getCost(h(2,1)));
+	}
+	
+	public void test3() {
+		fill();
+		Search search = new Search(c);
+		for (int k=0; k < 5; ++k) {
+			HexCoordinate goal = h(r.nextInt(WIDTH)+WIDTH/4,r.nextInt(WIDTH));
+			DistanceField f = new DistanceField(b,c,goal);
+			for (HexTile t : b) {
+				HexPath expected = search.find(t.getLocation(), goal, b);
+				HexPath p = f.getPath(t.getLocation());
+				if (expected == null) {
+					assertNull(p);
+					assertEquals(-1,f.getCost(t.getLocation()));
+				} else {
+					assertEquals(goal,p.last());
+					assertEquals(t.getLocation(),p.toArray()[0]);
+					assertEquals(c.getCost(expected),f.getCost(t.getLocation()));
+					assertEquals(c.getCost(expected),c.getCost(p));
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,290 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs.util.DefaultEntry;
+import edu.uwm.cs351.ArenaSearch;
+import edu.uwm.cs351.BatchSearch;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.IncrementalSearch;
+import edu.uwm.cs351.Reachability;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+import edu.uwm.cs351.util.BucketWorklist;
+import edu.uwm.cs351.util.FIFOWorklist;
+import edu.uwm.cs351.util.IndexedPriorityWorklist;
+import edu.uwm.cs351.util.PriorityWorklist;
+
+
+public class TestEfficiency extends TestCase {
+	HexBoard hb;
+	HexPathCoster coster;
+	Random r;
+	
+	@Override
+	public void setUp() {
+		hb = new HexBoard();
+		r = new Random(351);
+		try {
+			assert hb.size() == 42;
+			assertTrue(true);
+		} catch (AssertionError ex) {
+			System.err.println("You must disable assertions to run this test.");
+			System.err.println("Go to Run > Run Configurations. Select the 'Arguments' tab");
+			System.err.println("Then remove '-ea' from the VM Arguments box.");
+			assertFalse("Assertions must NOT be enabled while running efficiency tests.",true);
+		}
+		coster = new HexPathCoster(hb);
+		coster.setCost(Terrain.CITY, 3);
+		coster.setCost(Terrain.FOREST, 4);
+		coster.setCost(Terrain.MOUNTAIN, 7);
+		coster.setCost(Terrain.WATER, 10);
+	}
+	
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	/**
+	 * Fill the board with a square of random terrain, mostly land.
+	 * @param width number of tiles on each side
+	 */
+	protected void buildBoard(int width) {
+		for (int b=0; b < width; ++b) {
+			for (int i=0; i < width; ++i) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(4) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				hb.add(new HexTile(t,new HexCoordinate(i+b/2,b)));
+			}
+		}
+	}
+	
+	private static final int WIDTH = 700;
+	private static final int QUERIES = 10;
+	
+	public void testAStarExpansions() {
+		buildBoard(WIDTH);
+		Search priority = new Search(new PriorityWorklist<HexPath>(coster), coster);
+		Search aStar = new Search(coster);
+		long priorityExpanded = 0, aStarExpanded = 0;
+		for (int i=0; i < QUERIES; ++i) {
+			int b1 = r.nextInt(WIDTH), b2 = r.nextInt(WIDTH);
+			HexCoordinate from = new HexCoordinate(r.nextInt(WIDTH)+b1/2,b1);
+			HexCoordinate to = new HexCoordinate(r.nextInt(WIDTH)+b2/2,b2);
+			HexPath p1 = priority.find(from, to, hb);
+			HexPath p2 = aStar.find(from, to, hb);
+			if (p1 == null) {
+				assertNull(p2);
+				continue;
+			}
+			assertEquals(coster.getCost(p1),coster.getCost(p2));
+			priorityExpanded += priority.getExpanded();
+			aStarExpanded += aStar.getExpanded();
+		}
+		assertTrue(aStarExpanded < priorityExpanded);
+	}
+	
+	public void testBidirectionalExpansions() {
+		buildBoard(WIDTH);
+		Search fifo = new Search(new FIFOWorklist<HexPath>());
+		Search priority = new Search(new PriorityWorklist<HexPath>(coster), coster);
+		long fifoExpanded = 0, biFifoExpanded = 0, priorityExpanded = 0, biPriorityExpanded = 0;
+		for (int i=0; i < QUERIES; ++i) {
+			int b1 = r.nextInt(WIDTH), b2 = r.nextInt(WIDTH);
+			HexCoordinate from = new HexCoordinate(r.nextInt(WIDTH)+b1/2,b1);
+			HexCoordinate to = new HexCoordinate(r.nextInt(WIDTH)+b2/2,b2);
+			HexPath p1 = fifo.find(from, to, hb);
+			fifoExpanded += fifo.getExpanded();
+			HexPath p2 = fifo.findBidirectional(from, to, hb);
+			biFifoExpanded += fifo.getExpanded();
+			HexPath p3 = priority.find(from, to, hb);
+			priorityExpanded += priority.getExpanded();
+			HexPath p4 = priority.findBidirectional(from, to, hb);
+			biPriorityExpanded += priority.getExpanded();
+			if (p1 == null) {
+				assertNull(p2);
+				assertNull(p3);
+				assertNull(p4);
+				continue;
+			}
+			assertEquals(p1.size(),p2.size());
+			assertEquals(coster.getCost(p3),coster.getCost(p4));
+		}
+		assertTrue(biFifoExpanded < fifoExpanded);
+		assertTrue(biPriorityExpanded < priorityExpanded);
+	}
+	
+	private static final int BATCH = 100;
+	
+	public void testBatchScaling() {
+		buildBoard(WIDTH);
+		List<DefaultEntry<HexCoordinate,HexCoordinate>> queries = new ArrayList<DefaultEntry<HexCoordinate,HexCoordinate>>();
+		for (int i=0; i < BATCH; ++i) {
+			int b1 = r.nextInt(WIDTH), b2 = r.nextInt(WIDTH);
+			queries.add(new DefaultEntry<HexCoordinate,HexCoordinate>(
+					new HexCoordinate(r.nextInt(WIDTH)+b1/2,b1),new HexCoordinate(r.nextInt(WIDTH)+b2/2,b2)));
+		}
+		Search aStar = new Search(coster);
+		HexPath[] sequential = new HexPath[BATCH];
+		for (int i=0; i < BATCH; ++i) {
+			sequential[i] = aStar.find(queries.get(i).getKey(), queries.get(i).getValue(), hb);
+		}
+		List<HexPath> parallel = BatchSearch.findAll(queries, hb, coster);
+		for (int i=0; i < BATCH; ++i) {
+			if (sequential[i] == null) assertNull(parallel.get(i));
+			else assertEquals(coster.getCost(sequential[i]),coster.getCost(parallel.get(i)));
+		}
+	}
+	
+	public void testIndexedWorklist() {
+		buildBoard(WIDTH);
+		Search priority = new Search(new PriorityWorklist<HexPath>(coster), coster);
+		Search indexedSearch = new Search(new IndexedPriorityWorklist<HexPath>(coster,HexPath::last), coster);
+		int plainPeak = 0, indexedPeak = 0;
+		for (int i=0; i < QUERIES; ++i) {
+			int b1 = r.nextInt(WIDTH), b2 = r.nextInt(WIDTH);
+			HexCoordinate from = new HexCoordinate(r.nextInt(WIDTH)+b1/2,b1);
+			HexCoordinate to = new HexCoordinate(r.nextInt(WIDTH)+b2/2,b2);
+			HexPath p1 = priority.find(from, to, hb);
+			HexPath p2 = indexedSearch.find(from, to, hb);
+			plainPeak = Math.max(plainPeak, priority.getMetrics().getPeakWorklist());
+			indexedPeak = Math.max(indexedPeak, indexedSearch.getMetrics().getPeakWorklist());
+			if (p1 == null) assertNull(p2);
+			else assertEquals(coster.getCost(p1),coster.getCost(p2));
+		}
+		assertTrue(indexedPeak < plainPeak);
+	}
+	
+	/**
+	 * Run a cheapest-first search across a square board of the given
+	 * width, once with a heap and once with buckets.
+	 */
+	private void compareBuckets(int width) {
+		hb.clear();
+		buildBoard(width);
+		PriorityWorklist<HexPath> heap = new PriorityWorklist<HexPath>(coster);
+		BucketWorklist<HexPath> buckets = new BucketWorklist<HexPath>(coster::getCost, 2*coster.getMaximumCost()+1);
+		Search heapSearch = new Search(heap, coster);
+		Search bucketSearch = new Search(buckets, coster);
+		HexCoordinate from = new HexCoordinate(0,0);
+		HexCoordinate to = new HexCoordinate(width-1+(width-1)/2,width-1);
+		HexPath p1 = heapSearch.find(from, to, hb);
+		HexPath p2 = bucketSearch.find(from, to, hb);
+		if (p1 == null) assertNull(p2);
+		else assertEquals(coster.getCost(p1),coster.getCost(p2));
+		assertEquals(0,buckets.getOverflow());
+	}
+	
+	public void testBuckets4() {
+		compareBuckets(100);
+	}
+	
+	public void testBuckets5() {
+		compareBuckets(316);
+	}
+	
+	public void testBuckets6() {
+		compareBuckets(1000);
+	}
+	
+	public void testBuckets7() {
+		// ten million tiles need -Xmx6g or more
+		if (Runtime.getRuntime().maxMemory() < 6L*1024*1024*1024) return;
+		compareBuckets(3163);
+	}
+	
+	public void testIncrementalReplan() {
+		buildBoard(WIDTH);
+		Search priority = new Search(new PriorityWorklist<HexPath>(coster), coster);
+		IncrementalSearch incremental = new IncrementalSearch(hb, coster);
+		long fullExpanded = 0, replanExpanded = 0;
+		for (int i=0; i < QUERIES; ++i) {
+			int b1 = r.nextInt(WIDTH), b2 = r.nextInt(WIDTH);
+			HexCoordinate from = new HexCoordinate(r.nextInt(WIDTH)+b1/2,b1);
+			HexCoordinate to = new HexCoordinate(r.nextInt(WIDTH)+b2/2,b2);
+			HexPath p = incremental.find(from, to);
+			if (p == null || p.size() < 4) continue;
+			HexCoordinate blocked = p.toArray()[p.size()/2];
+			hb.asMap().put(blocked, Terrain.INACCESSIBLE);
+			incremental.tileChanged(blocked);
+			HexPath p1 = incremental.find(from, to);
+			HexPath p2 = priority.find(from, to, hb);
+			replanExpanded += incremental.getExpanded();
+			fullExpanded += priority.getExpanded();
+			if (p2 == null) assertNull(p1);
+			else assertEquals(coster.getCost(p2),coster.getCost(p1));
+		}
+		assertTrue(replanExpanded * 4 < fullExpanded);
+	}
+	
+	private static final int PIECES = 100;
+	private static final int MOVE = 20;
+	
+	public void testReachability() {
+		buildBoard(WIDTH);
+		Reachability reach = new Reachability(hb, coster);
+		HexCoordinate[] pieces = new HexCoordinate[PIECES];
+		for (int i=0; i < PIECES; ++i) {
+			int b = r.nextInt(WIDTH);
+			pieces[i] = new HexCoordinate(r.nextInt(WIDTH)+b/2,b);
+		}
+		for (int frame=0; frame < 10; ++frame) {
+			for (HexCoordinate h : pieces) reach.find(h, MOVE); // warm up
+		}
+		long start = System.nanoTime();
+		for (int frame=0; frame < 10; ++frame) {
+			for (HexCoordinate h : pieces) reach.find(h, MOVE);
+		}
+		long perFrame = (System.nanoTime() - start) / 10;
+		assertTrue(perFrame < 100000000L);
+	}
+	
+	public void testArena() {
+		buildBoard(WIDTH);
+		Search priority = new Search(new PriorityWorklist<HexPath>(coster), coster);
+		ArenaSearch arena = new ArenaSearch(coster);
+		HexCoordinate from = new HexCoordinate(0,0);
+		HexCoordinate to = new HexCoordinate(WIDTH-1+(WIDTH-1)/2,WIDTH-1);
+		HexPath p1 = priority.find(from, to, hb);
+		HexPath p2 = arena.find(from, to, hb);
+		assertEquals(coster.getCost(p1),coster.getCost(p2));
+		// each HexPath on the worklist is about 64 bytes: itself and its HexCoordinate
+		long perNode = arena.getArenaBytes() / arena.getNodes();
+		assertTrue(perNode < 48);
+	}
+	
+	public void testWeightedAStar() {
+		buildBoard(WIDTH);
+		Search aStar = new Search(coster);
+		Search weighted = new Search(coster, 1.5);
+		long aStarExpanded = 0, weightedExpanded = 0;
+		for (int i=0; i < QUERIES; ++i) {
+			int b1 = r.nextInt(WIDTH), b2 = r.nextInt(WIDTH);
+			HexCoordinate from = new HexCoordinate(r.nextInt(WIDTH)+b1/2,b1);
+			HexCoordinate to = new HexCoordinate(r.nextInt(WIDTH)+b2/2,b2);
+			HexPath p1 = aStar.find(from, to, hb);
+			HexPath p2 = weighted.find(from, to, hb);
+			aStarExpanded += aStar.getExpanded();
+			weightedExpanded += weighted.getExpanded();
+			if (p1 == null) assertNull(p2);
+			else assertTrue(coster.getCost(p2) <= weighted.getBound() * coster.getCost(p1));
+		}
+		assertTrue(weightedExpanded < aStarExpanded);
+	}
+	
+	public void testDeadline() {
+		buildBoard(WIDTH);
+		Search priority = new Search(new PriorityWorklist<HexPath>(coster), coster);
+		HexCoordinate from = new HexCoordinate(0,0);
+		HexCoordinate to = new HexCoordinate(WIDTH-1+(WIDTH-1)/2,WIDTH-1);
+		long start = System.nanoTime();
+		Search.Result result = priority.find(from, to, hb, -1, 20000000L);
+		long elapsed = System.nanoTime() - start;
+		assertFalse(result.isExact());
+		assertEquals(from,result.getPath().toArray()[0]);
+		assertTrue(elapsed < 200000000L);
+	}
+}
@@ -0,0 +1,133 @@
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.HierarchicalSearch;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestHierarchicalSearch extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private Search search;
+	private Random r;
+	
+	private static final int WIDTH = 24;
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		c.setCost(Terrain.FOREST,2);
+		c.setCost(Terrain.CITY,3);
+		c.setCost(Terrain.MOUNTAIN,4);
+		c.setCost(Terrain.WATER,5);
+		search = new Search(c);
+		r = new Random(351);
+		for (int i=0; i < WIDTH; ++i) {
+			for (int j=0; j < WIDTH; ++j) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(3) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				b.add(new HexTile(t,h(i,j)));
+			}
+		}
+	}
+	
+	private HexCoordinate random() {
+		return h(r.nextInt(WIDTH),r.nextInt(WIDTH));
+	}
+	
+	private void assertPath(HexCoordinate from, HexCoordinate to, HexPath p) {
+		HexCoordinate[] cs = p.toArray();
+		assertEquals(from,cs[0]);
+		assertEquals(to,cs[cs.length-1]);
+		for (HexCoordinate h : cs) {
+			assertNotNull(b.terrainAt(h));
+			assertTrue(b.terrainAt(h) != Terrain.INACCESSIBLE);
+		}
+	}
+	
+	private void assertAgrees(HierarchicalSearch hs, HexCoordinate from, HexCoordinate to) {
+		HexPath exact = search.find(from, to, b);
+		HexPath p = hs.find(from, to);
+		if (exact == null) {
+			assertNull(p);
+			return;
+		}
+		assertNotNull("no path from " + from + " to " + to,p);
+		assertPath(from,to,p);
+		assertTrue(c.getCost(p) >= c.getCost(exact));
+	}
+	
+	public void test0() {
+		HierarchicalSearch hs = new HierarchicalSearch(b,c,8);
+		HexCoordinate from = h(3,3);
+		b.add(new HexTile(Terrain.LAND,from));
+		hs.tileChanged(from);
+		HexPath p = hs.find(from, from);
+		assertEquals(0,p.size());
+	}
+	
+	public void test1() {
+		HierarchicalSearch hs = new HierarchicalSearch(b,c,8);
+		assertTrue(hs.getEntrances() > 0);
+		for (int i=0; i < 200; ++i) {
+			assertAgrees(hs,random(),random());
+		}
+	}
+	
+	public void test2() {
+		HierarchicalSearch hs = new HierarchicalSearch(b,c,3);
+		for (int i=0; i < 200; ++i) {
+			assertAgrees(hs,random(),random());
+		}
+	}
+	
+	public void test3() {
+		HierarchicalSearch hs = new HierarchicalSearch(b,c,5);
+		assertNull(hs.find(h(-3,-3),h(4,4)));
+		assertNull(hs.find(h(4,4),h(WIDTH,WIDTH)));
+	}
+	
+	public void test4() {
+		HierarchicalSearch hs = new HierarchicalSearch(b,c,6);
+		for (int i=0; i < 100; ++i) {
+			HexCoordinate h = random();
+			Terrain t = TERRAINS[r.nextInt(TERRAINS.length)];
+			b.asMap().put(h,t);
+			hs.tileChanged(h);
+			HierarchicalSearch fresh = new HierarchicalSearch(b,c,6);
+			HexCoordinate from = random(), to = random();
+			assertAgrees(hs,from,to);
+			HexPath p1 = hs.find(from, to);
+			HexPath p2 = fresh.find(from, to);
+			if (p2 == null) assertNull(p1);
+			else assertEquals(c.getCost(p2),c.getCost(p1));
+		}
+	}
+	
+	public void test5() {
+		HierarchicalSearch hs = new HierarchicalSearch(b,c,6);
+		// wall off a column
+		for (int j=0; j < WIDTH; ++j) {
+			HexCoordinate h = h(11,j);
+			b.asMap().put(h,Terrain.INACCESSIBLE);
+			hs.tileChanged(h);
+		}
+		assertNull(hs.find(h(0,0),h(WIDTH-1,WIDTH-1)));
+		b.asMap().put(h(11,7),Terrain.LAND);
+		hs.tileChanged(h(11,7));
+		assertAgrees(hs,h(0,0),h(WIDTH-1,WIDTH-1));
+	}
+}
@@ -0,0 +1,157 @@
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.IncrementalSearch;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+import edu.uwm.cs351.util.PriorityWorklist;
+
+
+public class TestIncrementalSearch extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private IncrementalSearch s;
+	private Search full;
+	private Random r;
+	
+	private static final int WIDTH = 12;
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		c.setCost(Terrain.FOREST,2);
+		c.setCost(Terrain.CITY,3);
+		c.setCost(Terrain.MOUNTAIN,4);
+		c.setCost(Terrain.WATER,5);
+		s = new IncrementalSearch(b,c);
+		full = new Search(new PriorityWorklist<HexPath>(c),c);
+		r = new Random(351);
+	}
+	
+	private HexCoordinate random() {
+		int j = r.nextInt(WIDTH);
+		return h(r.nextInt(WIDTH)+j/2,j);
+	}
+	
+	private void fill() {
+		for (int j=0; j < WIDTH; ++j) {
+			for (int i=0; i < WIDTH; ++i) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(3) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				b.add(new HexTile(t,h(i+j/2,j)));
+			}
+		}
+	}
+	
+	private void assertSameCost(HexCoordinate from, HexCoordinate to) {
+		HexPath expected = full.find(from, to, b);
+		HexPath p = s.find(from, to);
+		if (expected == null) {
+			assertNull(p);
+			return;
+		}
+		assertNotNull("no path from " + from + " to " + to,p);
+		HexCoordinate[] cs = p.toArray();
+		assertEquals(from,cs[0]);
+		assertEquals(to,cs[cs.length-1]);
+		assertEquals(c.getCost(expected),c.getCost(p));
+		HexPath plain = null;
+		for (HexCoordinate h : cs) plain = new HexPath(plain,h);
+		assertEquals(c.getCost(expected),c.getCost(plain));
+	}
+	
+	public void test0() {
+		assertNull(s.find(h(0,0),h(1,1)));
+		b.add(new HexTile(Terrain.LAND,h(0,0)));
+		s.tileChanged(h(0,0));
+		assertNull(s.find(h(0,0),h(1,1)));
+		assertEquals(0,s.find(h(0,0),h(0,0)).size());
+	}
+	
+	public void test1() {
+		b.add(new HexTile(Terrain.CITY,h(1,1)));
+		b.add(new HexTile(Terrain.FOREST,h(2,1)));
+		b.add(new HexTile(Terrain.LAND,h(3,1)));
+		HexPath p = s.find(h(1,1),h(3,1));
+		assertEquals("<1,1,0> -> <2,1,1> -> <3,1,2>",p.toString());
+		assertEquals(3+4+1,c.getCost(p));
+		
+		b.asMap().put(h(2,1),Terrain.INACCESSIBLE);
+		s.tileChanged(h(2,1));
+		assertNull(s.find(h(1,1),h(3,1)));
+		
+		b.add(new HexTile(Terrain.WATER,h(2,2)));
+		s.tileChanged(h(2,2));
+		assertNull(s.find(h(1,1),h(3,1)));
+		b.add(new HexTile(Terrain.LAND,h(3,2)));
+		s.tileChanged(h(3,2));
+		HexPath q = s.find(h(1,1),h(3,1));
+		assertEquals("<1,1,0> -> <2,2,0> -> <3,2,1> -> <3,1,2>",q.toString());
+		assertEquals(3+10+2+1,c.getCost(q));
+	}
+	
+	public void testFull() {
+		fill();
+		for (int i=0; i < 30; ++i) {
+			assertSameCost(random(),random());
+		}
+	}
+	
+	public void testEdits() {
+		fill();
+		HexCoordinate from = random(), to = random();
+		assertSameCost(from,to);
+		for (int i=0; i < 100; ++i) {
+			HexCoordinate h = random();
+			if (r.nextInt(5) == 0 && b.terrainAt(h) != null) b.remove(new HexTile(b.terrainAt(h),h));
+			else b.asMap().put(h,TERRAINS[r.nextInt(TERRAINS.length)]);
+			s.tileChanged(h);
+			assertSameCost(from,to);
+		}
+	}
+	
+	public void testMovingStart() {
+		fill();
+		HexCoordinate to = random();
+		HexCoordinate from = random();
+		for (int i=0; i < 20; ++i) {
+			assertSameCost(from,to);
+			HexPath p = s.find(from,to);
+			if (p == null || p.size() == 0) from = random();
+			else from = p.toArray()[1]; // take a step
+			HexCoordinate h = random();
+			b.asMap().put(h,TERRAINS[r.nextInt(TERRAINS.length)]);
+			s.tileChanged(h);
+		}
+	}
+	
+	public void testNewGoal() {
+		fill();
+		for (int i=0; i < 10; ++i) {
+			HexCoordinate from = random(), to = random();
+			assertSameCost(from,to);
+			assertSameCost(random(),to);
+		}
+	}
+	
+	public void testReset() {
+		fill();
+		HexCoordinate from = random(), to = random();
+		assertSameCost(from,to);
+		c.setCost(Terrain.LAND,6);
+		s.reset();
+		assertSameCost(from,to);
+	}
+}
@@ -0,0 +1,121 @@
+import java.util.Random;
+
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.util.IndexedPriorityWorklist;
+
+
+public class TestIndexedPriorityWorklist extends AbstractTestWorklist<String> {
+
+	private IndexedPriorityWorklist<int[]> worklist; // {key, priority}
+	
+	@Override
+	protected void initWorklist() {
+		w = new IndexedPriorityWorklist<String>(String.CASE_INSENSITIVE_ORDER, (s) -> s);
+		v1 = "Hello";
+		v2 = "goodbye";
+		v3 = "null";
+		v4 = "";
+		v5 = "Foo";
+		worklist = new IndexedPriorityWorklist<int[]>((p1, p2) -> p1[1] - p2[1], (p) -> p[0]);
+	}
+	
+	private void add(int key, int priority) {
+		worklist.add(new int[] {key, priority});
+	}
+	
+	private void assertNext(int key, int priority) {
+		assertTrue(worklist.hasNext());
+		int[] p = worklist.next();
+		assertEquals(key,p[0]);
+		assertEquals(priority,p[1]);
+	}
+	
+	public void testPriority() {
+		add(1,10);
+		add(2,0);
+		add(3,42);
+		add(4,-100);
+		add(5,19);
+		assertEquals(5,worklist.size());
+		
+		assertNext(4,-100);
+		assertNext(2,0);
+		add(6,80);
+		assertNext(1,10);
+		assertNext(5,19);
+		assertNext(3,42);
+		assertNext(6,80);
+		assertFalse(worklist.hasNext());
+	}
+	
+	public void testPriority2() {
+		w.add("Hello");
+		w.add("bye");
+		
+		assertEquals("bye",w.next()); // test that comparator is actually used!
+		assertEquals("Hello",w.next());
+	}
+	
+	public void testDecrease() {
+		add(1,10);
+		add(2,20);
+		add(3,30);
+		add(3,5);
+		assertEquals(3,worklist.size());
+		assertNext(3,5);
+		assertNext(1,10);
+		assertNext(2,20);
+	}
+	
+	public void testIncreaseIgnored() {
+		add(1,10);
+		add(2,20);
+		add(1,30);
+		add(2,20);
+		assertEquals(2,worklist.size());
+		assertNext(1,10);
+		assertNext(2,20);
+		assertFalse(worklist.hasNext());
+	}
+	
+	public void testAddAgain() {
+		add(1,10);
+		assertNext(1,10);
+		add(1,30);
+		assertNext(1,30);
+	}
+	
+	public void testRandom() {
+		Random r = new Random(351);
+		int[] best = new int[50];
+		java.util.Arrays.fill(best, Integer.MAX_VALUE);
+		for (int i=0; i < 500; ++i) {
+			int k = r.nextInt(best.length), p = r.nextInt(1000);
+			add(k,p);
+			best[k] = Math.min(best[k],p);
+		}
+		int last = Integer.MIN_VALUE, count = 0;
+		while (worklist.hasNext()) {
+			int[] p = worklist.next();
+			assertTrue(p[1] >= last);
+			assertEquals(best[p[0]],p[1]);
+			last = p[1];
+			++count;
+		}
+		for (int b : best) if (b != Integer.MAX_VALUE) --count;
+		assertEquals(0,count);
+	}
+	
+	public void testPaths() {
+		IndexedPriorityWorklist<HexPath> wl = new IndexedPriorityWorklist<HexPath>((p1, p2) -> p1.size() - p2.size(), HexPath::last);
+		HexPath p0 = new HexPath(new HexCoordinate(0,0));
+		HexPath p1 = new HexPath(p0,new HexCoordinate(1,0));
+		HexPath p2 = new HexPath(p1,new HexCoordinate(1,1));
+		HexPath q1 = new HexPath(p0,new HexCoordinate(1,1));
+		wl.add(p2);
+		wl.add(q1);
+		assertEquals(1,wl.size());
+		assertSame(q1,wl.next());
+	}
+}
@@ -0,0 +1,95 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexDirection;
+import edu.uwm.cs351.PackedCoordinate;
+import edu.uwm.cs351.util.LongHashSet;
+
+
+public class TestLongHashSet extends TestCase {
+
+	private LongHashSet s;
+	
+	@Override
+	protected void setUp() {
+		s = new LongHashSet();
+	}
+	
+	public void test0() {
+		assertEquals(0,s.size());
+		assertFalse(s.contains(0));
+		assertFalse(s.contains(-1));
+	}
+	
+	public void test1() {
+		assertTrue(s.add(0));
+		assertFalse(s.add(0));
+		assertTrue(s.contains(0));
+		assertFalse(s.contains(1));
+		assertEquals(1,s.size());
+	}
+	
+	public void test2() {
+		assertTrue(s.add(Long.MIN_VALUE));
+		assertTrue(s.add(Long.MAX_VALUE));
+		assertTrue(s.add(-1));
+		assertTrue(s.contains(Long.MIN_VALUE));
+		assertTrue(s.contains(Long.MAX_VALUE));
+		assertTrue(s.contains(-1));
+		assertFalse(s.contains(0));
+		assertEquals(3,s.size());
+	}
+	
+	public void test3() {
+		for (long i=0; i < 1000; ++i) {
+			assertTrue(s.add(i << 32));
+		}
+		assertEquals(1000,s.size());
+		for (long i=0; i < 1000; ++i) {
+			assertTrue(s.contains(i << 32));
+			assertFalse(s.contains((i << 32) + 1));
+		}
+	}
+	
+	public void test4() {
+		for (long i=0; i < 100; ++i) {
+			s.add(i);
+		}
+		s.clear();
+		assertEquals(0,s.size());
+		assertFalse(s.contains(42));
+		assertTrue(s.add(42));
+		assertEquals(1,s.size());
+	}
+	
+	public void test5() {
+		Random r = new Random(351);
+		Set<Long> mirror = new HashSet<Long>();
+		for (int i=0; i < 500; ++i) {
+			long x = r.nextInt(1000) - 500;
+			assertEquals(mirror.add(x),s.add(x));
+		}
+		final Set<Long> seen = new HashSet<Long>();
+		s.forEach((x) -> assertTrue(seen.add(x)));
+		assertEquals(mirror,seen);
+		assertEquals(mirror.size(),s.size());
+	}
+	
+	public void testPacked() {
+		for (int a = -3; a <= 3; ++a) {
+			for (int b = -3; b <= 3; ++b) {
+				HexCoordinate h = new HexCoordinate(a,b);
+				long packed = PackedCoordinate.pack(h);
+				assertEquals(h,PackedCoordinate.unpack(packed));
+				for (HexDirection d : HexDirection.values()) {
+					assertEquals(d.applyTo(h),PackedCoordinate.unpack(d.applyTo(packed)));
+				}
+			}
+		}
+		assertEquals(Integer.MIN_VALUE,PackedCoordinate.b(PackedCoordinate.pack(-1,Integer.MIN_VALUE)));
+		assertEquals(-1,PackedCoordinate.a(PackedCoordinate.pack(-1,Integer.MIN_VALUE)));
+	}
+}
@@ -0,0 +1,74 @@
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.util.LongIntHashMap;
+
+
+public class TestLongIntHashMap extends TestCase {
+
+	private LongIntHashMap m;
+	
+	@Override
+	protected void setUp() {
+		m = new LongIntHashMap();
+	}
+	
+	public void test0() {
+		assertEquals(0,m.size());
+		assertFalse(m.containsKey(0));
+		assertEquals(-1,m.get(0,-1));
+	}
+	
+	public void test1() {
+		m.put(0,42);
+		assertTrue(m.containsKey(0));
+		assertEquals(42,m.get(0,-1));
+		assertEquals(-1,m.get(1,-1));
+		m.put(0,17);
+		assertEquals(17,m.get(0,-1));
+		assertEquals(1,m.size());
+	}
+	
+	public void test2() {
+		m.put(Long.MIN_VALUE,1);
+		m.put(Long.MAX_VALUE,2);
+		m.put(-1,3);
+		assertEquals(1,m.get(Long.MIN_VALUE,0));
+		assertEquals(2,m.get(Long.MAX_VALUE,0));
+		assertEquals(3,m.get(-1,0));
+		assertEquals(3,m.size());
+	}
+	
+	public void testClear() {
+		for (int i=0; i < 100; ++i) m.put(i,i*i);
+		m.clear();
+		assertEquals(0,m.size());
+		assertFalse(m.containsKey(5));
+		m.put(5,1);
+		assertEquals(1,m.get(5,0));
+	}
+	
+	public void testRandom() {
+		Random r = new Random(351);
+		Map<Long,Integer> mirror = new HashMap<Long,Integer>();
+		for (int i=0; i < 2000; ++i) {
+			long k = r.nextInt(500) - 250;
+			int v = r.nextInt();
+			m.put(k,v);
+			mirror.put(k,v);
+		}
+		assertEquals(mirror.size(),m.size());
+		for (long k=-300; k < 300; ++k) {
+			Integer v = mirror.get(k);
+			assertEquals(v != null,m.containsKey(k));
+			if (v != null) assertEquals(v.intValue(),m.get(k,0));
+		}
+		final long[] sum = new long[1];
+		m.forEachKey((k) -> sum[0] += k);
+		long expected = 0;
+		for (long k : mirror.keySet()) expected += k;
+		assertEquals(expected,sum[0]);
+	}
+}
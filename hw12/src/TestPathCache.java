@@ -0,0 +1,101 @@
+import junit.framework.TestCase;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPath;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.PathCache;
+import edu.uwm.cs351.Search;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestPathCache extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private PathCache cache;
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	private void p(int a, int b, Terrain t) {
+		this.b.asMap().put(h(a,b),t);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		for (int i=0; i < 4; ++i) {
+			p(i,0,Terrain.LAND);
+			p(i,1,Terrain.WATER);
+		}
+		cache = new PathCache(new Search(c),c,3);
+	}
+	
+	public void test0() {
+		assertEquals(0,cache.size());
+		assertEquals(0,cache.getHits());
+		assertEquals(0,cache.getMisses());
+	}
+	
+	public void test1() {
+		HexPath p1 = cache.find(h(0,0),h(3,0),b);
+		HexPath p2 = cache.find(h(0,0),h(3,0),b);
+		assertSame(p1,p2);
+		assertEquals(1,cache.getHits());
+		assertEquals(1,cache.getMisses());
+		assertEquals(1,cache.size());
+		cache.resetCounters();
+		assertEquals(0,cache.getHits());
+	}
+	
+	public void test2() {
+		assertNull(cache.find(h(0,0),h(9,9),b));
+		assertNull(cache.find(h(0,0),h(9,9),b));
+		assertEquals(1,cache.getHits());
+	}
+	
+	public void test3() {
+		cache.find(h(0,0),h(3,0),b);
+		cache.find(h(0,0),h(2,0),b);
+		cache.find(h(0,0),h(1,0),b);
+		cache.find(h(0,0),h(3,0),b); // refresh
+		cache.find(h(0,0),h(0,1),b); // evicts (2,0)
+		assertEquals(3,cache.size());
+		assertEquals(1,cache.getHits());
+		cache.find(h(0,0),h(3,0),b);
+		assertEquals(2,cache.getHits());
+		cache.find(h(0,0),h(2,0),b);
+		assertEquals(2,cache.getHits());
+		assertEquals(5,cache.getMisses());
+	}
+	
+	public void test4() {
+		HexPath p1 = cache.find(h(0,0),h(3,1),b);
+		c.setCost(Terrain.WATER,10);
+		HexPath p2 = cache.find(h(0,0),h(3,1),b);
+		assertNotSame(p1,p2);
+		assertEquals(0,cache.getHits());
+		c.setCost(Terrain.WATER,1);
+		assertSame(p1,cache.find(h(0,0),h(3,1),b));
+		assertEquals(1,cache.getHits());
+	}
+	
+	public void test5() {
+		assertEquals(3,cache.find(h(0,0),h(3,0),b).size());
+		p(2,0,Terrain.INACCESSIBLE);
+		cache.boardChanged();
+		assertEquals(0,cache.size());
+		assertEquals(4,cache.find(h(0,0),h(3,0),b).size());
+		assertEquals(0,cache.getHits());
+	}
+	
+	public void test6() {
+		cache.find(h(0,0),h(3,0),b);
+		HexBoard other = new HexBoard();
+		assertNull(cache.find(h(0,0),h(3,0),other));
+		assertEquals(0,cache.getHits());
+		assertEquals(1,cache.size());
+	}
+}
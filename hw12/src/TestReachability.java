@@ -0,0 +1,153 @@
+import java.util.Random;
+
+import junit.framework.TestCase;
+import edu.uwm.cs351.DistanceField;
+import edu.uwm.cs351.HexBoard;
+import edu.uwm.cs351.HexCoordinate;
+import edu.uwm.cs351.HexPathCoster;
+import edu.uwm.cs351.HexTile;
+import edu.uwm.cs351.Reachability;
+import edu.uwm.cs351.Terrain;
+
+
+public class TestReachability extends TestCase {
+
+	private HexBoard b;
+	private HexPathCoster c;
+	private Reachability reach;
+	private Random r;
+	
+	private static final int WIDTH = 15;
+	private static final Terrain[] TERRAINS = Terrain.values();
+	
+	private HexCoordinate h(int a, int b) {
+		return new HexCoordinate(a,b);
+	}
+	
+	@Override
+	protected void setUp() {
+		b = new HexBoard();
+		c = new HexPathCoster(b);
+		c.setCost(Terrain.FOREST,2);
+		c.setCost(Terrain.CITY,3);
+		c.setCost(Terrain.MOUNTAIN,4);
+		c.setCost(Terrain.WATER,5);
+		reach = new Reachability(b,c);
+		r = new Random(351);
+	}
+	
+	private void fill() {
+		for (int j=0; j < WIDTH; ++j) {
+			for (int i=0; i < WIDTH; ++i) {
+				Terrain t = Terrain.LAND;
+				if (r.nextInt(3) == 0) t = TERRAINS[r.nextInt(TERRAINS.length)];
+				b.add(new HexTile(t,h(i+j/2,j)));
+			}
+		}
+	}
+	
+	/**
+	 * Check a region against the distance field from the same start.
+	 */
+	private void assertRegion(HexCoordinate from, int budget) {
+		Reachability.Region region = reach.find(from, budget);
+		DistanceField f = new DistanceField(b,c,from);
+		assertEquals(from,region.getStart());
+		assertEquals(budget,region.getBudget());
+		int count = 0;
+		for (HexTile t : b) {
+			HexCoordinate h = t.getLocation();
+			int cost = f.getCost(h);
+			if (cost >= 0 && cost <= budget) {
+				++count;
+				assertTrue(region.contains(h));
+				assertEquals(cost,region.getCost(h));
+			} else {
+				assertFalse(region.contains(h));
+				assertEquals(-1,region.getCost(h));
+			}
+		}
+		assertEquals(count,region.size());
+		for (int i=0; i < region.size(); ++i) {
+			assertEquals(region.getCost(region.getLocation(i)),region.getCost(i));
+		}
+	}
+	
+	public void test0() {
+		Reachability.Region region = reach.find(h(0,0),10);
+		assertEquals(0,region.size());
+		assertFalse(region.contains(h(0,0)));
+	}
+	
+	public void test1() {
+		b.add(new HexTile(Terrain.CITY,h(1,1)));
+		b.add(new HexTile(Terrain.FOREST,h(2,1)));
+		b.add(new HexTile(Terrain.LAND,h(3,1)));
+		Reachability.Region region = reach.find(h(1,1),0);
+		assertEquals(1,region.size());
+		assertEquals(0,region.getCost(h(1,1)));
+		region = reach.find(h(1,1),7);
+		assertEquals(2,region.size());
+		assertEquals(5,region.getCost(h(2,1)));
+		assertEquals(-1,region.getCost(h(3,1)));
+		region = reach.find(h(1,1),8);
+		assertEquals(3,region.size());
+		assertEquals(8,region.getCost(h(3,1)));
+	}
+	
+	public void test2() {
+		b.add(new HexTile(Terrain.INACCESSIBLE,h(1,1)));
+		b.add(new HexTile(Terrain.LAND,h(2,1)));
+		assertEquals(0,reach.find(h(1,1),100).size());
+		assertEquals(1,reach.find(h(2,1),100).size());
+	}
+	
+	public void testBadBudget() {
+		try {
+			reach.find(h(0,0),-1);
+			assertFalse("find should have thrown an exception",true);
+		} catch (RuntimeException ex) {
+			assertTrue("find threw wrong exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+	}
+	
+	public void testRandom() {
+		fill();
+		for (int i=0; i < 20; ++i) {
+			int j = r.nextInt(WIDTH);
+			assertRegion(h(r.nextInt(WIDTH)+j/2,j),r.nextInt(40));
+		}
+	}
+	
+	public void testReuse() {
+		fill();
+		Reachability.Region big = reach.find(h(7,7),1000);
+		Reachability.Region small = reach.find(h(7,7),4);
+		assertTrue(big.size() > small.size());
+		assertRegion(h(7,7),1000);
+		assertRegion(h(7,7),4);
+	}
+	
+	public void testChanges() {
+		fill();
+		assertRegion(h(7,7),30);
+		for (int i=0; i < 30; ++i) {
+			int j = r.nextInt(WIDTH);
+			HexCoordinate h = h(r.nextInt(WIDTH)+j/2,j);
+			b.asMap().put(h,TERRAINS[r.nextInt(TERRAINS.length)]);
+			reach.tileChanged(h);
+			assertRegion(h(7,7),30);
+		}
+		c.setCost(Terrain.LAND,3);
+		reach.reset();
+		assertRegion(h(7,7),30);
+	}
+	
+	public void testLargeCosts() {
+		fill();
+		c.setCost(Terrain.WATER,10000);
+		reach.reset();
+		assertRegion(h(7,7),15000);
+		assertRegion(h(7,7),Integer.MAX_VALUE);
+	}
+}
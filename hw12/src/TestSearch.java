@@ -7,6 +7,7 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.NoSuchElementException;
 
 import javax.swing.ButtonGroup;
 import javax.swing.JFrame;
@@ -26,8 +27,10 @@ import edu.uwm.cs351.HexPath;
 import edu.uwm.cs351.HexPathCoster;
 import edu.uwm.cs351.HexTile;
 import edu.uwm.cs351.Search;
+import edu.uwm.cs351.SearchMetrics;
 import edu.uwm.cs351.Terrain;
 import edu.uwm.cs351.util.FIFOWorklist;
+import edu.uwm.cs351.util.IndexedPriorityWorklist;
 import edu.uwm.cs351.util.LIFOWorklist;
 import edu.uwm.cs351.util.PriorityWorklist;
 
@@ -43,7 +46,7 @@ public class TestSearch extends TestCase {
 	HexCoordinate[] a;
 	
 	HexPath fifoPath, lifoPath, priorityPath;
-	Search fifoSearch, lifoSearch, prioritySearch;
+	Search fifoSearch, lifoSearch, prioritySearch, aStarSearch;
 	
 	private HexCoordinate h(int a, int b) {
 		return new HexCoordinate(a,b);
@@ -94,6 +97,7 @@ public class TestSearch extends TestCase {
 		lifoSearch = new Search(new LIFOWorklist<HexPath>());
 		fifoSearch = new Search(new FIFOWorklist<HexPath>());
 		prioritySearch = new Search(new PriorityWorklist<HexPath>(c));
+		aStarSearch = new Search(c);
 	}
 	
 	private JRadioButtonMenuItem showLIFO, showFIFO, showPrio;
@@ -305,4 +309,303 @@ public class TestSearch extends TestCase {
 		p = priorityPath = prioritySearch.find(start, end, b);
 		assertNull(p);
 	}
+	
+	public void testAStar() {
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				start = t1.getLocation();
+				end = t2.getLocation();
+				priorityPath = prioritySearch.find(start, end, b);
+				p = aStarSearch.find(start, end, b);
+				if (priorityPath == null) assertNull(p);
+				else {
+					assertEquals(end,p.last());
+					assertEquals(c.getCost(priorityPath),c.getCost(p));
+				}
+			}
+		}
+	}
+	
+	private void assertFromTo(HexCoordinate from, HexCoordinate to, HexPath path) {
+		HexCoordinate[] cs = path.toArray();
+		assertEquals(from,cs[0]);
+		assertEquals(to,cs[cs.length-1]);
+	}
+	
+	public void testBidirectional() {
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				start = t1.getLocation();
+				end = t2.getLocation();
+				fifoPath = fifoSearch.find(start, end, b);
+				p = fifoSearch.findBidirectional(start, end, b);
+				if (fifoPath == null) assertNull(p);
+				else {
+					assertFromTo(start,end,p);
+					assertEquals(fifoPath.size(),p.size());
+				}
+				
+				priorityPath = prioritySearch.find(start, end, b);
+				p = aStarSearch.findBidirectional(start, end, b);
+				if (priorityPath == null) assertNull(p);
+				else {
+					assertFromTo(start,end,p);
+					assertEquals(c.getCost(priorityPath),c.getCost(p));
+					HexPath plain = null;
+					for (HexCoordinate h : p.toArray()) plain = new HexPath(plain,h);
+					assertEquals(c.getCost(priorityPath),c.getCost(plain));
+				}
+			}
+		}
+	}
+	
+	public void testMetrics() {
+		assertNull(fifoSearch.getMetrics());
+		assertEquals(0,fifoSearch.getExpanded());
+		prioritySearch.setTimed(true);
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				start = t1.getLocation();
+				end = t2.getLocation();
+				p = prioritySearch.find(start, end, b);
+				SearchMetrics m = prioritySearch.getMetrics();
+				assertEquals("find",m.getKind());
+				assertEquals(prioritySearch.getExpanded(),m.getExpanded());
+				assertTrue(m.getPopped() >= m.getExpanded());
+				assertTrue(m.getPushed() >= m.getPopped());
+				assertTrue(m.getPeakWorklist() <= m.getPushed());
+				assertTrue(m.getTerrainLookups() >= m.getPushed());
+				assertTrue(m.getWorklistNanos() >= 0);
+				assertTrue(m.getWorklistNanos() <= m.getTotalNanos());
+				assertEquals(m.getTotalNanos(),m.getWorklistNanos() + m.getExpansionNanos());
+				assertEquals(-1,m.getPathCost()); // no coster given
+				if (p == null) assertEquals(-1,m.getPathSize());
+				else assertEquals(p.size(),m.getPathSize());
+				
+				p = aStarSearch.findBidirectional(start, end, b);
+				SearchMetrics m2 = aStarSearch.getMetrics();
+				assertEquals("bidirectional",m2.getKind());
+				assertTrue(m2.getPushed() >= m2.getPopped());
+				assertEquals(-1,m2.getWorklistNanos());
+				assertEquals(-1,m2.getExpansionNanos());
+				assertTrue(m2.getTotalNanos() >= 0);
+				if (p != null) assertEquals(c.getCost(p),m2.getPathCost());
+			}
+		}
+	}
+	
+	public void testMetricsPeakIndexed() {
+		// the indexed worklist replaces a waiting path rather than adding 
+		// another for the same location, so it never holds more paths 
+		// than there are tiles
+		Search indexed = new Search(new IndexedPriorityWorklist<HexPath>(c,HexPath::last), c);
+		boolean replaced = false;
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				indexed.find(t1.getLocation(), t2.getLocation(), b);
+				SearchMetrics m = indexed.getMetrics();
+				assertTrue(m.getPeakWorklist() <= b.size());
+				assertTrue(m.getPeakWorklist() <= m.getPushed());
+				if (m.getPushed() > m.getPopped() + m.getPeakWorklist()) replaced = true;
+			}
+		}
+		assertTrue("no paths were replaced", replaced);
+	}
+	
+	public void testMetricsKept() {
+		assertNotNull(fifoSearch.find(h(0,0), h(0,0), b));
+		SearchMetrics m1 = fifoSearch.getMetrics();
+		assertEquals(1,m1.getPopped());
+		assertEquals(1,m1.getExpanded());
+		assertEquals(1,m1.getPushed());
+		assertEquals(1,m1.getPeakWorklist());
+		assertEquals(0,m1.getPathSize());
+		assertEquals(-1,m1.getPathCost());
+		fifoSearch.find(h(0,0), h(4,6), b);
+		assertNotSame(m1,fifoSearch.getMetrics());
+		assertEquals(1,m1.getPopped());
+	}
+	
+	public void testMetricsJson() {
+		fifoSearch.find(h(0,0), h(0,0), b);
+		String json = fifoSearch.getMetrics().toJson();
+		assertTrue(json.startsWith("{\"kind\":\"find\",\"from\":\"" + h(0,0) + "\""));
+		assertTrue(json.contains("\"popped\":1,\"expanded\":1,\"pushed\":1,\"duplicates\":0,\"peakWorklist\":1,"));
+		assertTrue(json.contains("\"worklistNanos\":-1,\"expansionNanos\":-1,"));
+		assertTrue(json.endsWith(",\"pathSize\":0,\"pathCost\":-1}"));
+		assertEquals(-1,json.indexOf('\n'));
+		StringBuilder sb = new StringBuilder();
+		try {
+			fifoSearch.getMetrics().writeJsonLine(sb);
+			fifoSearch.getMetrics().writeJsonLine(sb);
+		} catch (java.io.IOException e) {
+			assertFalse("StringBuilder cannot fail",true);
+		}
+		assertEquals(json + "\n" + json + "\n",sb.toString());
+	}
+	
+	public void testStepped() {
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				start = t1.getLocation();
+				end = t2.getLocation();
+				HexPath expected = prioritySearch.find(start, end, b);
+				int expanded = prioritySearch.getExpanded();
+				Search.Run run = prioritySearch.start(start, end, b);
+				assertNull(run.getResult());
+				int events = 0;
+				Search.Expansion last = null;
+				while (run.hasNext()) {
+					last = run.next();
+					++events;
+					for (HexPath q : last.getAdded()) {
+						assertEquals(last.getPath().size()+1,q.size());
+						assertEquals(1,last.getPath().last().distance(q.last()));
+					}
+				}
+				assertTrue(run.isDone());
+				assertFalse(run.isCancelled());
+				assertEquals(expanded,events);
+				assertEquals(expanded,prioritySearch.getExpanded());
+				if (expected == null) {
+					assertNull(run.getResult());
+					if (last != null) assertFalse(last.isGoal());
+				} else {
+					assertTrue(last.isGoal());
+					assertSame(last.getPath(),run.getResult());
+					assertTrue(last.getAdded().isEmpty());
+					assertEquals(expected.toString(),run.getResult().toString());
+				}
+			}
+		}
+	}
+	
+	public void testSteppedCancel() {
+		Search.Run run = fifoSearch.start(h(0,0), h(4,6), b);
+		assertTrue(run.hasNext());
+		assertEquals(h(0,0),run.next().getPath().last());
+		run.cancel();
+		assertTrue(run.isDone());
+		assertTrue(run.isCancelled());
+		assertFalse(run.hasNext());
+		assertNull(run.getResult());
+		try {
+			run.next();
+			assertFalse("next should have thrown an exception",true);
+		} catch (RuntimeException ex) {
+			assertTrue("next() threw wrong exception: " + ex, ex instanceof NoSuchElementException);
+		}
+	}
+	
+	public void testSteppedBudget() {
+		Search.Run run = fifoSearch.start(h(0,0), h(0,0), b);
+		assertTrue(run.runFor(0));
+		assertEquals(1,fifoSearch.getExpanded());
+		assertEquals(0,run.getResult().size());
+		run = fifoSearch.start(h(0,0), h(6,6), b);
+		assertFalse(run.isDone());
+		assertFalse(run.runFor(0));
+		assertEquals(0,fifoSearch.getExpanded());
+		run.runFor(-1);
+		assertTrue(run.isDone());
+		HexPath stepped = run.getResult();
+		assertEquals(fifoSearch.find(h(0,0), h(6,6), b).toString(),stepped.toString());
+	}
+	
+	public void testSteppedEnded() {
+		Search.Run run = fifoSearch.start(h(0,0), h(4,6), b);
+		fifoSearch.find(h(0,0), h(4,6), b);
+		try {
+			run.hasNext();
+			assertFalse("hasNext should have thrown an exception",true);
+		} catch (RuntimeException ex) {
+			assertTrue("hasNext() threw wrong exception: " + ex, ex instanceof IllegalStateException);
+		}
+	}
+	
+	public void testBudget() {
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				start = t1.getLocation();
+				end = t2.getLocation();
+				HexPath expected = aStarSearch.find(start, end, b);
+				int expanded = aStarSearch.getExpanded();
+				Search.Result r = aStarSearch.find(start, end, b, -1, -1);
+				assertTrue(r.isExact());
+				if (expected == null) assertNull(r.getPath());
+				else assertEquals(c.getCost(expected),c.getCost(r.getPath()));
+				
+				r = aStarSearch.find(start, end, b, expanded, -1);
+				assertTrue(r.isExact());
+				if (expected != null) {
+					// the last expansion only finds the goal, which needs no budget
+					r = aStarSearch.find(start, end, b, expanded-1, -1);
+					assertTrue(r.isExact());
+					assertEquals(expanded,aStarSearch.getExpanded());
+					--expanded;
+				}
+				if (expanded < 2) continue;
+				r = aStarSearch.find(start, end, b, expanded-1, -1);
+				assertFalse(r.isExact());
+				assertEquals(expanded-1,aStarSearch.getExpanded());
+				assertEquals(start,r.getPath().toArray()[0]);
+				assertTrue(aStarSearch.getMetrics().getPathSize() == -1);
+			}
+		}
+	}
+	
+	public void testBudgetClosest() {
+		// no coster: the partial path ends as near the goal as possible
+		Search.Result r = fifoSearch.find(h(0,0), h(6,6), b, 3, -1);
+		assertFalse(r.isExact());
+		HexPath partial = r.getPath();
+		Search.Run run = fifoSearch.start(h(0,0), h(6,6), b);
+		int best = Integer.MAX_VALUE;
+		for (int i=0; i < 3; ++i) best = Math.min(best,run.next().getPath().last().distance(h(6,6)));
+		assertEquals(best,partial.last().distance(h(6,6)));
+		assertEquals(best,run.getClosest().last().distance(h(6,6)));
+		
+		r = fifoSearch.find(h(0,0), h(6,6), b, 0, -1);
+		assertFalse(r.isExact());
+		assertNull(r.getPath());
+		
+		r = fifoSearch.find(h(0,0), h(0,0), b, 0, -1);
+		assertTrue(r.isExact());
+		assertEquals(0,r.getPath().size());
+		
+		r = fifoSearch.find(h(0,0), h(6,6), b, -1, 0);
+		assertFalse(r.isExact());
+		assertNull(r.getPath());
+		assertEquals(0,fifoSearch.getExpanded());
+		
+		r = aStarSearch.find(h(0,0), h(6,6), b, 1000, 0);
+		assertFalse(r.isExact());
+		assertEquals(0,aStarSearch.getExpanded());
+	}
+	
+	public void testWeighted() {
+		Search weighted = new Search(c, 2.0);
+		assertEquals(2.0,weighted.getBound());
+		assertEquals(1.0,aStarSearch.getBound());
+		assertEquals(Double.POSITIVE_INFINITY,fifoSearch.getBound());
+		for (HexTile t1 : b) {
+			for (HexTile t2 : b) {
+				start = t1.getLocation();
+				end = t2.getLocation();
+				HexPath expected = aStarSearch.find(start, end, b);
+				p = weighted.find(start, end, b);
+				if (expected == null) assertNull(p);
+				else {
+					assertFromTo(start,end,p);
+					assertTrue(c.getCost(p) <= 2 * c.getCost(expected));
+				}
+			}
+		}
+		try {
+			new Search(c, 0.5);
+			assertFalse("constructor should have thrown an exception",true);
+		} catch (RuntimeException ex) {
+			assertTrue("constructor threw wrong exception: " + ex, ex instanceof IllegalArgumentException);
+		}
+	}
 }
@@ -0,0 +1,211 @@
+package edu.uwm.cs351;
+
+import java.util.Arrays;
+
+import edu.uwm.cs351.util.LongHashSet;
+
+/**
+ * Find paths across HexTile boards without making a HexPath for every
+ * path considered.
+ * <p>
+ * {@link Search} keeps each path on its worklist as a HexPath object
+ * linked to the path it extends, so a big search makes millions of
+ * small objects. This searcher keeps the same tree of paths in an
+ * <em>arena</em> of parallel arrays instead: node i has a location
+ * (a {@link PackedCoordinate}), the index of the node it extends and
+ * the cost of the path so far, sixteen bytes in all. Only the path that
+ * reaches the goal is turned into a HexPath, when the search returns.
+ * The arrays are kept and reused by later searches.
+ * <p>
+ * Without a coster, the search goes breadth first, taking nodes in the
+ * order they were added, so the arena itself is the queue. With a
+ * coster, the cheapest node is taken first from a binary heap of
+ * (cost, index) pairs packed into longs. Either way the path found is
+ * the same as {@link Search} finds with a {@link edu.uwm.cs351.util.FIFOWorklist}
+ * or a {@link edu.uwm.cs351.util.PriorityWorklist} respectively, in
+ * length or cost.
+ */
+public class ArenaSearch {
+	private static final HexDirection[] DIRECTIONS = HexDirection.values();
+	private static final int INITIAL_CAPACITY = 1024;
+
+	private final HexPathCoster coster;
+
+	// the arena: node i is a path ending at location[i], extending parent[i]
+	private long[] location = new long[INITIAL_CAPACITY];
+	private int[] parent = new int[INITIAL_CAPACITY];
+	private int[] cost = new int[INITIAL_CAPACITY];
+	private int nodes;
+
+	private long[] heap = new long[INITIAL_CAPACITY]; // cost << 32 | node
+	private int heapSize;
+
+	private final LongHashSet visited = new LongHashSet(); // of PackedCoordinate
+	private int expanded;
+
+	/**
+	 * Create a searcher that goes breadth first, finding paths with the
+	 * fewest steps.
+	 */
+	public ArenaSearch() {
+		coster = null;
+	}
+
+	/**
+	 * Create a searcher that takes the cheapest path first, finding
+	 * paths of the least cost.
+	 *
+	 * @param c        HexPathCoster used to cost paths, must not be null
+	 */
+	public ArenaSearch(HexPathCoster c) {
+		if (c == null) throw new NullPointerException("coster is null");
+		coster = c;
+	}
+
+	/**
+	 * Return the number of paths whose neighbors were explored during
+	 * the most recent search.
+	 *
+	 * @return         number of nodes expanded by the last call to
+	 *                 {@link #find(HexCoordinate, HexCoordinate, HexBoard)}
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Return the number of nodes put in the arena during the most recent
+	 * search.
+	 *
+	 * @return         number of paths considered by the last call to
+	 *                 {@link #find(HexCoordinate, HexCoordinate, HexBoard)}
+	 */
+	public int getNodes() {
+		return nodes;
+	}
+
+	/**
+	 * Return the number of bytes of arrays held for the arena, which is
+	 * kept for later searches.
+	 *
+	 * @return         bytes used by the arena and heap arrays
+	 */
+	public long getArenaBytes() {
+		return (long)location.length * (8 + 4 + 4) + (coster == null ? 0 : 8L * heap.length);
+	}
+
+	private int tileCost(HexBoard b, long x) {
+		Terrain t = b.terrainAt(PackedCoordinate.unpack(x));
+		if (t == null || t == Terrain.INACCESSIBLE) return -1;
+		return coster == null ? 0 : coster.getCost(t);
+	}
+
+	/**
+	 * Add a node to the arena.
+	 * @return index of the new node
+	 */
+	private int addNode(long x, int p, int c) {
+		if (nodes == location.length) {
+			int capacity = nodes * 2;
+			location = Arrays.copyOf(location, capacity);
+			parent = Arrays.copyOf(parent, capacity);
+			cost = Arrays.copyOf(cost, capacity);
+		}
+		location[nodes] = x;
+		parent[nodes] = p;
+		cost[nodes] = c;
+		return nodes++;
+	}
+
+	/**
+	 * Find a path through a hex board.
+	 *
+	 * @param from     HexCoordinate to start from (must not be null).
+	 * @param to       HexCoordinate to reach (must not be null).
+	 * @param b        HexBoard to traverse.
+	 * @return         a HexPath from <code>from</code> to <code>to</code>,
+	 *                 carrying its cost if there is a coster, or null if
+	 *                 no path is found.
+	 */
+	public HexPath find(HexCoordinate from, HexCoordinate to, HexBoard b) {
+		nodes = 0;
+		heapSize = 0;
+		expanded = 0;
+		visited.clear();
+		long start = PackedCoordinate.pack(from), goal = PackedCoordinate.pack(to);
+		if (tileCost(b, start) < 0) return null;
+		addNode(start, -1, 0);
+		if (coster != null) push(0);
+		int head = 0; // next node to take, when breadth first
+		for (;;) {
+			int n;
+			if (coster == null) {
+				if (head == nodes) return null;
+				n = head++;
+			} else {
+				if (heapSize == 0) return null;
+				n = pop();
+			}
+			long x = location[n];
+			if (!visited.add(x)) continue; // already reached more directly
+			++expanded;
+			if (x == goal) return toPath(n);
+			int here = coster == null ? 0 : tileCost(b, x);
+			for (HexDirection d : DIRECTIONS) {
+				long y = d.applyTo(x);
+				if (visited.contains(y)) continue;
+				int there = tileCost(b, y);
+				if (there < 0) continue;
+				long c = (long)cost[n] + here + there;
+				int m = addNode(y, n, c > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int)c);
+				if (coster != null) push(m);
+			}
+		}
+	}
+
+	/**
+	 * Build the HexPath for a node by following parents back to the
+	 * start.
+	 */
+	private HexPath toPath(int n) {
+		int length = 0;
+		for (int i = n; i >= 0; i = parent[i]) ++length;
+		long[] steps = new long[length];
+		for (int i = n; i >= 0; i = parent[i]) steps[--length] = location[i];
+		HexCoordinate first = PackedCoordinate.unpack(steps[0]);
+		HexPath result = coster == null ? new HexPath(first) : coster.start(first);
+		for (int i=1; i < steps.length; ++i) {
+			result = result.extend(PackedCoordinate.unpack(steps[i]));
+		}
+		return result;
+	}
+
+	private void push(int n) {
+		if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+		long entry = ((long)cost[n] << 32) | n;
+		int i = heapSize++;
+		while (i > 0) {
+			int p = (i - 1) >>> 1;
+			if (heap[p] <= entry) break;
+			heap[i] = heap[p];
+			i = p;
+		}
+		heap[i] = entry;
+	}
+
+	private int pop() {
+		int result = (int)heap[0];
+		long x = heap[--heapSize];
+		int i = 0;
+		for (;;) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) break;
+			if (child + 1 < heapSize && heap[child + 1] < heap[child]) ++child;
+			if (x <= heap[child]) break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = x;
+		return result;
+	}
+}
@@ -0,0 +1,112 @@
+package edu.uwm.cs351;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Find many paths across the same board at once, in parallel.
+ * <p>
+ * A {@link Search} keeps its worklist and visited set between calls, 
+ * so one searcher cannot be shared between threads. Here each batch 
+ * keeps a queue of idle A* searchers: a task takes one (or makes one 
+ * if none is idle), uses it for its queries, clearing the worklist and 
+ * visited set rather than making new ones, and then puts it back. So 
+ * there are only about as many searchers as tasks running at once. 
+ * The queue belongs to the batch alone, so once the batch ends nothing 
+ * in the pool refers to the searchers or, through them, to the board. 
+ * The board and coster are only read, so they must not be changed 
+ * while a batch is running.
+ */
+public class BatchSearch {
+	private BatchSearch() { } // only static methods
+	
+	/** Number of queries a task solves itself rather than splitting. */
+	private static final int CHUNK = 16;
+	
+	/**
+	 * Find paths for many (start, goal) pairs in parallel using the 
+	 * common ForkJoinPool.
+	 * 
+	 * @param queries  pairs of HexCoordinates, starting location as key 
+	 *                 and goal as value; neither may be null.
+	 * @param b        HexBoard to traverse, must not be changed while 
+	 *                 searching.
+	 * @param c        HexPathCoster to cost paths, must not be changed 
+	 *                 while searching.
+	 * @return         list of HexPaths in the same order as the 
+	 *                 queries, with null for each pair that has no path.
+	 */
+	public static List<HexPath> findAll(List<? extends Map.Entry<HexCoordinate,HexCoordinate>> queries, HexBoard b, HexPathCoster c) {
+		return findAll(queries, b, c, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Find paths for many (start, goal) pairs in parallel using the 
+	 * given pool.
+	 * 
+	 * @param queries  pairs of HexCoordinates, starting location as key 
+	 *                 and goal as value; neither may be null.
+	 * @param b        HexBoard to traverse, must not be changed while 
+	 *                 searching.
+	 * @param c        HexPathCoster to cost paths, must not be changed 
+	 *                 while searching.
+	 * @param pool     ForkJoinPool to run the searches in, must not be 
+	 *                 null.
+	 * @return         list of HexPaths in the same order as the 
+	 *                 queries, with null for each pair that has no path.
+	 */
+	public static List<HexPath> findAll(List<? extends Map.Entry<HexCoordinate,HexCoordinate>> queries, HexBoard b, HexPathCoster c, ForkJoinPool pool) {
+		// copied so that every task can get a query in constant time
+		List<Map.Entry<HexCoordinate,HexCoordinate>> list = new ArrayList<Map.Entry<HexCoordinate,HexCoordinate>>(queries);
+		HexPath[] results = new HexPath[list.size()];
+		pool.invoke(new Task(list, results, 0, list.size(), b, c, new ConcurrentLinkedQueue<Search>()));
+		return Arrays.asList(results);
+	}
+	
+	/**
+	 * Solve a range of queries, splitting it in half while it is large.
+	 */
+	private static class Task extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private final List<Map.Entry<HexCoordinate,HexCoordinate>> queries;
+		private final HexPath[] results;
+		private final int lo, hi;
+		private final HexBoard board;
+		private final HexPathCoster coster;
+		private final Queue<Search> idle; // searchers not in use
+		
+		Task(List<Map.Entry<HexCoordinate,HexCoordinate>> q, HexPath[] r, int l, int h, HexBoard b, HexPathCoster c, Queue<Search> s) {
+			queries = q;
+			results = r;
+			lo = l;
+			hi = h;
+			board = b;
+			coster = c;
+			idle = s;
+		}
+		
+		@Override
+		protected void compute() {
+			if (hi - lo <= CHUNK) {
+				Search search = idle.poll();
+				if (search == null) search = new Search(coster);
+				for (int i=lo; i < hi; ++i) {
+					Map.Entry<HexCoordinate,HexCoordinate> q = queries.get(i);
+					results[i] = search.find(q.getKey(), q.getValue(), board);
+				}
+				idle.add(search);
+				return;
+			}
+			int mid = (lo + hi) >>> 1;
+			invokeAll(new Task(queries, results, lo, mid, board, coster, idle), 
+					new Task(queries, results, mid, hi, board, coster, idle));
+		}
+	}
+}
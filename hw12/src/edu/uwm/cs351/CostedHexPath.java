@@ -0,0 +1,62 @@
+package edu.uwm.cs351;
+
+/**
+ * A HexPath that carries its cost under a particular HexPathCoster.
+ * <p>
+ * The cost is worked out when the path is extended, from the cost of 
+ * the shorter path and the Terrain at the two ends of the new step, so 
+ * comparing two costed paths never walks either of them. Costed paths 
+ * are created by {@link HexPathCoster#start(HexCoordinate)} and 
+ * {@link HexPathCoster#extend(HexPath, HexCoordinate)}.
+ * <p>
+ * The cost is only used while the coster's costs are unchanged; the 
+ * board is assumed not to change while the path is in use.
+ */
+class CostedHexPath extends HexPath {
+	private final HexPathCoster coster;
+	private final int stamp;
+	private final int cost;
+	private final int lastCost;
+	
+	/**
+	 * Create a costed path.
+	 * 
+	 * @param c        HexPathCoster that computed the cost, not null
+	 * @param s        stamp of the coster's costs when computed
+	 * @param p        previous HexPath, may be null
+	 * @param next     next HexCoordinate location, not null
+	 * @param cost     cost of the whole path
+	 * @param lastCost cost of the Terrain at <code>next</code>, or -1 
+	 *                 if there is no HexTile there
+	 */
+	CostedHexPath(HexPathCoster c, int s, HexPath p, HexCoordinate next, int cost, int lastCost) {
+		super(p, next);
+		coster = c;
+		stamp = s;
+		this.cost = cost;
+		this.lastCost = lastCost;
+	}
+	
+	/**
+	 * Return whether the cached cost is valid for the given coster.
+	 * 
+	 * @param c        HexPathCoster asking for the cost
+	 * @param s        current stamp of that coster's costs
+	 * @return         true if the cost was computed by this coster 
+	 *                 with the same costs.
+	 */
+	boolean isCostedBy(HexPathCoster c, int s) {
+		return coster == c && stamp == s;
+	}
+	
+	/** Return the cost of the whole path. */
+	int getCost() { return cost; }
+	
+	/** Return the cost of the Terrain at the last location, or -1. */
+	int getLastCost() { return lastCost; }
+	
+	@Override
+	public HexPath extend(HexCoordinate next) {
+		return coster.extend(this, next);
+	}
+}
@@ -0,0 +1,195 @@
+package edu.uwm.cs351;
+
+import java.util.Arrays;
+
+/**
+ * The cost of the cheapest path from every tile of a board to one goal,
+ * together with the first step of that path.
+ * <p>
+ * When many pieces head for the same place, one cheapest-first search
+ * outward from the goal replaces a separate search for each piece:
+ * since a step costs half of each tile it joins, a path costs the same
+ * in either direction. The field is computed once, over the rectangle
+ * of coordinates covering the board, and kept in two arrays indexed by
+ * position in that rectangle: the cost to the goal and the direction of
+ * the next step. A path from any tile is then read off in time
+ * proportional to its length.
+ * <p>
+ * The field describes the board and costs at the time it was built.
+ */
+public class DistanceField {
+	private static final HexDirection[] DIRECTIONS = HexDirection.values();
+	private static final byte NONE = -1;
+
+	private final HexPathCoster coster;
+	private final HexCoordinate goal;
+	private final int minA, minB, width, height;
+	private final int[] cost;  // cost to the goal, or -1 if none
+	private final byte[] next; // ordinal of HexDirection of next step, or NONE
+
+	/**
+	 * Compute the distance field for a goal.
+	 *
+	 * @param b        HexBoard to traverse, must not be null
+	 * @param c        HexPathCoster for the same board, must not be null
+	 * @param g        HexCoordinate to reach, must not be null
+	 */
+	public DistanceField(HexBoard b, HexPathCoster c, HexCoordinate g) {
+		if (g == null) throw new NullPointerException("goal is null");
+		coster = c;
+		goal = g;
+		int loA = Integer.MAX_VALUE, loB = Integer.MAX_VALUE, hiA = Integer.MIN_VALUE, hiB = Integer.MIN_VALUE;
+		for (HexTile t : b) {
+			HexCoordinate h = t.getLocation();
+			loA = Math.min(loA, h.a());
+			hiA = Math.max(hiA, h.a());
+			loB = Math.min(loB, h.b());
+			hiB = Math.max(hiB, h.b());
+		}
+		if (b.isEmpty()) {
+			loA = hiA = g.a();
+			loB = hiB = g.b();
+		}
+		minA = loA;
+		minB = loB;
+		width = hiA - loA + 1;
+		height = hiB - loB + 1;
+		cost = new int[width * height];
+		next = new byte[width * height];
+		Arrays.fill(cost, -1);
+		Arrays.fill(next, NONE);
+
+		int[] tileCost = new int[width * height];
+		Arrays.fill(tileCost, -1);
+		for (HexTile t : b) {
+			if (t.getTerrain() != Terrain.INACCESSIBLE) {
+				tileCost[indexOf(t.getLocation().a(), t.getLocation().b())] = c.getCost(t.getTerrain());
+			}
+		}
+		int start = indexOf(g.a(), g.b());
+		if (start >= 0 && tileCost[start] >= 0) spread(start, tileCost);
+	}
+
+	/**
+	 * Return the position in the arrays of a coordinate, or -1 if it is
+	 * outside the board's rectangle.
+	 */
+	private int indexOf(int a, int b) {
+		a -= minA;
+		b -= minB;
+		if (a < 0 || a >= width || b < 0 || b >= height) return -1;
+		return b * width + a;
+	}
+
+	/**
+	 * Cheapest-first search outward from the goal. The frontier is a
+	 * binary heap of longs each holding a cost (high half) and a
+	 * position (low half); entries made stale by a cheaper cost are
+	 * skipped when they come out.
+	 */
+	private void spread(int start, int[] tileCost) {
+		long[] heap = new long[16];
+		int heapSize = 0;
+		cost[start] = 0;
+		heap[heapSize++] = start;
+		while (heapSize > 0) {
+			long top = heap[0];
+			heap[0] = heap[--heapSize];
+			siftDown(heap, heapSize);
+			int i = (int)top;
+			int c = (int)(top >>> 32);
+			if (c != cost[i]) continue;
+			long here = PackedCoordinate.pack(i % width + minA, i / width + minB);
+			for (int d = 0; d < DIRECTIONS.length; ++d) {
+				long there = DIRECTIONS[d].applyTo(here);
+				int j = indexOf(PackedCoordinate.a(there), PackedCoordinate.b(there));
+				if (j < 0 || tileCost[j] < 0) continue;
+				long nc = (long)c + tileCost[i] + tileCost[j];
+				if (nc > Integer.MAX_VALUE) continue;
+				if (cost[j] >= 0 && cost[j] <= nc) continue;
+				cost[j] = (int)nc;
+				next[j] = (byte)((d + DIRECTIONS.length / 2) % DIRECTIONS.length); // back toward i
+				if (heapSize == heap.length) heap = Arrays.copyOf(heap, heapSize * 2);
+				heap[heapSize++] = (nc << 32) | j;
+				siftUp(heap, heapSize - 1);
+			}
+		}
+	}
+
+	private static void siftUp(long[] heap, int i) {
+		long x = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) >>> 1;
+			if (heap[parent] <= x) break;
+			heap[i] = heap[parent];
+			i = parent;
+		}
+		heap[i] = x;
+	}
+
+	private static void siftDown(long[] heap, int size) {
+		if (size == 0) return;
+		long x = heap[0];
+		int i = 0;
+		for (;;) {
+			int child = 2 * i + 1;
+			if (child >= size) break;
+			if (child + 1 < size && heap[child + 1] < heap[child]) ++child;
+			if (x <= heap[child]) break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = x;
+	}
+
+	/**
+	 * Return the goal all paths lead to.
+	 *
+	 * @return         the goal HexCoordinate
+	 */
+	public HexCoordinate getGoal() {
+		return goal;
+	}
+
+	/**
+	 * Return the cost of the cheapest path from a coordinate to the goal.
+	 *
+	 * @param from     HexCoordinate to start from, must not be null
+	 * @return         cost of the path, or -1 if there is none
+	 */
+	public int getCost(HexCoordinate from) {
+		int i = indexOf(from.a(), from.b());
+		if (i < 0) return -1;
+		return cost[i];
+	}
+
+	/**
+	 * Return the direction of the first step of the cheapest path from
+	 * a coordinate to the goal.
+	 *
+	 * @param from     HexCoordinate to start from, must not be null
+	 * @return         direction to step in, or null if at the goal or
+	 *                 there is no path
+	 */
+	public HexDirection getDirection(HexCoordinate from) {
+		int i = indexOf(from.a(), from.b());
+		if (i < 0 || next[i] == NONE) return null;
+		return DIRECTIONS[next[i]];
+	}
+
+	/**
+	 * Return the cheapest path from a coordinate to the goal.
+	 *
+	 * @param from     HexCoordinate to start from, must not be null
+	 * @return         HexPath that carries its cost, or null if there is
+	 *                 no path
+	 */
+	public HexPath getPath(HexCoordinate from) {
+		if (getCost(from) < 0) return null;
+		HexPath result = coster.start(from);
+		for (HexDirection d = getDirection(from); d != null; d = getDirection(result.last())) {
+			result = result.extend(d.applyTo(result.last()));
+		}
+		return result;
+	}
+}
@@ -27,6 +27,17 @@ public enum HexDirection {
 		return new HexCoordinate(c.a()+da,c.b()+db);
 	}
 	
+	/**
+	 * Compute the packed coordinate if we go in this direction from 
+	 * the argument, without creating a HexCoordinate.
+	 * 
+	 * @param packed   {@link PackedCoordinate} to start at
+	 * @return         packed coordinate where we end up
+	 */
+	public long applyTo(long packed) {
+		return PackedCoordinate.pack(PackedCoordinate.a(packed)+da, PackedCoordinate.b(packed)+db);
+	}
+	
 	/**
 	 * Compute the direction from the first coordinate to the second.
 	 * Return null, if it's not possible to get from the first to the 
@@ -126,6 +126,22 @@ public class HexPath {
 		assert wellFormed() : "invariant failed after constructor";
 	}
 	
+	/**
+	 * Create a path that extends this path with another location.
+	 * <p>
+	 * Subclasses that carry extra information about a path override 
+	 * this to carry it along to the longer path.
+	 * 
+	 * @param next     next HexCoordinate location, must not be null, 
+	 *                 and must be adjacent to the last location.
+	 * @return         new HexPath ending at <code>next</code>.
+	 * @throws         IllegalArgumentException when <code>next</code> 
+	 *                 is null or not adjacent to the last location.
+	 */
+	public HexPath extend(HexCoordinate next) {
+	    return new HexPath(this, next);
+	}
+	
 	/**
 	 * The distance required to traverse the path from end to end.
 	 * <p>
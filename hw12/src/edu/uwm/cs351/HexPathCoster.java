@@ -22,6 +22,7 @@ public class HexPathCoster implements Comparator<HexPath> {
     private static final int MAX = Integer.MAX_VALUE;
 	private final HexBoard board;
 	private final int[] costs;
+	private int stamp;
 	
 	/**
 	 * Construct a coster in which all Terrain have the same cost (1)
@@ -56,6 +57,98 @@ public class HexPathCoster implements Comparator<HexPath> {
 	 */
 	public void setCost(Terrain t, int c) {
 		costs[t.ordinal()] = c;
+		++stamp; // paths costed earlier are now out of date
+	}
+	
+	/**
+	 * Return a fingerprint of the costs of all Terrain. Costers with 
+	 * the same costs have the same fingerprint, and changing a cost 
+	 * changes the fingerprint (barring a very unlikely collision).
+	 * 
+	 * @return         64-bit hash of the costs.
+	 */
+	public long getFingerprint() {
+	    long result = 17;
+	    for (int c : costs) {
+	        result = result * 0x9E3779B97F4A7C15L + c;
+	    }
+	    return result;
+	}
+	
+	/**
+	 * Return the cost for the HexTile at a coordinate.
+	 * 
+	 * @param h        HexCoordinate to look up (must not be null)
+	 * @return         cost of the Terrain there, or -1 if there is no 
+	 *                 HexTile.
+	 */
+	private int getCost(HexCoordinate h) {
+	    Terrain t = board.terrainAt(h);
+	    if (t == null) return -1;
+	    return getCost(t);
+	}
+	
+	/**
+	 * Create an initial HexPath that carries its cost, so that this 
+	 * coster can compare it (and paths extended from it) without 
+	 * walking the path.
+	 * 
+	 * @param initial  the initial HexCoordinate location, must not be 
+	 *                 null.
+	 * @return         HexPath of size 0 at the given location.
+	 */
+	public HexPath start(HexCoordinate initial) {
+	    return new CostedHexPath(this, stamp, null, initial, 0, getCost(initial));
+	}
+	
+	/**
+	 * Extend a path with another location, computing the cost of the 
+	 * longer path from that of the shorter.
+	 * <p>
+	 * The previous last location becomes an interior location, so 
+	 * its Terrain is counted a second time, and the next location is 
+	 * counted once. Only the new location is looked up on the board 
+	 * when <code>p</code> was costed by this coster.
+	 * 
+	 * @param p        HexPath to extend, must not be null.
+	 * @param next     next HexCoordinate location, must not be null, 
+	 *                 and must be adjacent to the last location of 
+	 *                 <code>p</code>.
+	 * @return         HexPath that carries its cost.
+	 */
+	public HexPath extend(HexPath p, HexCoordinate next) {
+	    int prev, lastCost;
+	    if (p instanceof CostedHexPath && ((CostedHexPath)p).isCostedBy(this, stamp)) {
+	        prev = ((CostedHexPath)p).getCost();
+	        lastCost = ((CostedHexPath)p).getLastCost();
+	    } else {
+	        prev = getCost(p);
+	        lastCost = getCost(p.last());
+	    }
+	    int nextCost = getCost(next);
+	    return new CostedHexPath(this, stamp, p, next, addStep(prev, lastCost, nextCost), nextCost);
+	}
+	
+	/**
+	 * Compute the cost of a path after one more step, following the 
+	 * same rules as {@link #getCost(HexPath)}: the first missing or 
+	 * maximum-cost Terrain along the path decides the result.
+	 * 
+	 * @param prev     cost of the path before the step (0 for a path 
+	 *                 of size 0)
+	 * @param lastCost cost of the Terrain being left, or -1
+	 * @param nextCost cost of the Terrain being entered, or -1
+	 * @return         cost of the longer path
+	 */
+	private static int addStep(int prev, int lastCost, int nextCost) {
+	    if (prev == -1 || prev == MAX) return prev;
+	    if (lastCost == -1 || lastCost == MAX) return lastCost;
+	    long sum = (long)prev + lastCost;
+	    if (sum >= MAX) return MAX;
+	    if (nextCost == -1 || nextCost == MAX) return nextCost;
+	    sum += nextCost;
+	    if (sum >= MAX) return MAX;
+	    return (int)sum;
 	}
 	
 	/**
@@ -67,6 +160,11 @@ public class HexPathCoster implements Comparator<HexPath> {
 	 * is returned instead. If the HexPath would go across a 
 	 * HexCoordinate without a HexTile, -1 is returned (the HexPath is 
 	 * illegal).
+	 * <p>
+	 * A path made by {@link #start(HexCoordinate)} and 
+	 * {@link #extend(HexPath, HexCoordinate)} carries its cost, which 
+	 * is returned without walking the path as long as no cost has been 
+	 * changed since.
 	 * 
 	 * @param p        A HexPath across the board whose cost will be 
 	 *                 calculated.
@@ -74,6 +172,9 @@ public class HexPathCoster implements Comparator<HexPath> {
 	 */
 	public int getCost(HexPath p) {
 	    if (p.size() == 0) return 0;
+	    if (p instanceof CostedHexPath && ((CostedHexPath)p).isCostedBy(this, stamp)) {
+	        return ((CostedHexPath)p).getCost();
+	    }
 		int sum = 0;
 	    HexCoordinate[] path = p.toArray();
 	    for (HexCoordinate h : path) {
@@ -88,6 +189,111 @@ public class HexPathCoster implements Comparator<HexPath> {
 		return sum;
 	}
 
+	/**
+	 * Return the cheapest cost of any Terrain other than 
+	 * {@link Terrain#INACCESSIBLE}.
+	 * <p>
+	 * Every step of a path pays half of the tile it leaves and half of 
+	 * the tile it enters, so no step can cost less than twice this 
+	 * amount.
+	 * 
+	 * @return         the smallest cost of an accessible Terrain.
+	 */
+	public int getMinimumCost() {
+	    int min = MAX;
+	    for (Terrain t : Terrain.values()) {
+	        if (t == Terrain.INACCESSIBLE) continue;
+	        if (costs[t.ordinal()] < min) min = costs[t.ordinal()];
+	    }
+	    return min;
+	}
+
+	/**
+	 * Return the highest cost of any Terrain other than
+	 * {@link Terrain#INACCESSIBLE}.
+	 * <p>
+	 * No step between accessible tiles can cost more than twice this
+	 * amount, which bounds how far apart the costs of the paths
+	 * waiting in a cheapest-first search can be.
+	 *
+	 * @return         the largest cost of an accessible Terrain.
+	 */
+	public int getMaximumCost() {
+	    int max = 0;
+	    for (Terrain t : Terrain.values()) {
+	        if (t == Terrain.INACCESSIBLE) continue;
+	        if (costs[t.ordinal()] > max) max = costs[t.ordinal()];
+	    }
+	    return max;
+	}
+
+	/**
+	 * Estimate the cost of a path if it were continued to the goal.
+	 * <p>
+	 * The estimate is the cost of the path so far plus two halves of 
+	 * the cheapest Terrain for each step still needed to reach the 
+	 * goal. It never overestimates, so a search ordered by it still 
+	 * finds the cheapest path (A* search).
+	 * 
+	 * @param p        HexPath to estimate, must not be null.
+	 * @param goal     HexCoordinate the path is heading for, must not 
+	 *                 be null.
+	 * @return         cost of the path plus the least possible cost 
+	 *                 of the rest of the way.
+	 */
+	public long getEstimate(HexPath p, HexCoordinate goal) {
+	    return (long)getCost(p) + 2L * getMinimumCost() * p.last().distance(goal);
+	}
+	
+	/**
+	 * Return a comparator that orders HexPaths by their 
+	 * {@linkplain #getEstimate(HexPath, HexCoordinate) estimated} cost
+	 * to reach the given goal.
+	 * 
+	 * @param goal     HexCoordinate paths are heading for, must not be 
+	 *                 null.
+	 * @return         Comparator for an A* search toward the goal.
+	 */
+	public Comparator<HexPath> towards(final HexCoordinate goal) {
+	    if (goal == null) throw new NullPointerException("goal is null");
+	    final long step = 2L * getMinimumCost();
+	    return new Comparator<HexPath>() {
+	        @Override
+	        public int compare(HexPath arg0, HexPath arg1) {
+	            return Long.compare(getCost(arg0) + step * arg0.last().distance(goal), 
+	                    getCost(arg1) + step * arg1.last().distance(goal));
+	        }
+	    };
+	}
+	
+	/**
+	 * Return a comparator for a weighted A* search toward the given 
+	 * goal: the estimate of the cost remaining is multiplied by the 
+	 * weight, so that paths nearer the goal are preferred more 
+	 * strongly. Fewer paths are expanded, but a search ordered this 
+	 * way may find a path costing up to <code>weight</code> times the 
+	 * cheapest.
+	 * 
+	 * @param goal     HexCoordinate paths are heading for, must not be 
+	 *                 null.
+	 * @param weight   factor for the estimate, at least 1.
+	 * @return         Comparator for a weighted A* search toward the 
+	 *                 goal.
+	 */
+	public Comparator<HexPath> towards(final HexCoordinate goal, double weight) {
+	    if (goal == null) throw new NullPointerException("goal is null");
+	    if (!(weight >= 1)) throw new IllegalArgumentException("weight must be at least 1: " + weight);
+	    if (weight == 1) return towards(goal);
+	    final double step = 2.0 * getMinimumCost() * weight;
+	    return new Comparator<HexPath>() {
+	        @Override
+	        public int compare(HexPath arg0, HexPath arg1) {
+	            return Double.compare(getCost(arg0) + step * arg0.last().distance(goal), 
+	                    getCost(arg1) + step * arg1.last().distance(goal));
+	        }
+	    };
+	}
+
 	@Override
 	public int compare(HexPath arg0, HexPath arg1) {
 	    return Integer.compare(getCost(arg0), getCost(arg1)); 
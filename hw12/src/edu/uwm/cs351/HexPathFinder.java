@@ -16,10 +16,11 @@ import edu.uwm.cs351.HexBoard;
 import edu.uwm.cs351.HexCoordinate;
 import edu.uwm.cs351.HexTile;
 import edu.uwm.cs351.Terrain;
+import edu.uwm.cs351.util.BucketWorklist;
 import edu.uwm.cs351.util.FIFOWorklist;
+import edu.uwm.cs351.util.IndexedPriorityWorklist;
 import edu.uwm.cs351.util.LIFOWorklist;
 import edu.uwm.cs351.util.PriorityWorklist;
-import edu.uwm.cs351.util.Worklist;
 
 /**
  * Render files of HexTiles on the screen.
@@ -46,18 +47,24 @@ public class HexPathFinder extends JFrame {
 		if (args.length != 4) {
 			System.out.println("Set Run>Run Configurations>Arguments>Program Arguments to have four arguments:");
 			System.out.println("\ta filename (file of hextiles)");
-			System.out.println("\tone of FIFO or LIFO or Priority");
+			System.out.println("\tone of FIFO or LIFO or Priority or Indexed or Bucket or AStar,");
+			System.out.println("\t  or Bidirectional or BidirectionalPriority");
 			System.out.println("\ta starting hex coordinate");
 			System.out.println("\tand ending hex coordinate");
 			System.exit(1);
 		}
-		Worklist<HexPath> worklist;
+		final Search search;
 		HexCoordinate start, end;
 		try {
 			readSeq(board, new BufferedReader(new FileReader(args[0])));
-			if (args[1].equals("FIFO")) worklist = new FIFOWorklist<HexPath>();
-			else if (args[1].equals("LIFO")) worklist = new LIFOWorklist<HexPath>();
-			else if (args[1].equals("Priority")) worklist = new PriorityWorklist<HexPath>(defaultCoster);
+			if (args[1].equals("FIFO")) search = new Search(new FIFOWorklist<HexPath>());
+			else if (args[1].equals("LIFO")) search = new Search(new LIFOWorklist<HexPath>());
+			else if (args[1].equals("Priority")) search = new Search(new PriorityWorklist<HexPath>(defaultCoster), defaultCoster);
+			else if (args[1].equals("Indexed")) search = new Search(new IndexedPriorityWorklist<HexPath>(defaultCoster, HexPath::last), defaultCoster);
+			else if (args[1].equals("Bucket")) search = new Search(new BucketWorklist<HexPath>(defaultCoster::getCost, 2*defaultCoster.getMaximumCost()+1), defaultCoster);
+			else if (args[1].equals("AStar")) search = new Search(defaultCoster);
+			else if (args[1].equals("Bidirectional")) search = new Search(new FIFOWorklist<HexPath>());
+			else if (args[1].equals("BidirectionalPriority")) search = new Search(new PriorityWorklist<HexPath>(defaultCoster), defaultCoster);
 			else {
 				System.out.println("Unknown worklist type: " + args[1]);
 				System.exit(1);
@@ -78,8 +85,11 @@ public class HexPathFinder extends JFrame {
 			System.exit(1);
 			return;
 		}
-		final Search search = new Search(worklist);
-		final HexPath path = search.find(start, end, board);
+		final HexPath path;
+		search.setTimed(true);
+		if (args[1].startsWith("Bidirectional")) path = search.findBidirectional(start, end, board);
+		else path = search.find(start, end, board);
+		System.out.println(search.getMetrics().toJson());
 		if (path == null) {
 			System.out.println("No path found.");
 		}
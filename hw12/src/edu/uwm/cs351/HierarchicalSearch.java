@@ -0,0 +1,420 @@
+package edu.uwm.cs351;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import edu.uwm.cs351.util.LongHashSet;
+
+/**
+ * Find paths across large HexBoards by planning over clusters of tiles
+ * first (hierarchical path-finding, HPA*).
+ * <p>
+ * The board is cut into square clusters of coordinates: tiles whose
+ * first coordinates agree after dividing by the cluster size, and whose
+ * second coordinates do too. Where two neighboring clusters touch, each
+ * run of adjacent crossings gets one <em>transition</em>: a pair of
+ * adjacent tiles, one in each cluster, which become entrances of their
+ * clusters. The cheapest path within a cluster between each pair of its
+ * entrances is precomputed. A query connects the start and goal to the
+ * entrances of their own clusters, searches this small abstract graph,
+ * and then fills in each abstract step with a path inside one cluster.
+ * <p>
+ * A path is found whenever one exists, but it may cost a little more
+ * than the cheapest path, since paths are forced through the chosen
+ * transitions. When a tile is changed, {@link #tileChanged(HexCoordinate)}
+ * rebuilds only the cluster of that tile and any neighboring cluster
+ * it touches; when costs are changed, {@link #rebuild()} must be called.
+ */
+public class HierarchicalSearch {
+	private static final HexDirection[] DIRECTIONS = HexDirection.values();
+
+	private final HexBoard board;
+	private final HexPathCoster coster;
+	private final int size;
+
+	private final Set<Long> clusters = new HashSet<Long>();
+	// transitions.get(c).get(d): pairs {in c, in d} of adjacent tiles used to cross
+	private final Map<Long,Map<Long,List<HexCoordinate[]>>> transitions = new HashMap<Long,Map<Long,List<HexCoordinate[]>>>();
+	private final Map<Long,Set<HexCoordinate>> entrances = new HashMap<Long,Set<HexCoordinate>>();
+	// abstract graph: costs of steps between clusters, and of paths within one
+	private final Map<HexCoordinate,Map<HexCoordinate,Integer>> inter = new HashMap<HexCoordinate,Map<HexCoordinate,Integer>>();
+	private final Map<HexCoordinate,Map<HexCoordinate,Integer>> intra = new HashMap<HexCoordinate,Map<HexCoordinate,Integer>>();
+	private int expanded;
+
+	/**
+	 * Create a hierarchical searcher for a board, and build its
+	 * clusters.
+	 *
+	 * @param b        HexBoard to search, must not be null
+	 * @param c        HexPathCoster for the same board, must not be null
+	 * @param s        number of coordinates along each side of a
+	 *                 cluster, at least 2
+	 */
+	public HierarchicalSearch(HexBoard b, HexPathCoster c, int s) {
+		if (b == null || c == null) throw new NullPointerException("board and coster must not be null");
+		if (s < 2) throw new IllegalArgumentException("cluster size must be at least 2: " + s);
+		board = b;
+		coster = c;
+		size = s;
+		rebuild();
+	}
+
+	/**
+	 * Rebuild all clusters from scratch, for example after a cost has
+	 * been changed.
+	 */
+	public void rebuild() {
+		clusters.clear();
+		transitions.clear();
+		entrances.clear();
+		inter.clear();
+		intra.clear();
+		for (HexTile t : board) {
+			clusters.add(clusterOf(t.getLocation()));
+		}
+		for (long c : clusters) {
+			findTransitions(c);
+		}
+		for (long c : clusters) {
+			connect(c);
+		}
+	}
+
+	/**
+	 * Update the clusters after a tile has been added, removed or
+	 * changed on the board. Only the cluster holding the tile and
+	 * neighboring clusters it touches are rebuilt.
+	 *
+	 * @param h        HexCoordinate of the changed tile, must not be null
+	 */
+	public void tileChanged(HexCoordinate h) {
+		long c = clusterOf(h);
+		if (board.terrainAt(h) != null) clusters.add(c);
+		Set<Long> touched = new HashSet<Long>();
+		touched.add(c);
+		for (HexDirection d : DIRECTIONS) {
+			long n = clusterOf(d.applyTo(h));
+			if (clusters.contains(n)) touched.add(n);
+		}
+		findTransitions(c);
+		for (long t : touched) {
+			connect(t);
+		}
+	}
+
+	/**
+	 * Return the number of abstract nodes expanded during the most
+	 * recent search.
+	 *
+	 * @return         number of entrances (and start) expanded by the
+	 *                 last call to {@link #find(HexCoordinate, HexCoordinate)}.
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Return the number of entrances in all clusters.
+	 *
+	 * @return         number of nodes in the abstract graph
+	 */
+	public int getEntrances() {
+		int result = 0;
+		for (Set<HexCoordinate> s : entrances.values()) {
+			result += s.size();
+		}
+		return result;
+	}
+
+	private long clusterOf(HexCoordinate h) {
+		return PackedCoordinate.pack(Math.floorDiv(h.a(), size), Math.floorDiv(h.b(), size));
+	}
+
+	private boolean canEnter(HexCoordinate h) {
+		Terrain t = board.terrainAt(h);
+		return t != null && t != Terrain.INACCESSIBLE;
+	}
+
+	private int stepCost(HexCoordinate h1, HexCoordinate h2) {
+		return coster.getCost(coster.extend(coster.start(h1), h2));
+	}
+
+	/**
+	 * Find the transitions between a cluster and each of its neighbors,
+	 * replacing any found before.
+	 * <p>
+	 * Every pair of adjacent accessible tiles across the border is a
+	 * crossing; crossings next to each other on both sides form a run,
+	 * and the middle crossing of each run is kept.
+	 */
+	private void findTransitions(long c) {
+		Map<Long,List<HexCoordinate[]>> crossings = new HashMap<Long,List<HexCoordinate[]>>();
+		int a0 = PackedCoordinate.a(c) * size, b0 = PackedCoordinate.b(c) * size;
+		for (int b = b0; b < b0 + size; ++b) {
+			for (int a = a0; a < a0 + size; ++a) {
+				if (a != a0 && a != a0 + size - 1 && b != b0 && b != b0 + size - 1) continue;
+				HexCoordinate u = new HexCoordinate(a, b);
+				if (!canEnter(u)) continue;
+				for (HexDirection d : DIRECTIONS) {
+					HexCoordinate v = d.applyTo(u);
+					long n = clusterOf(v);
+					if (n == c || !canEnter(v)) continue;
+					List<HexCoordinate[]> list = crossings.get(n);
+					if (list == null) crossings.put(n, list = new ArrayList<HexCoordinate[]>());
+					list.add(new HexCoordinate[] {u, v});
+				}
+			}
+		}
+		Map<Long,List<HexCoordinate[]>> old = transitions.get(c);
+		Set<Long> neighbors = new HashSet<Long>(crossings.keySet());
+		if (old != null) neighbors.addAll(old.keySet());
+		for (long n : neighbors) {
+			List<HexCoordinate[]> found = crossings.get(n);
+			if (found == null) found = Collections.emptyList();
+			// choose from the side of the lower cluster, so both clusters choose alike
+			boolean flip = n < c;
+			setTransitions(c, n, flip(chooseTransitions(flip(found, flip)), flip));
+		}
+	}
+
+	private static List<HexCoordinate[]> flip(List<HexCoordinate[]> pairs, boolean flip) {
+		if (!flip) return pairs;
+		List<HexCoordinate[]> result = new ArrayList<HexCoordinate[]>();
+		for (HexCoordinate[] p : pairs) {
+			result.add(new HexCoordinate[] {p[1], p[0]});
+		}
+		return result;
+	}
+
+	private static int compare(HexCoordinate h1, HexCoordinate h2) {
+		if (h1.b() != h2.b()) return Integer.compare(h1.b(), h2.b());
+		return Integer.compare(h1.a(), h2.a());
+	}
+
+	/**
+	 * Split crossings into runs and return the middle crossing of each.
+	 * The crossings are sorted first, so that the choice does not
+	 * depend on the order they were found.
+	 */
+	private static List<HexCoordinate[]> chooseTransitions(List<HexCoordinate[]> crossings) {
+		crossings = new ArrayList<HexCoordinate[]>(crossings);
+		crossings.sort((p, q) -> compare(p[0], q[0]) != 0 ? compare(p[0], q[0]) : compare(p[1], q[1]));
+		List<HexCoordinate[]> result = new ArrayList<HexCoordinate[]>();
+		boolean[] grouped = new boolean[crossings.size()];
+		for (int i=0; i < crossings.size(); ++i) {
+			if (grouped[i]) continue;
+			List<HexCoordinate[]> run = new ArrayList<HexCoordinate[]>();
+			grouped[i] = true;
+			run.add(crossings.get(i));
+			for (int j=0; j < run.size(); ++j) {
+				HexCoordinate[] p = run.get(j);
+				for (int k=0; k < crossings.size(); ++k) {
+					HexCoordinate[] q = crossings.get(k);
+					if (grouped[k] || p[0].distance(q[0]) > 1 || p[1].distance(q[1]) > 1) continue;
+					grouped[k] = true;
+					run.add(q);
+				}
+			}
+			result.add(run.get(run.size() / 2));
+		}
+		return result;
+	}
+
+	/**
+	 * Replace the transitions between two clusters, keeping the steps
+	 * of the abstract graph up to date.
+	 */
+	private void setTransitions(long c, long n, List<HexCoordinate[]> pairs) {
+		for (HexCoordinate[] p : transitionsOf(c, n)) {
+			removeEdge(inter, p[0], p[1]);
+			removeEdge(inter, p[1], p[0]);
+		}
+		List<HexCoordinate[]> reversed = new ArrayList<HexCoordinate[]>();
+		for (HexCoordinate[] p : pairs) {
+			int cost = stepCost(p[0], p[1]);
+			addEdge(inter, p[0], p[1], cost);
+			addEdge(inter, p[1], p[0], cost);
+			reversed.add(new HexCoordinate[] {p[1], p[0]});
+		}
+		putTransitions(c, n, pairs);
+		putTransitions(n, c, reversed);
+	}
+
+	private List<HexCoordinate[]> transitionsOf(long c, long n) {
+		Map<Long,List<HexCoordinate[]>> m = transitions.get(c);
+		if (m == null || !m.containsKey(n)) return Collections.emptyList();
+		return m.get(n);
+	}
+
+	private void putTransitions(long c, long n, List<HexCoordinate[]> pairs) {
+		Map<Long,List<HexCoordinate[]>> m = transitions.get(c);
+		if (m == null) transitions.put(c, m = new HashMap<Long,List<HexCoordinate[]>>());
+		if (pairs.isEmpty()) m.remove(n);
+		else m.put(n, pairs);
+	}
+
+	private static void addEdge(Map<HexCoordinate,Map<HexCoordinate,Integer>> g, HexCoordinate h1, HexCoordinate h2, int cost) {
+		Map<HexCoordinate,Integer> m = g.get(h1);
+		if (m == null) g.put(h1, m = new HashMap<HexCoordinate,Integer>());
+		m.put(h2, cost);
+	}
+
+	private static void removeEdge(Map<HexCoordinate,Map<HexCoordinate,Integer>> g, HexCoordinate h1, HexCoordinate h2) {
+		Map<HexCoordinate,Integer> m = g.get(h1);
+		if (m == null) return;
+		m.remove(h2);
+		if (m.isEmpty()) g.remove(h1);
+	}
+
+	/**
+	 * Recompute the entrances of a cluster and the cheapest paths
+	 * within the cluster between them.
+	 */
+	private void connect(long c) {
+		Set<HexCoordinate> old = entrances.remove(c);
+		if (old != null) {
+			for (HexCoordinate h : old) intra.remove(h);
+		}
+		Set<HexCoordinate> nodes = new HashSet<HexCoordinate>();
+		Map<Long,List<HexCoordinate[]>> m = transitions.get(c);
+		if (m != null) {
+			for (List<HexCoordinate[]> pairs : m.values()) {
+				for (HexCoordinate[] p : pairs) nodes.add(p[0]);
+			}
+		}
+		if (nodes.isEmpty()) return;
+		entrances.put(c, nodes);
+		for (HexCoordinate h : nodes) {
+			Map<HexCoordinate,HexPath> paths = searchWithin(h, c, nodes);
+			for (Map.Entry<HexCoordinate,HexPath> e : paths.entrySet()) {
+				if (!e.getKey().equals(h)) addEdge(intra, h, e.getKey(), coster.getCost(e.getValue()));
+			}
+		}
+	}
+
+	/**
+	 * Find the cheapest paths that stay inside one cluster from a
+	 * location to each of the targets that can be reached.
+	 */
+	private Map<HexCoordinate,HexPath> searchWithin(HexCoordinate from, long c, Set<HexCoordinate> targets) {
+		Map<HexCoordinate,HexPath> result = new HashMap<HexCoordinate,HexPath>();
+		LongHashSet done = new LongHashSet();
+		PriorityQueue<HexPath> queue = new PriorityQueue<HexPath>(coster);
+		queue.add(coster.start(from));
+		while (!queue.isEmpty() && result.size() < targets.size()) {
+			HexPath p = queue.remove();
+			long last = PackedCoordinate.pack(p.last());
+			if (!done.add(last)) continue;
+			if (targets.contains(p.last())) result.put(p.last(), p);
+			for (HexDirection d : DIRECTIONS) {
+				long next = d.applyTo(last);
+				if (done.contains(next)) continue;
+				HexCoordinate h = PackedCoordinate.unpack(next);
+				if (clusterOf(h) == c && canEnter(h)) queue.add(p.extend(h));
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * A node on the frontier of the abstract search.
+	 */
+	private static class Step {
+		final HexCoordinate node;
+		final long cost, estimate;
+		Step(HexCoordinate n, long c, long e) {
+			node = n;
+			cost = c;
+			estimate = e;
+		}
+	}
+
+	/**
+	 * Find a path across the board.
+	 *
+	 * @param from     HexCoordinate to start from (must not be null).
+	 * @param to       HexCoordinate to reach (must not be null).
+	 * @return         a HexPath that carries its cost, or null if no
+	 *                 path exists.
+	 */
+	public HexPath find(HexCoordinate from, HexCoordinate to) {
+		expanded = 0;
+		if (!canEnter(from) || !canEnter(to)) return null;
+		if (from.equals(to)) return coster.start(from);
+		long cf = clusterOf(from), ct = clusterOf(to);
+		Set<HexCoordinate> targets = new HashSet<HexCoordinate>();
+		if (entrances.containsKey(cf)) targets.addAll(entrances.get(cf));
+		if (cf == ct) targets.add(to);
+		final Map<HexCoordinate,HexPath> out = searchWithin(from, cf, targets);
+		final Map<HexCoordinate,HexPath> in = entrances.containsKey(ct) ?
+				searchWithin(to, ct, entrances.get(ct)) : new HashMap<HexCoordinate,HexPath>();
+
+		// A* over the entrances
+		final long step = 2L * coster.getMinimumCost();
+		Map<HexCoordinate,Long> best = new HashMap<HexCoordinate,Long>();
+		Map<HexCoordinate,HexCoordinate> parent = new HashMap<HexCoordinate,HexCoordinate>();
+		Set<HexCoordinate> done = new HashSet<HexCoordinate>();
+		PriorityQueue<Step> queue = new PriorityQueue<Step>((s1, s2) -> Long.compare(s1.estimate, s2.estimate));
+		best.put(from, 0L);
+		queue.add(new Step(from, 0, step * from.distance(to)));
+		while (!queue.isEmpty()) {
+			Step s = queue.remove();
+			if (!done.add(s.node)) continue;
+			++expanded;
+			if (s.node.equals(to)) break;
+			Map<HexCoordinate,Integer> edges = new HashMap<HexCoordinate,Integer>();
+			if (intra.containsKey(s.node)) edges.putAll(intra.get(s.node));
+			if (inter.containsKey(s.node)) edges.putAll(inter.get(s.node));
+			if (s.node.equals(from)) {
+				for (Map.Entry<HexCoordinate,HexPath> e : out.entrySet()) edges.put(e.getKey(), coster.getCost(e.getValue()));
+			}
+			if (in.containsKey(s.node)) edges.put(to, coster.getCost(in.get(s.node)));
+			for (Map.Entry<HexCoordinate,Integer> e : edges.entrySet()) {
+				HexCoordinate n = e.getKey();
+				long cost = s.cost + e.getValue();
+				if (done.contains(n) || (best.containsKey(n) && best.get(n) <= cost)) continue;
+				best.put(n, cost);
+				parent.put(n, s.node);
+				queue.add(new Step(n, cost, cost + step * n.distance(to)));
+			}
+		}
+		if (!done.contains(to)) return null;
+
+		List<HexCoordinate> nodes = new ArrayList<HexCoordinate>();
+		for (HexCoordinate h = to; h != null; h = parent.get(h)) nodes.add(h);
+		Collections.reverse(nodes);
+
+		// refine each abstract step into a path inside one cluster
+		HexPath result = coster.start(from);
+		for (int i=1; i < nodes.size(); ++i) {
+			HexCoordinate x = nodes.get(i-1), y = nodes.get(i);
+			if (i == 1 && out.containsKey(y)) {
+				result = append(result, out.get(y).toArray(), false);
+			} else if (y.equals(to) && in.containsKey(x)) {
+				result = append(result, in.get(x).toArray(), true);
+			} else if (clusterOf(x) != clusterOf(y)) {
+				result = result.extend(y);
+			} else {
+				result = append(result, searchWithin(x, clusterOf(x), Collections.singleton(y)).get(y).toArray(), false);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Extend a path with the coordinates of a segment that starts where
+	 * the path ends.
+	 */
+	private static HexPath append(HexPath p, HexCoordinate[] segment, boolean reversed) {
+		for (int i=1; i < segment.length; ++i) {
+			p = p.extend(segment[reversed ? segment.length - 1 - i : i]);
+		}
+		return p;
+	}
+}
@@ -0,0 +1,288 @@
+package edu.uwm.cs351;
+
+import java.util.PriorityQueue;
+
+import edu.uwm.cs351.util.LongHashSet;
+import edu.uwm.cs351.util.LongIntHashMap;
+
+/**
+ * Find cheapest paths to a goal on a board that changes between
+ * searches, repairing the previous search instead of starting over
+ * (D* Lite).
+ * <p>
+ * The planner searches backward from the goal and keeps two tables
+ * between calls: <em>g</em>, the cost to the goal found for each
+ * location, and <em>rhs</em>, the cost of the best step from each
+ * location to a neighbor plus that neighbor's g. A location whose two
+ * values disagree is inconsistent and waits in a priority queue. When
+ * {@link #tileChanged(HexCoordinate)} reports an edit, only the edited
+ * location and its neighbors are re-examined, and the next call to
+ * {@link #find(HexCoordinate, HexCoordinate)} spreads the change only
+ * as far as it affects the path from the start. The start may move
+ * between calls (as a unit walks along its path) without losing the
+ * tables.
+ * <p>
+ * Paths cost the same as with {@link HexPathCoster#getCost(HexPath)}:
+ * each step pays for the tile it leaves and the tile it enters. Asking
+ * for a different goal, or changing a cost in the coster, needs a new
+ * search; call {@link #reset()} after changing costs.
+ */
+public class IncrementalSearch {
+	private static final HexDirection[] DIRECTIONS = HexDirection.values();
+	private static final int INF = Integer.MAX_VALUE;
+
+	private final HexBoard board;
+	private final HexPathCoster coster;
+
+	private HexCoordinate goal;
+	private long start;     // PackedCoordinate of the last start
+	private int km;         // total heuristic drift as the start moved
+	private long step;      // least cost of one step, for the heuristic
+	private final LongIntHashMap g = new LongIntHashMap();
+	private final LongIntHashMap rhs = new LongIntHashMap();
+	// stamp of each location's live queue entry, 0 if it is not queued
+	private final LongIntHashMap queued = new LongIntHashMap();
+	private final PriorityQueue<Entry> queue = new PriorityQueue<Entry>();
+	private int stamp;
+	private int expanded;
+
+	/**
+	 * An entry in the queue. Entries are not removed when a location's
+	 * key changes; instead the stamp of the old entry no longer matches.
+	 */
+	private static class Entry implements Comparable<Entry> {
+		final long key;
+		final long location;
+		final int stamp;
+		Entry(long k, long l, int s) {
+			key = k;
+			location = l;
+			stamp = s;
+		}
+		@Override
+		public int compareTo(Entry o) {
+			return Long.compare(key, o.key);
+		}
+	}
+
+	/**
+	 * Create an incremental planner for a board.
+	 *
+	 * @param b        HexBoard to search, must not be null
+	 * @param c        HexPathCoster for the same board, must not be null
+	 */
+	public IncrementalSearch(HexBoard b, HexPathCoster c) {
+		if (b == null || c == null) throw new NullPointerException("board and coster must not be null");
+		board = b;
+		coster = c;
+	}
+
+	/**
+	 * Forget all earlier work, so that the next search starts from
+	 * scratch, for example after a cost has been changed.
+	 */
+	public void reset() {
+		goal = null;
+	}
+
+	/**
+	 * Report that a tile has been added, removed or changed on the
+	 * board. The work is done lazily by the next search.
+	 *
+	 * @param h        HexCoordinate of the changed tile, must not be null
+	 */
+	public void tileChanged(HexCoordinate h) {
+		if (goal == null) return;
+		long x = PackedCoordinate.pack(h);
+		update(x);
+		for (HexDirection d : DIRECTIONS) {
+			update(d.applyTo(x));
+		}
+	}
+
+	/**
+	 * Return the number of locations taken from the queue during the
+	 * most recent search.
+	 *
+	 * @return         number of locations expanded by the last call to
+	 *                 {@link #find(HexCoordinate, HexCoordinate)}
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Find a cheapest path on the board, reusing the work of the
+	 * previous search when the goal is the same.
+	 *
+	 * @param from     HexCoordinate to start from, must not be null
+	 * @param to       HexCoordinate to reach, must not be null
+	 * @return         HexPath that carries its cost, or null if no path
+	 *                 is found
+	 */
+	public HexPath find(HexCoordinate from, HexCoordinate to) {
+		if (from == null || to == null) throw new NullPointerException("coordinates must not be null");
+		expanded = 0;
+		long s = PackedCoordinate.pack(from);
+		if (!to.equals(goal)) initialize(s, to);
+		else if (s != start) {
+			km = add(km, heuristic(start, s));
+			start = s;
+		}
+		if (tileCost(s) == INF) return null;
+		computeShortestPath();
+		if (g.get(s, INF) == INF) return null;
+		return extract(from);
+	}
+
+	private void initialize(long s, HexCoordinate to) {
+		goal = to;
+		start = s;
+		km = 0;
+		step = 2L * coster.getMinimumCost();
+		g.clear();
+		rhs.clear();
+		queued.clear();
+		queue.clear();
+		long x = PackedCoordinate.pack(to);
+		if (tileCost(x) == INF) return;
+		rhs.put(x, 0);
+		enqueue(x);
+	}
+
+	/**
+	 * Return the cost of a tile, or INF if it cannot be entered.
+	 */
+	private int tileCost(long x) {
+		Terrain t = board.terrainAt(PackedCoordinate.unpack(x));
+		if (t == null || t == Terrain.INACCESSIBLE) return INF;
+		return coster.getCost(t);
+	}
+
+	private static int add(long a, long b) {
+		long sum = a + b;
+		return sum >= INF ? INF : (int)sum;
+	}
+
+	/**
+	 * Lower bound on the cost between two locations.
+	 */
+	private int heuristic(long a, long b) {
+		HexCoordinate p = PackedCoordinate.unpack(a), q = PackedCoordinate.unpack(b);
+		return add(0, step * p.distance(q));
+	}
+
+	/**
+	 * Return the key of a location: first the least possible cost of a
+	 * path from the start through it, then its cost to the goal; packed
+	 * into a long so the first half decides unless the two are equal.
+	 */
+	private long keyOf(long x) {
+		int m = Math.min(g.get(x, INF), rhs.get(x, INF));
+		int k1 = m == INF ? INF : add(add(m, heuristic(start, x)), km);
+		return ((long)k1 << 31) | m;
+	}
+
+	private void enqueue(long x) {
+		queued.put(x, ++stamp);
+		queue.add(new Entry(keyOf(x), x, stamp));
+	}
+
+	/**
+	 * Recompute rhs of a location from its neighbors, and queue it if it
+	 * is now inconsistent.
+	 */
+	private void update(long x) {
+		if (!PackedCoordinate.unpack(x).equals(goal)) {
+			int best = INF;
+			int here = tileCost(x);
+			if (here != INF) {
+				for (HexDirection d : DIRECTIONS) {
+					long y = d.applyTo(x);
+					int gy = g.get(y, INF);
+					if (gy == INF) continue;
+					int there = tileCost(y);
+					if (there == INF) continue;
+					best = Math.min(best, add(add(here, there), gy));
+				}
+			}
+			if (best != rhs.get(x, INF)) rhs.put(x, best);
+		} else if (tileCost(x) == INF) rhs.put(x, INF);
+		else rhs.put(x, 0);
+		if (g.get(x, INF) != rhs.get(x, INF)) enqueue(x);
+		else if (queued.get(x, 0) != 0) queued.put(x, 0);
+	}
+
+	/**
+	 * Remove stale entries from the front of the queue.
+	 */
+	private Entry peek() {
+		while (!queue.isEmpty()) {
+			Entry e = queue.peek();
+			if (queued.get(e.location, 0) == e.stamp) return e;
+			queue.remove();
+		}
+		return null;
+	}
+
+	private void computeShortestPath() {
+		for (;;) {
+			Entry e = peek();
+			if (e == null) break;
+			if (e.key >= keyOf(start) && rhs.get(start, INF) == g.get(start, INF)) break;
+			long x = e.location;
+			long key = keyOf(x);
+			if (e.key < key) {
+				queue.remove();
+				enqueue(x); // key grew as the start moved
+				continue;
+			}
+			queue.remove();
+			queued.put(x, 0);
+			++expanded;
+			int gx = g.get(x, INF), rx = rhs.get(x, INF);
+			if (gx > rx) {
+				g.put(x, rx);
+			} else {
+				g.put(x, INF);
+				update(x);
+			}
+			for (HexDirection d : DIRECTIONS) {
+				update(d.applyTo(x));
+			}
+		}
+	}
+
+	/**
+	 * Follow the cheapest step from each location to the goal.
+	 */
+	private HexPath extract(HexCoordinate from) {
+		HexPath result = coster.start(from);
+		LongHashSet seen = new LongHashSet();
+		long x = PackedCoordinate.pack(from);
+		long end = PackedCoordinate.pack(goal);
+		seen.add(x);
+		while (x != end) {
+			int here = tileCost(x);
+			long next = 0;
+			int best = INF;
+			for (HexDirection d : DIRECTIONS) {
+				long y = d.applyTo(x);
+				int gy = g.get(y, INF);
+				if (gy == INF || seen.contains(y)) continue;
+				int there = tileCost(y);
+				if (there == INF) continue;
+				int c = add(add(here, there), gy);
+				if (c < best) {
+					best = c;
+					next = y;
+				}
+			}
+			if (best == INF) return null;
+			seen.add(next);
+			x = next;
+			result = result.extend(PackedCoordinate.unpack(x));
+		}
+		return result;
+	}
+}
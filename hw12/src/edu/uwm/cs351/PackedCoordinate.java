@@ -0,0 +1,59 @@
+package edu.uwm.cs351;
+
+/**
+ * Pack a HexCoordinate into a single long, so that searches can keep 
+ * track of locations without creating objects.
+ * <p>
+ * The first coordinate is kept in the high 32 bits and the second in 
+ * the low 32 bits; the third coordinate is always the difference of 
+ * the first two so it does not need to be stored.
+ */
+public final class PackedCoordinate {
+	private PackedCoordinate() { } // only static methods
+	
+	/**
+	 * Pack two coordinates into a long.
+	 * @param a first coordinate
+	 * @param b second coordinate
+	 * @return packed coordinate
+	 */
+	public static long pack(int a, int b) {
+		return ((long)a << 32) | (b & 0xFFFFFFFFL);
+	}
+	
+	/**
+	 * Pack a HexCoordinate into a long.
+	 * @param h HexCoordinate to pack, must not be null
+	 * @return packed coordinate
+	 */
+	public static long pack(HexCoordinate h) {
+		return pack(h.a(), h.b());
+	}
+	
+	/**
+	 * Return the first coordinate of a packed coordinate.
+	 * @param packed packed coordinate
+	 * @return the first coordinate
+	 */
+	public static int a(long packed) {
+		return (int)(packed >> 32);
+	}
+	
+	/**
+	 * Return the second coordinate of a packed coordinate.
+	 * @param packed packed coordinate
+	 * @return the second coordinate
+	 */
+	public static int b(long packed) {
+		return (int)packed;
+	}
+	
+	/**
+	 * Create the HexCoordinate for a packed coordinate.
+	 * @param packed packed coordinate
+	 * @return new HexCoordinate (not null)
+	 */
+	public static HexCoordinate unpack(long packed) {
+		return new HexCoordinate(a(packed), b(packed));
+	}
+}
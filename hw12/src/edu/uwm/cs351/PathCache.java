@@ -0,0 +1,133 @@
+package edu.uwm.cs351;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded cache of paths found by a {@link Search}, for programs that 
+ * ask for the same (start, goal) pairs again and again.
+ * <p>
+ * Entries are kept by start, goal and the 
+ * {@linkplain HexPathCoster#getFingerprint() fingerprint} of the 
+ * coster's costs, so after {@link HexPathCoster#setCost(Terrain, int)} 
+ * the old entries are simply no longer found, and they are discarded 
+ * as the least recently used. The HexBoard does not make its 
+ * modification count public, so whenever the board is changed the 
+ * cache must be told with {@link #boardChanged()}; searching a 
+ * different board also empties the cache.
+ */
+public class PathCache {
+	private final Search search;
+	private final HexPathCoster coster;
+	private final Map<Key,HexPath> cache;
+	private HexBoard board;
+	private int hits, misses;
+	
+	/**
+	 * The identity of a query.
+	 */
+	private static class Key {
+		final HexCoordinate from, to;
+		final long fingerprint;
+		Key(HexCoordinate f, HexCoordinate t, long p) {
+			from = f;
+			to = t;
+			fingerprint = p;
+		}
+		@Override
+		public boolean equals(Object x) {
+			if (!(x instanceof Key)) return false;
+			Key k = (Key)x;
+			return from.equals(k.from) && to.equals(k.to) && fingerprint == k.fingerprint;
+		}
+		@Override
+		public int hashCode() {
+			return from.hashCode() * 31 + to.hashCode() ^ Long.hashCode(fingerprint);
+		}
+	}
+	
+	/**
+	 * Create a cache in front of a searcher.
+	 * 
+	 * @param s        Search to find paths not in the cache, not null
+	 * @param c        HexPathCoster used by the search (or to compare 
+	 *                 its paths), not null
+	 * @param capacity maximum number of paths to keep, at least 1
+	 */
+	public PathCache(Search s, HexPathCoster c, final int capacity) {
+		if (s == null || c == null) throw new NullPointerException("search and coster must not be null");
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+		search = s;
+		coster = c;
+		cache = new LinkedHashMap<Key,HexPath>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key,HexPath> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+	
+	/**
+	 * Find a path through a hex board, reusing the result of an earlier 
+	 * identical query when the board and costs are unchanged.
+	 * 
+	 * @param from     HexCoordinate to start from (must not be null).
+	 * @param to       HexCoordinate to reach (must not be null).
+	 * @param b        HexBoard to traverse.
+	 * @return         the HexPath found, or null if no path is found.
+	 */
+	public HexPath find(HexCoordinate from, HexCoordinate to, HexBoard b) {
+		if (b != board) {
+			cache.clear();
+			board = b;
+		}
+		Key k = new Key(from, to, coster.getFingerprint());
+		if (cache.containsKey(k)) {
+			++hits;
+			return cache.get(k);
+		}
+		++misses;
+		HexPath result = search.find(from, to, b);
+		cache.put(k, result);
+		return result;
+	}
+	
+	/**
+	 * Discard every cached path, because the board has changed.
+	 */
+	public void boardChanged() {
+		cache.clear();
+	}
+	
+	/**
+	 * Return the number of paths currently cached.
+	 * @return         number of entries
+	 */
+	public int size() {
+		return cache.size();
+	}
+	
+	/**
+	 * Return the number of queries answered from the cache.
+	 * @return         number of hits since creation or the last reset
+	 */
+	public int getHits() {
+		return hits;
+	}
+	
+	/**
+	 * Return the number of queries that needed a search.
+	 * @return         number of misses since creation or the last reset
+	 */
+	public int getMisses() {
+		return misses;
+	}
+	
+	/**
+	 * Set the hit and miss counters back to zero.
+	 */
+	public void resetCounters() {
+		hits = misses = 0;
+	}
+}
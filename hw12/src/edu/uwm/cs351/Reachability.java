@@ -0,0 +1,279 @@
+package edu.uwm.cs351;
+
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
+import edu.uwm.cs351.util.LongIntHashMap;
+
+/**
+ * Find every location that can be reached from a start within a budget
+ * of cost, for example the legal moves of a piece.
+ * <p>
+ * Each query floods outward from the start in order of cost, the way a
+ * cheapest-first search does, but stops at the budget instead of at a
+ * goal. Since a step costs at most twice the highest terrain cost, the
+ * frontier is kept in a small circular array of buckets, one per cost,
+ * rather than in a heap (Dial's algorithm); a heap is used only when the
+ * costs are too large for that. The cost table and buckets are kept and
+ * reused by later queries, so that a query for every piece on every
+ * frame allocates little beyond its result.
+ * <p>
+ * The cost of each tile looked up on the board is also kept between
+ * queries, since the ranges of pieces overlap and change little from
+ * frame to frame. So {@link #tileChanged(HexCoordinate)} must be called
+ * when a tile is added, removed or changed, and {@link #reset()} when a
+ * cost is changed.
+ * <p>
+ * Costs are those of {@link HexPathCoster#getCost(HexPath)}. A
+ * Reachability is not safe to use from more than one thread at once.
+ */
+public class Reachability {
+	private static final HexDirection[] DIRECTIONS = HexDirection.values();
+	private static final int INF = Integer.MAX_VALUE;
+	private static final int INITIAL_BUCKET = 16;
+	private static final int MAX_BUCKETS = 1 << 12;
+
+	private final HexBoard board;
+	private final HexPathCoster coster;
+
+	// scratch space reused by every query
+	private final LongIntHashMap best = new LongIntHashMap();
+	private final LongIntHashMap tileCosts = new LongIntHashMap(); // -1 if not known
+	private final LongIntHashMap nearby = new LongIntHashMap(); // tile costs used by this query
+	private long[][] buckets = new long[0][];
+	private int[] counts = new int[0];
+
+	/**
+	 * Create a reachability finder for a board.
+	 *
+	 * @param b        HexBoard to search, must not be null
+	 * @param c        HexPathCoster for the same board, must not be null
+	 */
+	public Reachability(HexBoard b, HexPathCoster c) {
+		if (b == null || c == null) throw new NullPointerException("board and coster must not be null");
+		board = b;
+		coster = c;
+	}
+
+	/**
+	 * The locations reachable from a start, each with the cost of the
+	 * cheapest path to it. The locations are kept sorted in one array
+	 * of packed coordinates, with their costs in a parallel array.
+	 */
+	public static final class Region {
+		private final HexCoordinate start;
+		private final int budget;
+		private final long[] locations; // sorted PackedCoordinates
+		private final int[] costs;
+
+		private Region(HexCoordinate s, int b, long[] l, int[] c) {
+			start = s;
+			budget = b;
+			locations = l;
+			costs = c;
+		}
+
+		/**
+		 * Return the location the region was found from.
+		 * @return         starting HexCoordinate
+		 */
+		public HexCoordinate getStart() {
+			return start;
+		}
+
+		/**
+		 * Return the budget the region was found with.
+		 * @return         largest cost of a location in the region
+		 */
+		public int getBudget() {
+			return budget;
+		}
+
+		/**
+		 * Return the number of locations reachable, including the start.
+		 * @return         size of the region
+		 */
+		public int size() {
+			return locations.length;
+		}
+
+		/**
+		 * Return one location of the region.
+		 * @param i        index, from 0 to size()-1
+		 * @return         the HexCoordinate at that index
+		 */
+		public HexCoordinate getLocation(int i) {
+			return PackedCoordinate.unpack(locations[i]);
+		}
+
+		/**
+		 * Return the cost of reaching one location of the region.
+		 * @param i        index, from 0 to size()-1
+		 * @return         cost of the cheapest path to the location at
+		 *                 that index
+		 */
+		public int getCost(int i) {
+			return costs[i];
+		}
+
+		/**
+		 * Return the cost of reaching a location.
+		 * @param h        HexCoordinate to look up, must not be null
+		 * @return         cost of the cheapest path to it, or -1 if it
+		 *                 cannot be reached within the budget
+		 */
+		public int getCost(HexCoordinate h) {
+			int i = Arrays.binarySearch(locations, PackedCoordinate.pack(h));
+			return i < 0 ? -1 : costs[i];
+		}
+
+		/**
+		 * Return whether a location can be reached within the budget.
+		 * @param h        HexCoordinate to look up, must not be null
+		 * @return         true if it is in the region
+		 */
+		public boolean contains(HexCoordinate h) {
+			return Arrays.binarySearch(locations, PackedCoordinate.pack(h)) >= 0;
+		}
+	}
+
+	/**
+	 * Forget the cost of every tile, for example after a cost has been
+	 * changed.
+	 */
+	public void reset() {
+		tileCosts.clear();
+	}
+
+	/**
+	 * Forget the cost of one tile after it has been added, removed or
+	 * changed on the board.
+	 *
+	 * @param h        HexCoordinate of the changed tile, must not be null
+	 */
+	public void tileChanged(HexCoordinate h) {
+		long x = PackedCoordinate.pack(h);
+		if (tileCosts.containsKey(x)) tileCosts.put(x, -1);
+	}
+
+	/**
+	 * Return the cost of a tile, or INF if it cannot be entered. Each
+	 * tile is looked up on the board only once until it is changed.
+	 * Since each tile is asked for by up to six neighbors, the costs
+	 * used by one query are also copied into a small table that stays
+	 * in the processor's cache.
+	 */
+	private int tileCost(long x) {
+		int result = nearby.get(x, -1);
+		if (result >= 0) return result;
+		result = tileCosts.get(x, -1);
+		if (result < 0) {
+			Terrain t = board.terrainAt(PackedCoordinate.unpack(x));
+			if (t == null || t == Terrain.INACCESSIBLE) result = INF;
+			else result = coster.getCost(t);
+			tileCosts.put(x, result);
+		}
+		nearby.put(x, result);
+		return result;
+	}
+
+	private void push(int bucket, long x) {
+		if (counts[bucket] == buckets[bucket].length) {
+			buckets[bucket] = Arrays.copyOf(buckets[bucket], counts[bucket] * 2);
+		}
+		buckets[bucket][counts[bucket]++] = x;
+	}
+
+	/**
+	 * Find every location reachable from a start for at most the given
+	 * cost.
+	 *
+	 * @param from     HexCoordinate to start from, must not be null
+	 * @param budget   largest cost allowed, must not be negative
+	 * @return         the region reachable; empty if the start cannot be
+	 *                 entered
+	 */
+	public Region find(HexCoordinate from, int budget) {
+		if (from == null) throw new NullPointerException("start is null");
+		if (budget < 0) throw new IllegalArgumentException("negative budget: " + budget);
+		best.clear();
+		nearby.clear();
+		long s = PackedCoordinate.pack(from);
+		if (tileCost(s) == INF) return new Region(from, budget, new long[0], new int[0]);
+
+		best.put(s, 0);
+		long range = Math.min(2L * coster.getMaximumCost() + 1, (long)budget + 1);
+		if (range > MAX_BUCKETS) floodHeap(s, budget);
+		else floodBuckets(s, budget, (int)range);
+
+		long[] locations = new long[best.size()];
+		int[] n = new int[1];
+		best.forEachKey((x) -> locations[n[0]++] = x);
+		Arrays.sort(locations);
+		int[] costs = new int[locations.length];
+		for (int i=0; i < locations.length; ++i) {
+			costs[i] = best.get(locations[i], INF);
+		}
+		return new Region(from, budget, locations, costs);
+	}
+
+	/**
+	 * Flood outward using buckets: bucket <code>c % range</code> holds
+	 * the locations reached for cost c. Since no step costs range or
+	 * more, a bucket never holds two different costs at once.
+	 */
+	private void floodBuckets(long s, int budget, int range) {
+		if (buckets.length < range) {
+			long[][] more = Arrays.copyOf(buckets, range);
+			for (int i = buckets.length; i < range; ++i) more[i] = new long[INITIAL_BUCKET];
+			buckets = more;
+			counts = Arrays.copyOf(counts, range);
+		}
+		push(0, s);
+		int waiting = 1;
+		for (int cost = 0; waiting > 0; ++cost) {
+			int bucket = cost % range;
+			while (counts[bucket] > 0) {
+				long x = buckets[bucket][--counts[bucket]];
+				--waiting;
+				if (best.get(x, INF) != cost) continue; // reached more cheaply
+				int here = tileCost(x);
+				for (HexDirection d : DIRECTIONS) {
+					long y = d.applyTo(x);
+					int there = tileCost(y);
+					if (there == INF) continue;
+					long c = (long)cost + here + there;
+					if (c > budget || c >= best.get(y, INF)) continue;
+					best.put(y, (int)c);
+					push((int)(c % range), y);
+					++waiting;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Flood outward using a heap of {cost, location} pairs, for costs
+	 * too large to give each its own bucket.
+	 */
+	private void floodHeap(long s, int budget) {
+		PriorityQueue<long[]> heap = new PriorityQueue<long[]>((p, q) -> Long.compare(p[0], q[0]));
+		heap.add(new long[] {0, s});
+		while (!heap.isEmpty()) {
+			long[] top = heap.remove();
+			long x = top[1];
+			int cost = (int)top[0];
+			if (best.get(x, INF) != cost) continue; // reached more cheaply
+			int here = tileCost(x);
+			for (HexDirection d : DIRECTIONS) {
+				long y = d.applyTo(x);
+				int there = tileCost(y);
+				if (there == INF) continue;
+				long c = (long)cost + here + there;
+				if (c > budget || c >= best.get(y, INF)) continue;
+				best.put(y, (int)c);
+				heap.add(new long[] {c, y});
+			}
+		}
+	}
+}
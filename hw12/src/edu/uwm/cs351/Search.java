@@ -3,9 +3,19 @@ package edu.uwm.cs351;
 import java.awt.Color;
 import java.awt.Graphics;
 import java.awt.Point;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Queue;
 
+import edu.uwm.cs351.util.LongHashSet;
+import edu.uwm.cs351.util.PriorityWorklist;
 import edu.uwm.cs351.util.Worklist;
 
 /**
@@ -20,8 +30,17 @@ import edu.uwm.cs351.util.Worklist;
  * interpret the text adventure in the context of search. 
  */
 public class Search {
+	private static final HexDirection[] DIRECTIONS = HexDirection.values();
+	
 	private final Worklist<HexPath> worklist;
-	private final Set<HexCoordinate> visited = new HashSet<HexCoordinate>();
+	private Comparator<HexPath> towardsGoal; // for A*: order of the worklist
+	private final HexPathCoster coster;
+	private final boolean aStar;
+	private final double weight; // for A*: how much to trust the estimate
+	private final LongHashSet visited = new LongHashSet(); // of PackedCoordinate
+	private SearchMetrics metrics;
+	private Run current; // search started with start(), if still going
+	private boolean timed;
 	
 	/**
 	 * Create a searcher that uses the given Worklist.
@@ -30,13 +49,86 @@ public class Search {
 	 */
 	public Search(Worklist<HexPath> w) {
 		worklist = w;
+		coster = null;
+		aStar = false;
+		weight = 1;
+	}
+	
+	/**
+	 * Create a searcher that uses the given Worklist, with paths that 
+	 * carry their cost under the given coster.
+	 * <p>
+	 * A {@link PriorityWorklist} ordered by the same coster can then 
+	 * compare paths without walking them.
+	 * 
+	 * @param w        Worklist to use to find HexPath.
+	 * @param c        HexPathCoster that costs the paths, must not be 
+	 *                 null.
+	 */
+	public Search(Worklist<HexPath> w, HexPathCoster c) {
+	    if (c == null) throw new NullPointerException("coster is null");
+	    worklist = w;
+	    coster = c;
+	    aStar = false;
+	    weight = 1;
+	}
+	
+	/**
+	 * Create a searcher that performs A* search: paths are taken in 
+	 * order of their cost plus an estimate of the cost remaining to 
+	 * reach the goal.
+	 * <p>
+	 * The paths found are as cheap as those found with a 
+	 * {@link PriorityWorklist} using the same coster, but far fewer 
+	 * paths are expanded when the goal lies in one direction.
+	 * 
+	 * @param c        HexPathCoster used to cost paths, must not be 
+	 *                 null.
+	 */
+	public Search(HexPathCoster c) {
+	    this(c, 1);
+	}
+	
+	/**
+	 * Create a searcher that performs weighted A* search: the estimate 
+	 * of the cost remaining is multiplied by the weight, so the search 
+	 * heads for the goal more greedily and expands fewer paths. The 
+	 * path found costs at most <code>w</code> times as much as the 
+	 * cheapest path.
+	 * 
+	 * @param c        HexPathCoster used to cost paths, must not be 
+	 *                 null.
+	 * @param w        weight of the estimate, at least 1; 1 gives 
+	 *                 ordinary A* search.
+	 */
+	public Search(HexPathCoster c, double w) {
+	    if (c == null) throw new NullPointerException("coster is null");
+	    if (!(w >= 1)) throw new IllegalArgumentException("weight must be at least 1: " + w);
+	    coster = c;
+	    aStar = true;
+	    weight = w;
+	    // one worklist for every search, ordered towards the current goal
+	    worklist = new PriorityWorklist<HexPath>((p1, p2) -> towardsGoal.compare(p1, p2));
+	}
+	
+	/**
+	 * Return how far from the cheapest the paths this searcher finds 
+	 * may be.
+	 * 
+	 * @return         factor by which the cost of a path found may 
+	 *                 exceed the cheapest: the weight for a weighted A* 
+	 *                 search, otherwise 1 (or infinity without a coster, 
+	 *                 since costs are then not considered at all).
+	 */
+	public double getBound() {
+	    if (coster == null) return Double.POSITIVE_INFINITY;
+	    return weight;
 	}
 	
 	private void clear() {
+		current = null;
 		visited.clear();
-		while (worklist.hasNext()) {
-		    worklist.next();
-		}
+		worklist.clear();
 	}
 	
 	/**
@@ -49,48 +141,624 @@ public class Search {
 	 *                 null if no path is found.                     
 	 */
 	public HexPath find(HexCoordinate from, HexCoordinate to, HexBoard b) {
+		Run run = start(from, to, b);
+		run.runFor(-1);
+		return run.getResult();
+	}
+	
+	/**
+	 * Find a path through a hex board, giving up when a budget runs out.
+	 * <p>
+	 * If the search ends within the budget, the result is exact: the 
+	 * path that {@link #find(HexCoordinate, HexCoordinate, HexBoard)} 
+	 * would return, or no path if there is none. Otherwise the result 
+	 * is partial: the best path expanded so far, as given by 
+	 * {@link Run#getClosest()}.
+	 * 
+	 * @param from     HexCoordinate to start from (must not be null).
+	 * @param to       HexCoordinate to reach (must not be null).
+	 * @param b        HexBoard to traverse.
+	 * @param maxExpanded  most paths to expand, or a negative number 
+	 *                 for no limit.
+	 * @param nanos    most nanoseconds to search, or a negative number 
+	 *                 for no limit.
+	 * @return         the result, exact or partial.
+	 */
+	public Result find(HexCoordinate from, HexCoordinate to, HexBoard b, int maxExpanded, long nanos) {
+	    Run run = start(from, to, b);
+	    if (run.run(maxExpanded, nanos)) return new Result(run.getResult(), true);
+	    HexPath best = run.getClosest();
+	    run.cancel();
+	    return new Result(best, false);
+	}
+	
+	/**
+	 * The result of a search that may have been cut short.
+	 */
+	public static class Result {
+	    private final HexPath path;
+	    private final boolean exact;
+	    
+	    private Result(HexPath p, boolean e) {
+	        path = p;
+	        exact = e;
+	    }
+	    
+	    /**
+	     * Return the path found.
+	     * @return     if exact, the path to the goal, or null if there 
+	     *             is none; if partial, the best path toward the 
+	     *             goal found before the budget ran out, or null if 
+	     *             the search could not start.
+	     */
+	    public HexPath getPath() {
+	        return path;
+	    }
+	    
+	    /**
+	     * Return whether the search finished within its budget.
+	     * @return     true if the result is exact, false if partial
+	     */
+	    public boolean isExact() {
+	        return exact;
+	    }
+	}
+	
+	/**
+	 * Start a search through a hex board that the caller carries out 
+	 * one expansion at a time, for example to animate it, or to stop it 
+	 * when time runs out. The search takes the same steps and finds 
+	 * the same path as {@link #find(HexCoordinate, HexCoordinate, HexBoard)}.
+	 * <p>
+	 * The run uses this searcher's worklist, so starting another search 
+	 * (with either method) ends it: its methods then throw 
+	 * IllegalStateException.
+	 * 
+	 * @param from     HexCoordinate to start from (must not be null).
+	 * @param to       HexCoordinate to reach (must not be null).
+	 * @param b        HexBoard to traverse.
+	 * @return         the search, which has not yet expanded anything.
+	 */
+	public Run start(HexCoordinate from, HexCoordinate to, HexBoard b) {
 		clear();
-		Terrain initial = b.terrainAt(from);
-		if (initial == null || initial == Terrain.INACCESSIBLE) return null; // can't go anywhere
-		worklist.add(new HexPath(from));
-		while (worklist.hasNext()) {
-		    HexPath p = worklist.next();
-		    visited.add(p.last());
-		    if (p.last().equals(to)) return p;
-		    for (HexDirection d : HexDirection.values()) {
-                HexCoordinate h = d.applyTo(p.last());
-                Terrain t = b.terrainAt(h);
-                if ((t != null) && (t != Terrain.INACCESSIBLE) && (!(visited.contains(h)))) 
-                    worklist.add(new HexPath(p, h));
-            }
-		}
-		return null;
+		if (aStar) towardsGoal = coster.towards(to, weight);
+		metrics = new SearchMetrics("find", from, to, timed);
+		current = new Run(from, to, b);
+		return current;
+	}
+	
+	/**
+	 * One step of a search: a path taken from the worklist, and the 
+	 * paths that extend it by one tile that were added to the worklist.
+	 */
+	public static class Expansion {
+	    private final HexPath path;
+	    private final List<HexPath> added;
+	    private final boolean goal;
+	    
+	    private Expansion(HexPath p, List<HexPath> a, boolean g) {
+	        path = p;
+	        added = Collections.unmodifiableList(a);
+	        goal = g;
+	    }
+	    
+	    /**
+	     * Return the path expanded.
+	     * @return     HexPath taken from the worklist
+	     */
+	    public HexPath getPath() {
+	        return path;
+	    }
+	    
+	    /**
+	     * Return the paths added to the worklist.
+	     * @return     unmodifiable list of the extensions of the path, 
+	     *             empty if the path reached the goal
+	     */
+	    public List<HexPath> getAdded() {
+	        return added;
+	    }
+	    
+	    /**
+	     * Return whether the path reached the goal, ending the search.
+	     * @return     true if this was the last expansion
+	     */
+	    public boolean isGoal() {
+	        return goal;
+	    }
+	}
+	
+	/**
+	 * A search in progress, as an iterator over its expansions. Each 
+	 * call to {@link #next()} does exactly one expansion, so the caller 
+	 * can pause by not calling it and cancel with {@link #cancel()}. 
+	 * Paths taken from the worklist whose location has already been 
+	 * reached are skipped without an event.
+	 */
+	public class Run implements Iterator<Expansion> {
+	    private final HexCoordinate to;
+	    private final HexBoard board;
+	    private HexPath pending; // next path to expand, if found already
+	    private HexPath result;
+	    private HexPath closest; // best expanded path toward the goal
+	    private long closestScore;
+	    private boolean done, cancelled;
+	    
+	    private Run(HexCoordinate from, HexCoordinate t, HexBoard b) {
+	        to = t;
+	        board = b;
+	        // the first push is worklist time, so it has to count in the total too
+	        long started = System.nanoTime();
+	        Terrain initial = terrainAt(b, from);
+	        if (initial == null || initial == Terrain.INACCESSIBLE) finish(null); // can't go anywhere
+	        else push(coster == null ? new HexPath(from) : coster.start(from));
+	        metrics.totalNanos += System.nanoTime() - started;
+	    }
+	    
+	    private void checkCurrent() {
+	        if (current != this) throw new IllegalStateException("another search has been started");
+	    }
+	    
+	    private void finish(HexPath p) {
+	        result = p;
+	        done = true;
+	        metrics.finish(p, coster);
+	    }
+	    
+	    /**
+	     * Take paths from the worklist until one reaches a new location.
+	     * @return     whether there is a path to expand
+	     */
+	    private boolean fetch() {
+	        while (pending == null && !done) {
+	            if (!worklist.hasNext()) {
+	                finish(null);
+	                break;
+	            }
+	            HexPath p = pop();
+	            if (visited.add(PackedCoordinate.pack(p.last()))) pending = p;
+	            // otherwise already reached more directly
+	        }
+	        return pending != null;
+	    }
+	    
+	    /**
+	     * Expand the pending path.
+	     * @param added    list to add the new paths to, or null
+	     * @return         whether the path reached the goal
+	     */
+	    private boolean expand(List<HexPath> added) {
+	        HexPath p = pending;
+	        pending = null;
+	        ++metrics.expanded;
+	        if (p.last().equals(to)) {
+	            closest = p;
+	            finish(p);
+	            return true;
+	        }
+	        long score = coster == null ? p.last().distance(to) : coster.getEstimate(p, to);
+	        if (closest == null || score < closestScore) {
+	            closest = p;
+	            closestScore = score;
+	        }
+	        long last = PackedCoordinate.pack(p.last());
+	        for (HexDirection d : DIRECTIONS) {
+	            long next = d.applyTo(last);
+	            if (visited.contains(next)) {
+	                ++metrics.skipped;
+	                continue;
+	            }
+	            // the board needs a HexCoordinate, so only make one for new locations
+	            HexCoordinate h = PackedCoordinate.unpack(next);
+	            if (canEnter(terrainAt(board, h))) {
+	                HexPath longer = p.extend(h);
+	                push(longer);
+	                if (added != null) added.add(longer);
+	            }
+	        }
+	        return false;
+	    }
+	    
+	    @Override
+	    public boolean hasNext() {
+	        checkCurrent();
+	        long started = System.nanoTime();
+	        boolean more = fetch();
+	        metrics.totalNanos += System.nanoTime() - started;
+	        return more;
+	    }
+	    
+	    @Override
+	    public Expansion next() {
+	        checkCurrent();
+	        long started = System.nanoTime();
+	        if (!fetch()) throw new NoSuchElementException("search is over");
+	        HexPath p = pending;
+	        List<HexPath> added = new ArrayList<HexPath>();
+	        boolean goal = expand(added);
+	        metrics.totalNanos += System.nanoTime() - started;
+	        return new Expansion(p, added, goal);
+	    }
+	    
+	    /**
+	     * Carry on the search until it is over or the time allowed has 
+	     * passed.
+	     * 
+	     * @param nanos    nanoseconds allowed, or a negative number to 
+	     *                 run without a limit.
+	     * @return         true if the search is over.
+	     */
+	    public boolean runFor(long nanos) {
+	        return run(-1, nanos);
+	    }
+	    
+	    /**
+	     * Carry on the search until it is over, or it has expanded the 
+	     * number of paths allowed, or the time allowed has passed. If 
+	     * the next path to expand reaches the goal, the search finishes 
+	     * even when the budget is used up.
+	     * 
+	     * @param maxExpanded  most paths to expand in this call, or a 
+	     *                 negative number to run without a limit.
+	     * @param nanos    nanoseconds allowed, or a negative number to 
+	     *                 run without a limit.
+	     * @return         true if the search is over.
+	     */
+	    public boolean run(int maxExpanded, long nanos) {
+	        checkCurrent();
+	        long started = System.nanoTime();
+	        int count = 0;
+	        boolean late = false;
+	        while (fetch()) {
+	            // reading the clock every time would slow the search, but 
+	            // it is read before the first expansion, so that no time 
+	            // allowed means no work done
+	            if (nanos >= 0 && (count & 63) == 0 && System.nanoTime() - started >= nanos) late = true;
+	            // reaching the goal is not held back by the budget
+	            if ((count == maxExpanded || late) && !pending.last().equals(to)) break;
+	            if (expand(null)) break;
+	            ++count;
+	        }
+	        metrics.totalNanos += System.nanoTime() - started;
+	        return done;
+	    }
+	    
+	    /**
+	     * End the search without a result. Later calls to 
+	     * {@link #hasNext()} return false.
+	     */
+	    public void cancel() {
+	        checkCurrent();
+	        if (done) return;
+	        pending = null;
+	        cancelled = true;
+	        finish(null);
+	    }
+	    
+	    /**
+	     * Return whether the search is over: it has reached the goal, 
+	     * run out of paths, or been cancelled.
+	     * @return     true if the search is over
+	     */
+	    public boolean isDone() {
+	        return done;
+	    }
+	    
+	    /**
+	     * Return whether the search was cancelled.
+	     * @return     true if {@link #cancel()} ended the search
+	     */
+	    public boolean isCancelled() {
+	        return cancelled;
+	    }
+	    
+	    /**
+	     * Return the path found.
+	     * @return     the HexPath reaching the goal, or null if the 
+	     *             search is not over, found no path, or was 
+	     *             cancelled
+	     */
+	    public HexPath getResult() {
+	        return result;
+	    }
+	    
+	    /**
+	     * Return the best path toward the goal expanded so far: the one 
+	     * whose end is nearest the goal, or with a coster, the one with 
+	     * the least {@linkplain HexPathCoster#getEstimate(HexPath, HexCoordinate) 
+	     * estimated} cost to reach the goal. Ties go to the path 
+	     * expanded first.
+	     * @return     the best path so far, or null if nothing has been 
+	     *             expanded
+	     */
+	    public HexPath getClosest() {
+	        return closest;
+	    }
+	}
+	
+	private void push(HexPath p) {
+	    if (!timed) {
+	        worklist.add(p);
+	    } else {
+	        long started = System.nanoTime();
+	        worklist.add(p);
+	        metrics.worklistNanos += System.nanoTime() - started;
+	    }
+	    // an indexed worklist may replace a path instead of adding one
+	    metrics.push(worklist.size());
+	}
+	
+	private HexPath pop() {
+	    metrics.pop();
+	    if (!timed) return worklist.next();
+	    long started = System.nanoTime();
+	    HexPath result = worklist.next();
+	    metrics.worklistNanos += System.nanoTime() - started;
+	    return result;
+	}
+	
+	private void push(Queue<HexPath> q, HexPath p) {
+	    metrics.push();
+	    if (!timed) {
+	        q.add(p);
+	        return;
+	    }
+	    long started = System.nanoTime();
+	    q.add(p);
+	    metrics.worklistNanos += System.nanoTime() - started;
+	}
+	
+	private HexPath pop(Queue<HexPath> q) {
+	    metrics.pop();
+	    if (!timed) return q.remove();
+	    long started = System.nanoTime();
+	    HexPath result = q.remove();
+	    metrics.worklistNanos += System.nanoTime() - started;
+	    return result;
+	}
+	
+	private Terrain terrainAt(HexBoard b, HexCoordinate h) {
+	    ++metrics.terrainLookups;
+	    return b.terrainAt(h);
+	}
+	
+	/**
+	 * Find a path through a hex board by searching from both ends at 
+	 * once, stopping when the two searches meet.
+	 * <p>
+	 * Without a coster, both searches go breadth first and the path 
+	 * found has the fewest steps. With a coster, both searches take 
+	 * the cheapest path first, and the search stops only when no path 
+	 * through the remaining frontiers can be cheaper than the best 
+	 * meeting found so far; the path found is as cheap as one found 
+	 * with a {@link PriorityWorklist}. The worklist given to the 
+	 * constructor is not used.
+	 * <p>
+	 * Locations expanded from either end are marked visited.
+	 * 
+	 * @param from     HexCoordinate to start from (must not be null).
+	 * @param to       HexCoordinate to reach (must not be null).
+	 * @param b        HexBoard to traverse.
+	 * @return         a HexPath from <code>from</code> to 
+	 *                 <code>to</code>, or null if no path is found.
+	 */
+	public HexPath findBidirectional(HexCoordinate from, HexCoordinate to, HexBoard b) {
+	    clear();
+	    metrics = new SearchMetrics("bidirectional", from, to, timed);
+	    long started = System.nanoTime();
+	    HexPath result;
+	    if (!canEnter(terrainAt(b, from)) || !canEnter(terrainAt(b, to))) result = null;
+	    else if (from.equals(to)) {
+	        visited.add(PackedCoordinate.pack(from));
+	        ++metrics.expanded;
+	        result = coster == null ? new HexPath(from) : coster.start(from);
+	    }
+	    else if (coster == null) result = meetBreadthFirst(from, to, b);
+	    else result = meetCheapest(from, to, b);
+	    metrics.totalNanos = System.nanoTime() - started;
+	    metrics.finish(result, coster);
+	    return result;
+	}
+	
+	private static boolean canEnter(Terrain t) {
+	    return t != null && t != Terrain.INACCESSIBLE;
+	}
+	
+	/**
+	 * Grow breadth-first frontiers from both ends, a whole level at a 
+	 * time from whichever frontier is smaller. The first level that 
+	 * reaches the other side contains the shortest meeting.
+	 */
+	private HexPath meetBreadthFirst(HexCoordinate from, HexCoordinate to, HexBoard b) {
+	    Map<HexCoordinate,HexPath> forward = new HashMap<HexCoordinate,HexPath>();
+	    Map<HexCoordinate,HexPath> backward = new HashMap<HexCoordinate,HexPath>();
+	    List<HexPath> forwardLevel = new ArrayList<HexPath>();
+	    List<HexPath> backwardLevel = new ArrayList<HexPath>();
+	    HexPath p = new HexPath(from), q = new HexPath(to);
+	    forward.put(from, p);
+	    forwardLevel.add(p);
+	    metrics.push();
+	    backward.put(to, q);
+	    backwardLevel.add(q);
+	    metrics.push();
+	    while (!forwardLevel.isEmpty() && !backwardLevel.isEmpty()) {
+	        boolean isForward = forwardLevel.size() <= backwardLevel.size();
+	        Map<HexCoordinate,HexPath> mine = isForward ? forward : backward;
+	        Map<HexCoordinate,HexPath> theirs = isForward ? backward : forward;
+	        List<HexPath> next = new ArrayList<HexPath>();
+	        HexPath best = null, bestOther = null;
+	        for (HexPath path : isForward ? forwardLevel : backwardLevel) {
+	            metrics.pop();
+	            visited.add(PackedCoordinate.pack(path.last()));
+	            ++metrics.expanded;
+	            for (HexDirection d : DIRECTIONS) {
+	                HexCoordinate h = d.applyTo(path.last());
+	                if (mine.containsKey(h)) {
+	                    ++metrics.skipped;
+	                    continue;
+	                }
+	                if (!canEnter(terrainAt(b, h))) continue;
+	                HexPath longer = path.extend(h);
+	                mine.put(h, longer);
+	                next.add(longer);
+	                metrics.push();
+	                HexPath other = theirs.get(h);
+	                if (other != null && (best == null || 
+	                        longer.size() + other.size() < best.size() + bestOther.size())) {
+	                    best = longer;
+	                    bestOther = other;
+	                }
+	            }
+	        }
+	        if (best != null) return isForward ? join(best, bestOther) : join(bestOther, best);
+	        if (isForward) forwardLevel = next;
+	        else backwardLevel = next;
+	    }
+	    return null;
+	}
+	
+	/**
+	 * Run cheapest-first searches from both ends, expanding whichever 
+	 * frontier is smaller. Each time a location is reached from one 
+	 * side that the other side has also reached, the joined cost is a 
+	 * candidate. Once the cheapest paths left on the two frontiers 
+	 * together cost at least as much as the best candidate, no 
+	 * cheaper meeting remains.
+	 */
+	private HexPath meetCheapest(HexCoordinate from, HexCoordinate to, HexBoard b) {
+	    Map<HexCoordinate,HexPath> forward = new HashMap<HexCoordinate,HexPath>();
+	    Map<HexCoordinate,HexPath> backward = new HashMap<HexCoordinate,HexPath>();
+	    LongHashSet forwardDone = new LongHashSet();
+	    LongHashSet backwardDone = new LongHashSet();
+	    PriorityQueue<HexPath> forwardQueue = new PriorityQueue<HexPath>(coster);
+	    PriorityQueue<HexPath> backwardQueue = new PriorityQueue<HexPath>(coster);
+	    HexPath p = coster.start(from), q = coster.start(to);
+	    forward.put(from, p);
+	    push(forwardQueue, p);
+	    backward.put(to, q);
+	    push(backwardQueue, q);
+	    HexPath best = null, bestOther = null;
+	    long bestCost = Long.MAX_VALUE;
+	    for (;;) {
+	        while (!forwardQueue.isEmpty() && forwardDone.contains(PackedCoordinate.pack(forwardQueue.peek().last()))) pop(forwardQueue);
+	        while (!backwardQueue.isEmpty() && backwardDone.contains(PackedCoordinate.pack(backwardQueue.peek().last()))) pop(backwardQueue);
+	        if (forwardQueue.isEmpty() || backwardQueue.isEmpty()) break;
+	        if ((long)coster.getCost(forwardQueue.peek()) + coster.getCost(backwardQueue.peek()) >= bestCost) break;
+	        boolean isForward = forwardQueue.size() <= backwardQueue.size();
+	        Map<HexCoordinate,HexPath> mine = isForward ? forward : backward;
+	        Map<HexCoordinate,HexPath> theirs = isForward ? backward : forward;
+	        LongHashSet done = isForward ? forwardDone : backwardDone;
+	        PriorityQueue<HexPath> queue = isForward ? forwardQueue : backwardQueue;
+	        HexPath path = pop(queue);
+	        long last = PackedCoordinate.pack(path.last());
+	        done.add(last);
+	        visited.add(last);
+	        ++metrics.expanded;
+	        for (HexDirection d : DIRECTIONS) {
+	            long next = d.applyTo(last);
+	            if (done.contains(next)) {
+	                ++metrics.skipped;
+	                continue;
+	            }
+	            HexCoordinate h = PackedCoordinate.unpack(next);
+	            if (!canEnter(terrainAt(b, h))) continue;
+	            HexPath longer = path.extend(h);
+	            HexPath old = mine.get(h);
+	            if (old != null && coster.getCost(old) <= coster.getCost(longer)) continue;
+	            mine.put(h, longer);
+	            push(queue, longer);
+	            HexPath other = theirs.get(h);
+	            if (other != null && (long)coster.getCost(longer) + coster.getCost(other) < bestCost) {
+	                bestCost = (long)coster.getCost(longer) + coster.getCost(other);
+	                best = isForward ? longer : other;
+	                bestOther = isForward ? other : longer;
+	            }
+	        }
+	    }
+	    if (best == null) return null;
+	    return join(best, bestOther);
+	}
+	
+	/**
+	 * Join a path from the start to a meeting place with a path from 
+	 * the goal to the same place.
+	 * 
+	 * @param forward  HexPath from the start to the meeting place
+	 * @param backward HexPath from the goal to the meeting place
+	 * @return         HexPath from the start to the goal
+	 */
+	private static HexPath join(HexPath forward, HexPath backward) {
+	    HexCoordinate[] rest = backward.toArray();
+	    HexPath result = forward;
+	    for (int i = rest.length - 2; i >= 0; --i) {
+	        result = result.extend(rest[i]);
+	    }
+	    return result;
+	}
+	
+	/**
+	 * Return the number of paths taken from the worklist during the 
+	 * most recent search.
+	 * 
+	 * @return         number of paths expanded by the last call to 
+	 *                 {@link #find(HexCoordinate, HexCoordinate, HexBoard)}
+	 *                 or 
+	 *                 {@link #findBidirectional(HexCoordinate, HexCoordinate, HexBoard)}.
+	 */
+	public int getExpanded() {
+	    return metrics == null ? 0 : metrics.getExpanded();
+	}
+	
+	/**
+	 * Return the counts and timings of the most recent search.
+	 * 
+	 * @return         metrics filled in by the last call to 
+	 *                 {@link #find(HexCoordinate, HexCoordinate, HexBoard)}
+	 *                 or 
+	 *                 {@link #findBidirectional(HexCoordinate, HexCoordinate, HexBoard)},
+	 *                 or null if there has been none.
+	 */
+	public SearchMetrics getMetrics() {
+	    return metrics;
+	}
+	
+	/**
+	 * Set whether later searches measure the time spent on worklist 
+	 * operations separately from the rest of the search. Reading the 
+	 * clock around every operation slows the search noticeably, so 
+	 * this is off unless asked for; the total time is always measured.
+	 * 
+	 * @param t        whether to time worklist operations
+	 */
+	public void setTimed(boolean t) {
+	    timed = t;
 	}
 
 	/**
 	 * For every node that was visited in the most recent search, draw 
 	 * an X centered on the tile half the size of tiles.
 	 */
-	public void markVisited(Graphics g) {
+	public void markVisited(final Graphics g) {
+	    g.setColor(Color.BLACK);
+	    visited.forEach((packed) -> markX(g, PackedCoordinate.unpack(packed)));
+	}
+	
+	private static void markX(Graphics g, HexCoordinate h) {
 	    int xbar = HexTile.WIDTH / 4;
-
-		for (HexCoordinate h : visited) {
-		    Point p = h.toPoint(HexTile.WIDTH);
-		    Point sw = p.getLocation();
-		    Point nw = p.getLocation();
-		    Point ne = p.getLocation();
-		    Point se = p.getLocation();
-		     
-		    nw.translate(-xbar, xbar);
-		    ne.translate(xbar, xbar);
-		    se.translate(xbar, -xbar);
-		    sw.translate(-xbar, -xbar);
-		    
-		    g.setColor(Color.BLACK);
-		    g.drawLine(p.x, p.y, nw.x, nw.y);
-		    g.drawLine(p.x, p.y, ne.x, ne.y);
-		    g.drawLine(p.x, p.y, se.x, se.y);
-		    g.drawLine(p.x, p.y, sw.x, sw.y);
-		}
+	    Point p = h.toPoint(HexTile.WIDTH);
+	    Point sw = p.getLocation();
+	    Point nw = p.getLocation();
+	    Point ne = p.getLocation();
+	    Point se = p.getLocation();
+	    
+	    nw.translate(-xbar, xbar);
+	    ne.translate(xbar, xbar);
+	    se.translate(xbar, -xbar);
+	    sw.translate(-xbar, -xbar);
+	    
+	    g.drawLine(p.x, p.y, nw.x, nw.y);
+	    g.drawLine(p.x, p.y, ne.x, ne.y);
+	    g.drawLine(p.x, p.y, se.x, se.y);
+	    g.drawLine(p.x, p.y, sw.x, sw.y);
 	}
 }
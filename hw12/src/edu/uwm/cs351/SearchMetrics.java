@@ -0,0 +1,248 @@
+package edu.uwm.cs351;
+
+import java.io.IOException;
+
+/**
+ * Counts and timings describing one search, as filled in by
+ * {@link Search}.
+ * <p>
+ * A new SearchMetrics is started by every call to
+ * {@link Search#find(HexCoordinate, HexCoordinate, HexBoard)} or
+ * {@link Search#findBidirectional(HexCoordinate, HexCoordinate, HexBoard)},
+ * so one kept from an earlier search is not changed by later ones.
+ * Each can be written as one line of JSON, so that a series of searches
+ * can be logged and compared without drawing anything.
+ * <p>
+ * The total time of the search is always measured. When the search is
+ * {@linkplain Search#setTimed(boolean) timed}, the time spent adding to
+ * and taking from the worklist is also measured around each operation,
+ * and the rest of the search is counted as expansion.
+ */
+public class SearchMetrics {
+	private final String kind;
+	private final HexCoordinate from, to;
+	private final boolean timed;
+	int popped;         // paths taken from the worklist
+	int expanded;       // of those, paths whose location was new
+	int pushed;         // paths added to the worklist
+	int skipped;        // neighbours not added because already visited
+	int peak;           // most paths waiting at once
+	int terrainLookups; // calls to HexBoard.terrainAt
+	long worklistNanos;
+	long totalNanos;
+	int pathSize = -1;
+	int pathCost = -1;
+
+	private int waiting;
+
+	/**
+	 * Start the metrics for a search.
+	 *
+	 * @param k        name of the kind of search, must not be null
+	 * @param f        HexCoordinate the search starts from
+	 * @param t        HexCoordinate the search is to reach
+	 * @param w        whether worklist operations are timed
+	 */
+	SearchMetrics(String k, HexCoordinate f, HexCoordinate t, boolean w) {
+		kind = k;
+		from = f;
+		to = t;
+		timed = w;
+	}
+
+	/** Record that a path was added to a worklist. */
+	void push() {
+		++pushed;
+		if (++waiting > peak) peak = waiting;
+	}
+
+	/**
+	 * Record that a path was given to a worklist, which may have 
+	 * replaced or dropped a path rather than adding one.
+	 *
+	 * @param size     number of paths waiting afterwards
+	 */
+	void push(int size) {
+		++pushed;
+		waiting = size;
+		if (waiting > peak) peak = waiting;
+	}
+
+	/** Record that a path was taken from a worklist. */
+	void pop() {
+		++popped;
+		--waiting;
+	}
+
+	/**
+	 * Record the result of the search.
+	 *
+	 * @param p        HexPath found, or null if none
+	 * @param c        HexPathCoster to cost it with, or null if none
+	 */
+	void finish(HexPath p, HexPathCoster c) {
+		if (p != null) {
+			pathSize = p.size();
+			if (c != null) pathCost = c.getCost(p);
+		}
+	}
+
+	/**
+	 * Return the kind of search: "find" or "bidirectional".
+	 * @return         kind of search measured
+	 */
+	public String getKind() {
+		return kind;
+	}
+
+	/**
+	 * Return the number of paths taken from the worklist, including those
+	 * skipped because their location had already been reached.
+	 * @return         number of paths popped
+	 */
+	public int getPopped() {
+		return popped;
+	}
+
+	/**
+	 * Return the number of paths whose neighbours were explored.
+	 * @return         number of locations expanded
+	 */
+	public int getExpanded() {
+		return expanded;
+	}
+
+	/**
+	 * Return the number of paths added to the worklist.
+	 * @return         number of paths pushed
+	 */
+	public int getPushed() {
+		return pushed;
+	}
+
+	/**
+	 * Return the number of duplicate paths avoided: neighbours not added
+	 * because they had already been visited, plus paths popped after
+	 * their location had been reached another way.
+	 * @return         number of duplicates skipped
+	 */
+	public int getDuplicates() {
+		return skipped + popped - expanded;
+	}
+
+	/**
+	 * Return the largest number of paths waiting at once.
+	 * @return         peak worklist size
+	 */
+	public int getPeakWorklist() {
+		return peak;
+	}
+
+	/**
+	 * Return the number of times the board was asked for the terrain at
+	 * a location.
+	 * @return         number of calls to {@link HexBoard#terrainAt}
+	 */
+	public int getTerrainLookups() {
+		return terrainLookups;
+	}
+
+	/**
+	 * Return the time spent adding to and taking from the worklist.
+	 * @return         nanoseconds of worklist operations, or -1 if the
+	 *                 search was not timed
+	 */
+	public long getWorklistNanos() {
+		if (!timed) return -1;
+		return worklistNanos;
+	}
+
+	/**
+	 * Return the time spent in the search outside worklist operations.
+	 * @return         nanoseconds of expansion, or -1 if the search was
+	 *                 not timed
+	 */
+	public long getExpansionNanos() {
+		if (!timed) return -1;
+		assert worklistNanos <= totalNanos : "worklist time " + worklistNanos + " outside total " + totalNanos;
+		return Math.max(0, totalNanos - worklistNanos);
+	}
+
+	/**
+	 * Return the wall time of the whole search. A search carried out a
+	 * step at a time counts only the time spent in its steps.
+	 * @return         nanoseconds spent searching
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * Return the number of steps in the path found.
+	 * @return         size of the path, or -1 if none was found
+	 */
+	public int getPathSize() {
+		return pathSize;
+	}
+
+	/**
+	 * Return the cost of the path found.
+	 * @return         cost of the path, or -1 if none was found or the
+	 *                 search had no coster
+	 */
+	public int getPathCost() {
+		return pathCost;
+	}
+
+	/**
+	 * Return the metrics as one line of JSON (with no line terminator).
+	 * @return         JSON object with a field for each metric
+	 */
+	public String toJson() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"kind\":");
+		quote(sb, kind);
+		sb.append(",\"from\":");
+		quote(sb, String.valueOf(from));
+		sb.append(",\"to\":");
+		quote(sb, String.valueOf(to));
+		sb.append(",\"popped\":").append(popped);
+		sb.append(",\"expanded\":").append(expanded);
+		sb.append(",\"pushed\":").append(pushed);
+		sb.append(",\"duplicates\":").append(getDuplicates());
+		sb.append(",\"peakWorklist\":").append(peak);
+		sb.append(",\"terrainLookups\":").append(terrainLookups);
+		sb.append(",\"worklistNanos\":").append(getWorklistNanos());
+		sb.append(",\"expansionNanos\":").append(getExpansionNanos());
+		sb.append(",\"totalNanos\":").append(totalNanos);
+		sb.append(",\"pathSize\":").append(pathSize);
+		sb.append(",\"pathCost\":").append(pathCost);
+		sb.append('}');
+		return sb.toString();
+	}
+
+	private static void quote(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i=0; i < s.length(); ++i) {
+			char ch = s.charAt(i);
+			if (ch == '"' || ch == '\\') sb.append('\\').append(ch);
+			else if (ch < ' ') sb.append(String.format("\\u%04x", (int)ch));
+			else sb.append(ch);
+		}
+		sb.append('"');
+	}
+
+	/**
+	 * Write the metrics as one line of JSON, followed by a newline.
+	 * @param out      where to write, must not be null
+	 * @throws IOException if the output fails
+	 */
+	public void writeJsonLine(Appendable out) throws IOException {
+		out.append(toJson()).append('\n');
+	}
+
+	@Override
+	public String toString() {
+		return toJson();
+	}
+}
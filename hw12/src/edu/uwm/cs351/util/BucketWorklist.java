@@ -0,0 +1,168 @@
+package edu.uwm.cs351.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.ToIntFunction;
+
+/**
+ * A Worklist whose elements are returned in ascending order of an
+ * integer priority, using a circular array of buckets (Dial's
+ * algorithm).
+ * <p>
+ * Bucket <code>i</code> (counting from the cursor) holds elements whose
+ * priority is <code>base + i</code>. Adding to a bucket and taking from
+ * the first non-empty bucket take constant time, rather than the
+ * logarithmic time of a heap. This works when priorities never fall
+ * below the last one returned and never jump ahead by the number of
+ * buckets or more, as in a cheapest-first search whose steps have small
+ * costs. Any element outside that window goes into an ordinary priority
+ * queue instead, so the order is always correct, just slower.
+ * <p>
+ * Elements with the same priority are returned in no particular order.
+ *
+ * @param <E>   The type of element to be stored in the Worklist.
+ */
+public class BucketWorklist<E> implements Worklist<E> {
+	private final ToIntFunction<? super E> priority;
+	private final List<E>[] buckets;
+	private int cursor;    // bucket holding priority base
+	private int base;      // smallest priority that can go in a bucket
+	private int inBuckets; // number of elements in buckets
+	private final PriorityQueue<E> overflow;
+
+	private static boolean doReport = true;
+
+	private static boolean report(String s) {
+		if (doReport) System.err.println("Invariant error: " + s);
+		return false;
+	}
+
+	/**
+	 * Check the invariant:
+	 * <ol>
+	 * <li>There is at least one bucket and the cursor is a legal
+	 *     index.</li>
+	 * <li>Each element in bucket <code>cursor + i</code> (circularly)
+	 *     has priority <code>base + i</code>.</li>
+	 * <li>The count of elements in buckets is correct.</li>
+	 * </ol>
+	 * @return true if the invariant is intact
+	 */
+	private boolean wellFormed() {
+		if (buckets == null || buckets.length == 0) return report("no buckets");
+		if (cursor < 0 || cursor >= buckets.length) return report("cursor out of range: " + cursor);
+		int count = 0;
+		for (int i=0; i < buckets.length; ++i) {
+			for (E e : buckets[(cursor + i) % buckets.length]) {
+				if (priority.applyAsInt(e) != base + i) return report("element " + e + " in wrong bucket");
+				++count;
+			}
+		}
+		if (count != inBuckets) return report("count is " + inBuckets + " but buckets hold " + count);
+		return true;
+	}
+
+	/**
+	 * Initialize a new BucketWorklist.
+	 *
+	 * @param p         function giving the priority of each element;
+	 *                  it must give the same result for an element
+	 *                  every time.
+	 * @param range     number of buckets: one more than the largest
+	 *                  jump in priority expected between an element
+	 *                  returned and an element then added (at least 1).
+	 * @postcondition   The Worklist is empty.
+	 */
+	public BucketWorklist(ToIntFunction<? super E> p, int range) {
+		if (range < 1) throw new IllegalArgumentException("need at least one bucket: " + range);
+		priority = p;
+		@SuppressWarnings("unchecked")
+		List<E>[] b = (List<E>[]) new List<?>[range]; // only ever holds List<E>
+		for (int i=0; i < range; ++i) {
+			b[i] = new ArrayList<E>();
+		}
+		buckets = b;
+		overflow = new PriorityQueue<E>(Comparator.comparingInt(p));
+		assert wellFormed() : "invariant failed in constructor";
+	}
+
+	/**
+	 * Return the number of elements waiting.
+	 *
+	 * @return number of elements that {@link #next()} can still return
+	 */
+	public int size() {
+		return inBuckets + overflow.size();
+	}
+
+	/**
+	 * Return the number of elements that fell outside the buckets.
+	 *
+	 * @return number of waiting elements kept in the fallback queue
+	 */
+	public int getOverflow() {
+		return overflow.size();
+	}
+
+	@Override
+	public boolean hasNext() {
+		assert wellFormed() : "invariant failed at start of hasNext";
+		return size() > 0;
+	}
+
+	@Override
+	public void add(E element) {
+		assert wellFormed() : "invariant failed at start of add";
+		long offset = (long)priority.applyAsInt(element) - base;
+		if ((offset < 0 || offset >= buckets.length) && inBuckets == 0 && overflow.isEmpty()) {
+			// empty: move the window to start here
+			base = priority.applyAsInt(element);
+			offset = 0;
+		}
+		if (offset < 0 || offset >= buckets.length) overflow.add(element);
+		else {
+			buckets[(int)((cursor + offset) % buckets.length)].add(element);
+			++inBuckets;
+		}
+		assert wellFormed() : "invariant failed at end of add";
+	}
+
+	@Override
+	public E next() {
+		assert wellFormed() : "invariant failed at start of next";
+		if (!hasNext()) throw new NoSuchElementException("Exhausted");
+		if (inBuckets == 0) refill();
+		while (buckets[cursor].isEmpty()) {
+			cursor = (cursor + 1) % buckets.length;
+			++base;
+		}
+		E result;
+		if (!overflow.isEmpty() && priority.applyAsInt(overflow.peek()) < base) result = overflow.remove();
+		else {
+			List<E> bucket = buckets[cursor];
+			result = bucket.remove(bucket.size() - 1);
+			--inBuckets;
+		}
+		assert wellFormed() : "invariant failed at end of next";
+		return result;
+	}
+
+	/**
+	 * When the buckets are empty, move the window to the smallest
+	 * priority in the fallback queue, and move every element that now
+	 * fits into the buckets.
+	 */
+	private void refill() {
+		cursor = 0;
+		base = priority.applyAsInt(overflow.peek());
+		while (!overflow.isEmpty()) {
+			long offset = (long)priority.applyAsInt(overflow.peek()) - base;
+			if (offset >= buckets.length) break;
+			buckets[(int)offset].add(overflow.remove());
+			++inBuckets;
+		}
+	}
+}
@@ -28,6 +28,11 @@ public class FIFOWorklist<E> implements Worklist<E> {
         worklist = new LinkedList<E>();
     }
 
+    @Override
+    public int size() {
+        return worklist.size();
+    }
+
     @Override
     public boolean hasNext() {
         return !worklist.isEmpty();
@@ -0,0 +1,178 @@
+package edu.uwm.cs351.util;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+/**
+ * A Worklist whose elements are returned in ascending order, and which
+ * holds at most one element for each key.
+ * <p>
+ * Adding an element whose key is already waiting keeps whichever of the
+ * two elements comes first in the order: a better element replaces the
+ * waiting one in place (decrease-key), and a worse one is dropped. Once
+ * an element has been returned, its key may be added again.
+ * <p>
+ * The elements are kept in a 4-ary heap (each node has up to four
+ * children, which makes the heap shallower than a binary heap), and a
+ * map from each key to the element's position in the heap.
+ *
+ * @param <E>   The type of element to be stored in the Worklist.
+ */
+public class IndexedPriorityWorklist<E> implements Worklist<E> {
+	private static final int ARITY = 4;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final Comparator<E> comparator;
+	private final Function<? super E,?> key;
+	private Object[] heap;
+	private int size;
+	private final Map<Object,Integer> index = new HashMap<Object,Integer>();
+
+	private static boolean doReport = true;
+
+	private static boolean report(String s) {
+		if (doReport) System.err.println("Invariant error: " + s);
+		return false;
+	}
+
+	/**
+	 * Check the invariant:
+	 * <ol>
+	 * <li>The heap is not null and size is between 0 and its length.</li>
+	 * <li>No element comes before its parent in the order.</li>
+	 * <li>The index maps the key of each element to its position, and
+	 *     has nothing else in it.</li>
+	 * </ol>
+	 * @return true if the invariant is intact
+	 */
+	private boolean wellFormed() {
+		if (heap == null) return report("heap is null");
+		if (size < 0 || size > heap.length) return report("size out of range: " + size);
+		for (int i=1; i < size; ++i) {
+			if (comparator.compare(elementAt(i), elementAt(parent(i))) < 0) return report("element " + i + " comes before its parent");
+		}
+		if (index.size() != size) return report("index has " + index.size() + " keys but heap has " + size + " elements");
+		for (int i=0; i < size; ++i) {
+			Integer pos = index.get(key.apply(elementAt(i)));
+			if (pos == null || pos != i) return report("index has wrong position for element " + i);
+		}
+		return true;
+	}
+
+	/**
+	 * Initialize a new IndexedPriorityWorklist.
+	 *
+	 * @param comp      Comparator of type E used to order Worklist.
+	 * @param k         Function giving the key of each element; at most
+	 *                  one element with equal keys is waiting at once.
+	 * @postcondition   The Worklist is empty.
+	 */
+	public IndexedPriorityWorklist(Comparator<E> comp, Function<? super E,?> k) {
+		comparator = comp;
+		key = k;
+		heap = new Object[INITIAL_CAPACITY];
+		assert wellFormed() : "invariant failed in constructor";
+	}
+
+	@SuppressWarnings("unchecked")
+	private E elementAt(int i) {
+		return (E)heap[i];
+	}
+
+	private static int parent(int i) {
+		return (i - 1) / ARITY;
+	}
+
+	/**
+	 * Return the number of elements waiting.
+	 *
+	 * @return number of elements that {@link #next()} can still return
+	 */
+	public int size() {
+		assert wellFormed() : "invariant failed at start of size";
+		return size;
+	}
+
+	@Override
+	public boolean hasNext() {
+		assert wellFormed() : "invariant failed at start of hasNext";
+		return size > 0;
+	}
+
+	@Override
+	public E next() {
+		assert wellFormed() : "invariant failed at start of next";
+		if (size == 0) throw new NoSuchElementException("Exhausted");
+		E result = elementAt(0);
+		index.remove(key.apply(result));
+		--size;
+		if (size > 0) {
+			heap[0] = heap[size];
+			siftDown(0);
+		}
+		heap[size] = null;
+		assert wellFormed() : "invariant failed at end of next";
+		return result;
+	}
+
+	@Override
+	public void add(E element) {
+		assert wellFormed() : "invariant failed at start of add";
+		Object k = key.apply(element);
+		Integer pos = index.get(k);
+		if (pos != null) {
+			if (comparator.compare(element, elementAt(pos)) >= 0) return;
+			heap[pos] = element;
+			siftUp(pos);
+		} else {
+			if (size == heap.length) {
+				Object[] bigger = new Object[heap.length * 2];
+				System.arraycopy(heap, 0, bigger, 0, size);
+				heap = bigger;
+			}
+			heap[size] = element;
+			index.put(k, size);
+			siftUp(size++);
+		}
+		assert wellFormed() : "invariant failed at end of add";
+	}
+
+	/**
+	 * Put an element in place, updating the index.
+	 */
+	private void place(E element, int i) {
+		heap[i] = element;
+		index.put(key.apply(element), i);
+	}
+
+	private void siftUp(int i) {
+		E x = elementAt(i);
+		while (i > 0) {
+			int p = parent(i);
+			if (comparator.compare(elementAt(p), x) <= 0) break;
+			place(elementAt(p), i);
+			i = p;
+		}
+		place(x, i);
+	}
+
+	private void siftDown(int i) {
+		E x = elementAt(i);
+		for (;;) {
+			int first = i * ARITY + 1;
+			if (first >= size) break;
+			int best = first;
+			int last = Math.min(first + ARITY, size);
+			for (int c = first + 1; c < last; ++c) {
+				if (comparator.compare(elementAt(c), elementAt(best)) < 0) best = c;
+			}
+			if (comparator.compare(x, elementAt(best)) <= 0) break;
+			place(elementAt(best), i);
+			i = best;
+		}
+		place(x, i);
+	}
+}
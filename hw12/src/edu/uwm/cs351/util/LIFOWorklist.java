@@ -28,6 +28,11 @@ public class LIFOWorklist<E> implements Worklist<E> {
         worklist = new Stack<E>();
     }
 
+    @Override
+    public int size() {
+        return worklist.size();
+    }
+
     @Override
     public boolean hasNext() {
         return !worklist.empty();
@@ -0,0 +1,161 @@
+package edu.uwm.cs351.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A set of long values stored directly in an array, with no 
+ * objects allocated per element.
+ * <p>
+ * The set uses open addressing with linear probing: each value lives 
+ * in the first free slot at or after its hash position. The table 
+ * size is always a power of two and is doubled whenever it would be 
+ * more than half full. Elements cannot be removed individually, only 
+ * all at once with {@link #clear()}.
+ */
+public class LongHashSet {
+	private static final int INITIAL_CAPACITY = 16;
+	
+	private long[] table;
+	private boolean[] used;
+	private int size;
+	
+	private static boolean doReport = true;
+	
+	private static boolean report(String s) {
+		if (doReport) System.err.println("Invariant error: " + s);
+		return false;
+	}
+	
+	/**
+	 * Check the invariant:
+	 * <ol>
+	 * <li>The table and used arrays are not null, are the same 
+	 *     length, and that length is a power of two.</li>
+	 * <li>The size is the number of used slots, and fewer than half 
+	 *     the slots are used.</li>
+	 * <li>Every used value is reachable by probing from its hash 
+	 *     position without passing an unused slot.</li>
+	 * </ol>
+	 * @return true if the invariant is intact
+	 */
+	private boolean wellFormed() {
+		if (table == null || used == null) return report("arrays are null");
+		if (table.length != used.length) return report("arrays have different lengths");
+		if (Integer.bitCount(table.length) != 1) return report("capacity is not a power of two: " + table.length);
+		int count = 0;
+		for (int i=0; i < table.length; ++i) {
+			if (!used[i]) continue;
+			++count;
+			for (int j = hash(table[i]); j != i; j = (j+1) & (table.length-1)) {
+				if (!used[j]) return report("value " + table[i] + " not reachable from its hash position");
+			}
+		}
+		if (count != size) return report("size is " + size + " but " + count + " slots are used");
+		if (size * 2 > table.length) return report("table is too full");
+		return true;
+	}
+	
+	/**
+	 * Create an empty set.
+	 */
+	public LongHashSet() {
+		table = new long[INITIAL_CAPACITY];
+		used = new boolean[INITIAL_CAPACITY];
+		assert wellFormed() : "invariant failed in constructor";
+	}
+	
+	private int hash(long x) {
+		x *= 0x9E3779B97F4A7C15L; // spread the bits (Fibonacci hashing)
+		return (int)(x >>> 32) & (table.length - 1);
+	}
+	
+	/**
+	 * Return the slot holding the value, or the free slot where it 
+	 * belongs.
+	 */
+	private int find(long x) {
+		int i = hash(x);
+		while (used[i] && table[i] != x) {
+			i = (i + 1) & (table.length - 1);
+		}
+		return i;
+	}
+	
+	/**
+	 * Return the number of values in the set.
+	 * @return number of values
+	 */
+	public int size() {
+		assert wellFormed() : "invariant failed at start of size";
+		return size;
+	}
+	
+	/**
+	 * Return whether the value is in the set.
+	 * @param x value to look for
+	 * @return true if the value has been added since the last clear
+	 */
+	public boolean contains(long x) {
+		assert wellFormed() : "invariant failed at start of contains";
+		return used[find(x)];
+	}
+	
+	/**
+	 * Add a value to the set.
+	 * @param x value to add
+	 * @return true if the value was not in the set already
+	 */
+	public boolean add(long x) {
+		assert wellFormed() : "invariant failed at start of add";
+		int i = find(x);
+		if (used[i]) return false;
+		if ((size + 1) * 2 > table.length) {
+			rehash(table.length * 2);
+			i = find(x);
+		}
+		table[i] = x;
+		used[i] = true;
+		++size;
+		assert wellFormed() : "invariant failed at end of add";
+		return true;
+	}
+	
+	private void rehash(int capacity) {
+		long[] oldTable = table;
+		boolean[] oldUsed = used;
+		table = new long[capacity];
+		used = new boolean[capacity];
+		for (int i=0; i < oldTable.length; ++i) {
+			if (oldUsed[i]) {
+				int j = find(oldTable[i]);
+				table[j] = oldTable[i];
+				used[j] = true;
+			}
+		}
+	}
+	
+	/**
+	 * Remove all values, keeping the table so that filling the set 
+	 * again does not need to grow it.
+	 */
+	public void clear() {
+		assert wellFormed() : "invariant failed at start of clear";
+		if (size == 0) return;
+		Arrays.fill(used, false);
+		size = 0;
+		assert wellFormed() : "invariant failed at end of clear";
+	}
+	
+	/**
+	 * Perform an action for every value in the set, in no particular 
+	 * order.
+	 * @param action action to perform, must not be null
+	 */
+	public void forEach(LongConsumer action) {
+		assert wellFormed() : "invariant failed at start of forEach";
+		for (int i=0; i < table.length; ++i) {
+			if (used[i]) action.accept(table[i]);
+		}
+	}
+}
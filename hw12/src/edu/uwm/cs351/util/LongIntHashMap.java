@@ -0,0 +1,178 @@
+package edu.uwm.cs351.util;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * A map from long keys to int values stored directly in arrays, with
+ * no objects allocated per entry.
+ * <p>
+ * Like {@link LongHashSet}, the map uses open addressing with linear
+ * probing in a power-of-two table that is doubled whenever it would be
+ * more than half full. Entries cannot be removed individually, only
+ * all at once with {@link #clear()}.
+ */
+public class LongIntHashMap {
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] keys;
+	private int[] values;
+	private boolean[] used;
+	private int size;
+
+	private static boolean doReport = true;
+
+	private static boolean report(String s) {
+		if (doReport) System.err.println("Invariant error: " + s);
+		return false;
+	}
+
+	/**
+	 * Check the invariant:
+	 * <ol>
+	 * <li>The keys, values and used arrays are not null, are the same
+	 *     length, and that length is a power of two.</li>
+	 * <li>The size is the number of used slots, and fewer than half
+	 *     the slots are used.</li>
+	 * <li>Every used key is reachable by probing from its hash
+	 *     position without passing an unused slot.</li>
+	 * </ol>
+	 * @return true if the invariant is intact
+	 */
+	private boolean wellFormed() {
+		if (keys == null || values == null || used == null) return report("arrays are null");
+		if (keys.length != used.length || values.length != used.length) return report("arrays have different lengths");
+		if (Integer.bitCount(keys.length) != 1) return report("capacity is not a power of two: " + keys.length);
+		int count = 0;
+		for (int i=0; i < keys.length; ++i) {
+			if (!used[i]) continue;
+			++count;
+			for (int j = hash(keys[i]); j != i; j = (j+1) & (keys.length-1)) {
+				if (!used[j]) return report("key " + keys[i] + " not reachable from its hash position");
+			}
+		}
+		if (count != size) return report("size is " + size + " but " + count + " slots are used");
+		if (size * 2 > keys.length) return report("table is too full");
+		return true;
+	}
+
+	/**
+	 * Create an empty map.
+	 */
+	public LongIntHashMap() {
+		keys = new long[INITIAL_CAPACITY];
+		values = new int[INITIAL_CAPACITY];
+		used = new boolean[INITIAL_CAPACITY];
+		assert wellFormed() : "invariant failed in constructor";
+	}
+
+	private int hash(long x) {
+		x *= 0x9E3779B97F4A7C15L; // spread the bits (Fibonacci hashing)
+		return (int)(x >>> 32) & (keys.length - 1);
+	}
+
+	/**
+	 * Return the slot holding the key, or the free slot where it
+	 * belongs.
+	 */
+	private int find(long x) {
+		int i = hash(x);
+		while (used[i] && keys[i] != x) {
+			i = (i + 1) & (keys.length - 1);
+		}
+		return i;
+	}
+
+	/**
+	 * Return the number of keys in the map.
+	 * @return number of keys
+	 */
+	public int size() {
+		assert wellFormed() : "invariant failed at start of size";
+		return size;
+	}
+
+	/**
+	 * Return whether the key has a value in the map.
+	 * @param x key to look for
+	 * @return true if the key has been put since the last clear
+	 */
+	public boolean containsKey(long x) {
+		assert wellFormed() : "invariant failed at start of containsKey";
+		return used[find(x)];
+	}
+
+	/**
+	 * Return the value for a key.
+	 * @param x key to look up
+	 * @param absent value to return if the key is not in the map
+	 * @return value put for the key, or <code>absent</code> if none
+	 */
+	public int get(long x, int absent) {
+		assert wellFormed() : "invariant failed at start of get";
+		int i = find(x);
+		return used[i] ? values[i] : absent;
+	}
+
+	/**
+	 * Set the value for a key, replacing any value it had.
+	 * @param x key to set
+	 * @param v value for the key
+	 */
+	public void put(long x, int v) {
+		assert wellFormed() : "invariant failed at start of put";
+		int i = find(x);
+		if (!used[i]) {
+			if ((size + 1) * 2 > keys.length) {
+				rehash(keys.length * 2);
+				i = find(x);
+			}
+			keys[i] = x;
+			used[i] = true;
+			++size;
+		}
+		values[i] = v;
+		assert wellFormed() : "invariant failed at end of put";
+	}
+
+	private void rehash(int capacity) {
+		long[] oldKeys = keys;
+		int[] oldValues = values;
+		boolean[] oldUsed = used;
+		keys = new long[capacity];
+		values = new int[capacity];
+		used = new boolean[capacity];
+		for (int i=0; i < oldKeys.length; ++i) {
+			if (oldUsed[i]) {
+				int j = find(oldKeys[i]);
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+				used[j] = true;
+			}
+		}
+	}
+
+	/**
+	 * Remove all entries, keeping the table so that filling the map
+	 * again does not need to grow it.
+	 */
+	public void clear() {
+		assert wellFormed() : "invariant failed at start of clear";
+		if (size == 0) return;
+		Arrays.fill(used, false);
+		size = 0;
+		assert wellFormed() : "invariant failed at end of clear";
+	}
+
+	/**
+	 * Perform an action for every key in the map, in no particular
+	 * order.
+	 * @param action action to perform, must not be null
+	 */
+	public void forEachKey(LongConsumer action) {
+		assert wellFormed() : "invariant failed at start of forEachKey";
+		for (int i=0; i < keys.length; ++i) {
+			if (used[i]) action.accept(keys[i]);
+		}
+	}
+}
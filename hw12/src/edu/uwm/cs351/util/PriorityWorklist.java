@@ -31,6 +31,16 @@ public class PriorityWorklist<E> implements Worklist<E> {
         worklist = new PriorityQueue<E>(comp);
     }
 
+    /**
+     * Return the number of elements waiting.
+     * 
+     * @return          number of elements that {@link #next()} can 
+     *                  still return
+     */
+    public int size() {
+        return worklist.size();
+    }
+
     @Override
     public boolean hasNext() {
         return !worklist.isEmpty();
@@ -45,4 +55,9 @@ public class PriorityWorklist<E> implements Worklist<E> {
     public void add(E element) {
         worklist.add(element);
     }
+
+    @Override
+    public void clear() {
+        worklist.clear(); // keeps the array for the next use
+    }
 }
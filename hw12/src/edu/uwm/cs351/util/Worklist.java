@@ -17,4 +17,24 @@ public interface Worklist<E> extends Iterator<E> {
 	 * @param element      element to add, not null
 	 */
 	public void add(E element);
+	
+	/**
+	 * Return the number of elements waiting. This need not grow by one 
+	 * on every {@link #add(Object)}: a worklist may replace or drop an 
+	 * element instead.
+	 * 
+	 * @return         number of elements that {@link #next()} can still 
+	 *                 return
+	 */
+	public int size();
+	
+	/**
+	 * Remove all the elements waiting, so the worklist can be used 
+	 * again. By default they are taken out one at a time.
+	 */
+	public default void clear() {
+		while (hasNext()) {
+			next();
+		}
+	}
 }